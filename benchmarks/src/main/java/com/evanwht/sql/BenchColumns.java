@@ -0,0 +1,62 @@
+package com.evanwht.sql;
+
+import java.sql.Types;
+
+/**
+ * Columns of the table the benchmarks run against.
+ *
+ * @author evanwht1@gmail.com
+ */
+public enum BenchColumns implements Column {
+
+    ID("id", Types.BIGINT),
+    NAME("name", Types.VARCHAR),
+    COUNT("count", Types.INTEGER),
+    SCORE("score", Types.DOUBLE),
+    C4("c4", Types.INTEGER),
+    C5("c5", Types.VARCHAR),
+    C6("c6", Types.INTEGER),
+    C7("c7", Types.VARCHAR),
+    C8("c8", Types.INTEGER),
+    C9("c9", Types.VARCHAR),
+    C10("c10", Types.INTEGER),
+    C11("c11", Types.VARCHAR),
+    C12("c12", Types.INTEGER),
+    C13("c13", Types.VARCHAR),
+    C14("c14", Types.INTEGER),
+    C15("c15", Types.VARCHAR);
+
+    private final String name;
+    private final int type;
+
+    BenchColumns(final String name, final int type) {
+        this.name = name;
+        this.type = type;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public int getType() {
+        return type;
+    }
+
+    /**
+     * @return a value of the column's type
+     */
+    Object sampleValue() {
+        switch (type) {
+            case Types.BIGINT:
+                return 42L;
+            case Types.INTEGER:
+                return 7;
+            case Types.DOUBLE:
+                return 1.5;
+            default:
+                return "value";
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.evanwht.sql;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a whole execution against the stub driver: building or reusing the statement, preparing it and binding
+ * its parameters. Builders render and compile on every call, compiled statements only bind.
+ *
+ * @author evanwht1@gmail.com
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BindBenchmark {
+
+    private static final ResultMapper<Long> ID = rs -> rs.getLong(1);
+
+    @Param({"1", "4", "16"})
+    private int parameters;
+
+    private final Connection connection = StubJdbc.connection(1);
+    private BenchColumns[] columns;
+    private Object[] values;
+    private PreparedCommand insert;
+    private PreparedCommand update;
+    private PreparedQuery<Long> select;
+
+    @Setup
+    public void setup() {
+        columns = Arrays.copyOf(BenchColumns.values(), parameters);
+        values = Arrays.stream(columns).map(BenchColumns::sampleValue).toArray();
+        final InsertBuilder insertBuilder = new InsertBuilder().table("bench");
+        final UpdateBuilder updateBuilder = new UpdateBuilder().table("bench");
+        final SelectBuilder<Long> selectBuilder = new SelectBuilder<>(ID).table("bench");
+        for (BenchColumns column : columns) {
+            insertBuilder.value(column, column.sampleValue());
+            updateBuilder.value(column, column.sampleValue());
+            selectBuilder.where(column, column.sampleValue());
+        }
+        insert = insertBuilder.compile();
+        update = updateBuilder.compile();
+        select = selectBuilder.compile();
+    }
+
+    @Benchmark
+    public OptionalLong insertBuilder() throws SQLException {
+        final InsertBuilder builder = new InsertBuilder().table("bench");
+        for (int i = 0; i < columns.length; i++) {
+            builder.value(columns[i], values[i]);
+        }
+        return builder.execute(connection);
+    }
+
+    @Benchmark
+    public OptionalLong insertCompiled() throws SQLException {
+        return insert.executeForKey(connection, values);
+    }
+
+    @Benchmark
+    public OptionalInt updateBuilder() throws SQLException {
+        final UpdateBuilder builder = new UpdateBuilder().table("bench");
+        for (int i = 0; i < columns.length; i++) {
+            builder.value(columns[i], values[i]);
+        }
+        return builder.execute(connection);
+    }
+
+    @Benchmark
+    public OptionalInt updateCompiled() throws SQLException {
+        return update.execute(connection, values);
+    }
+
+    @Benchmark
+    public Optional<Long> selectBuilder() throws SQLException {
+        final SelectBuilder<Long> builder = new SelectBuilder<>(ID).table("bench");
+        for (int i = 0; i < columns.length; i++) {
+            builder.where(columns[i], values[i]);
+        }
+        return builder.getOne(connection);
+    }
+
+    @Benchmark
+    public Optional<Long> selectCompiled() throws SQLException {
+        return select.getOne(connection, values);
+    }
+}
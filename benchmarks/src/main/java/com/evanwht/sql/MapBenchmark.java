@@ -0,0 +1,98 @@
+package com.evanwht.sql;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost per row of mapping with a {@link ClassResultMapper} compared to a hand written lambda, and of visiting rows
+ * through a reused {@link com.evanwht.sql.Row} without mapping them, against the stub driver.
+ *
+ * @author evanwht1@gmail.com
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapBenchmark {
+
+    private static final int ROWS = 1000;
+
+    public static class Row {
+        public long id;
+        public String name;
+        public int count;
+        public double score;
+    }
+
+    private static final ResultMapper<Row> LAMBDA = rs -> {
+        final Row row = new Row();
+        row.id = rs.getLong(1);
+        row.name = rs.getString(2);
+        row.count = rs.getInt(3);
+        row.score = rs.getDouble(4);
+        return row;
+    };
+
+    private static final PreparedQuery<Row> QUERY = new SelectBuilder<>(LAMBDA)
+            .table("bench")
+            .select(BenchColumns.ID)
+            .select(BenchColumns.NAME)
+            .select(BenchColumns.COUNT)
+            .select(BenchColumns.SCORE)
+            .compile();
+
+    private final Connection connection = StubJdbc.connection(ROWS);
+    private ResultMapper<Row> reflective;
+
+    @Setup
+    public void setup() {
+        reflective = new ClassResultMapper<>(Row.class);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void classResultMapper(final Blackhole blackhole) throws SQLException {
+        map(reflective, blackhole);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void lambda(final Blackhole blackhole) throws SQLException {
+        map(LAMBDA, blackhole);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public double rowVisitor() throws SQLException {
+        final double[] sum = new double[1];
+        QUERY.forEachRow(connection, row -> sum[0] += row.getLong(BenchColumns.ID) + row.getInt(BenchColumns.COUNT)
+                + row.getDouble(BenchColumns.SCORE));
+        return sum[0];
+    }
+
+    private void map(final ResultMapper<Row> mapper, final Blackhole blackhole) throws SQLException {
+        try (final ResultSet resultSet = connection.prepareStatement("SELECT * FROM bench;").executeQuery()) {
+            final ResultMapper<Row> bound = mapper.bind(resultSet);
+            while (resultSet.next()) {
+                blackhole.consume(bound.map(resultSet));
+            }
+        }
+    }
+}
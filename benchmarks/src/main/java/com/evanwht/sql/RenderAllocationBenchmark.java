@@ -0,0 +1,78 @@
+package com.evanwht.sql;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.ResultSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of compiling an already built statement when its sql isn't cached, i.e. of a {@link SqlCache} miss. The cache
+ * is disabled for the run. With {@code -prof gc}, {@code gc.alloc.rate.norm} is the rendered String plus the
+ * statement key and the compiled statement; the render itself adds nothing.
+ *
+ * @author evanwht1@gmail.com
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RenderAllocationBenchmark {
+
+    @Param({"1", "4", "16"})
+    private int clauses;
+
+    private SelectBuilder<ResultSet> select;
+    private UpdateBuilder update;
+    private DeleteBuilder delete;
+    private int cacheSize;
+
+    @Setup
+    public void setup() {
+        cacheSize = SqlCache.getInstance().getMaxSize();
+        SqlCache.getInstance().setMaxSize(0);
+        select = SelectBuilder.resultSetSelector().table("bench");
+        update = new UpdateBuilder().table("bench");
+        delete = new DeleteBuilder().table("bench");
+        final BenchColumns[] columns = BenchColumns.values();
+        for (int i = 0; i < clauses; i++) {
+            // every other clause is null to render both kinds of condition
+            final Object value = i % 2 == 0 ? columns[i].sampleValue() : null;
+            select.select(columns[i]).where(columns[i], value);
+            update.value(columns[i], columns[i].sampleValue()).where(columns[i], value);
+            delete.where(columns[i], value);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        SqlCache.getInstance().setMaxSize(cacheSize);
+    }
+
+    @Benchmark
+    public String select() {
+        return select.compile().getSql();
+    }
+
+    @Benchmark
+    public String update() {
+        return update.compile().getSql();
+    }
+
+    @Benchmark
+    public String delete() {
+        return delete.compile().getSql();
+    }
+}
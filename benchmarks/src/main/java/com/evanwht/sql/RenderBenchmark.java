@@ -0,0 +1,83 @@
+package com.evanwht.sql;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.ResultSet;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of building each kind of statement and rendering its sql with {@code createStatement()}, with and without
+ * the {@link SqlCache}.
+ *
+ * @author evanwht1@gmail.com
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RenderBenchmark {
+
+    @Param({"1", "4", "16"})
+    private int clauses;
+
+    @Param({"true", "false"})
+    private boolean sqlCache;
+
+    private BenchColumns[] columns;
+
+    @Setup
+    public void setup() {
+        columns = Arrays.copyOf(BenchColumns.values(), clauses);
+        SqlCache.getInstance().clear();
+        SqlCache.getInstance().setMaxSize(sqlCache ? SqlCache.DEFAULT_MAX_SIZE : 0);
+    }
+
+    @Benchmark
+    public String select() {
+        final SelectBuilder<ResultSet> builder = SelectBuilder.resultSetSelector().table("bench");
+        for (BenchColumns column : columns) {
+            builder.select(column).where(column, column.sampleValue());
+        }
+        return builder.createStatement();
+    }
+
+    @Benchmark
+    public String insert() {
+        final InsertBuilder builder = new InsertBuilder().table("bench");
+        for (BenchColumns column : columns) {
+            builder.value(column, column.sampleValue());
+        }
+        return builder.createStatement();
+    }
+
+    @Benchmark
+    public String update() {
+        final UpdateBuilder builder = new UpdateBuilder().table("bench");
+        for (BenchColumns column : columns) {
+            builder.value(column, column.sampleValue()).where(column, column.sampleValue());
+        }
+        return builder.createStatement();
+    }
+
+    @Benchmark
+    public String delete() {
+        final DeleteBuilder builder = new DeleteBuilder().table("bench");
+        for (BenchColumns column : columns) {
+            builder.where(column, column.sampleValue());
+        }
+        return builder.createStatement();
+    }
+}
@@ -0,0 +1,153 @@
+package com.evanwht.sql;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Types;
+
+/**
+ * In-process JDBC stand in for the benchmarks. Connections prepare statements that accept any parameters and return
+ * a fixed number of identical rows of {@link BenchColumns#ID}, {@link BenchColumns#NAME}, {@link BenchColumns#COUNT}
+ * and {@link BenchColumns#SCORE}, so that mostly the cost of the library is measured. Proxy calls allocate their
+ * argument arrays, so compare allocation rates between benchmarks rather than reading them as absolute numbers.
+ *
+ * @author evanwht1@gmail.com
+ */
+final class StubJdbc {
+
+    private static final String[] LABELS = {"id", "name", "count", "score"};
+    private static final int[] TYPES = {Types.BIGINT, Types.VARCHAR, Types.INTEGER, Types.DOUBLE};
+    private static final Long ID = 42L;
+    private static final Integer COUNT = 7;
+    private static final Double SCORE = 1.5;
+    private static final String NAME = "name";
+
+    private StubJdbc() {
+    }
+
+    /**
+     * @param rows number of rows every query returns
+     * @return a connection to nowhere
+     */
+    static Connection connection(final int rows) {
+        final ResultSetMetaData metaData = proxy(ResultSetMetaData.class, (p, method, args) -> {
+            switch (method.getName()) {
+                case "getColumnCount":
+                    return LABELS.length;
+                case "getColumnLabel":
+                case "getColumnName":
+                    return LABELS[(Integer) args[0] - 1];
+                case "getColumnType":
+                    return TYPES[(Integer) args[0] - 1];
+                default:
+                    return defaultValue(method);
+            }
+        });
+        final PreparedStatement statement = proxy(PreparedStatement.class, new StatementHandler(rows, metaData));
+        return proxy(Connection.class, (p, method, args) -> {
+            if (method.getName().equals("prepareStatement")) {
+                return statement;
+            }
+            return defaultValue(method);
+        });
+    }
+
+    private static final class StatementHandler implements InvocationHandler {
+
+        private final int rows;
+        private final ResultSetMetaData metaData;
+
+        private StatementHandler(final int rows, final ResultSetMetaData metaData) {
+            this.rows = rows;
+            this.metaData = metaData;
+        }
+
+        @Override
+        public Object invoke(final Object proxy, final Method method, final Object[] args) {
+            switch (method.getName()) {
+                case "executeQuery":
+                case "getGeneratedKeys":
+                    return resultSet(rows, metaData);
+                case "executeUpdate":
+                    return 1;
+                case "executeBatch":
+                    return new int[0];
+                default:
+                    return defaultValue(method);
+            }
+        }
+    }
+
+    private static ResultSet resultSet(final int rows, final ResultSetMetaData metaData) {
+        final int[] row = {0};
+        return proxy(ResultSet.class, (p, method, args) -> {
+            switch (method.getName()) {
+                case "next":
+                    return row[0]++ < rows;
+                case "getMetaData":
+                    return metaData;
+                case "getLong":
+                    return ID;
+                case "getInt":
+                    return COUNT;
+                case "getDouble":
+                    return SCORE;
+                case "getString":
+                    return NAME;
+                case "getObject":
+                    return value(args[0]);
+                default:
+                    return defaultValue(method);
+            }
+        });
+    }
+
+    private static Object value(final Object column) {
+        final String label = column instanceof Integer ? LABELS[(Integer) column - 1] : (String) column;
+        switch (label) {
+            case "id":
+                return ID;
+            case "count":
+                return COUNT;
+            case "score":
+                return SCORE;
+            default:
+                return NAME;
+        }
+    }
+
+    private static Object defaultValue(final Method method) {
+        final Class<?> type = method.getReturnType();
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == int.class) {
+            return 0;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        if (type == double.class) {
+            return 0d;
+        }
+        if (type == float.class) {
+            return 0f;
+        }
+        if (type == short.class) {
+            return (short) 0;
+        }
+        if (type == byte.class) {
+            return (byte) 0;
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(final Class<T> type, final InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(StubJdbc.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+}
@@ -0,0 +1,140 @@
+package com.evanwht.sql.processor;
+
+import java.util.Map;
+
+/**
+ * A field or record component of a {@code @Mapped} type, and how to read it from a ResultSet.
+ *
+ * @author evanwht1@gmail.com
+ */
+final class MappedField {
+
+    /**
+     * ResultSet getters for types that have a dedicated one. Any other type is read with getObject.
+     */
+    private static final Map<String, String> GETTERS = Map.ofEntries(
+            Map.entry("int", "getInt"),
+            Map.entry("long", "getLong"),
+            Map.entry("double", "getDouble"),
+            Map.entry("float", "getFloat"),
+            Map.entry("boolean", "getBoolean"),
+            Map.entry("short", "getShort"),
+            Map.entry("byte", "getByte"),
+            Map.entry("java.lang.String", "getString"),
+            Map.entry("java.math.BigDecimal", "getBigDecimal"),
+            Map.entry("java.sql.Timestamp", "getTimestamp"),
+            Map.entry("java.sql.Date", "getDate"),
+            Map.entry("java.sql.Time", "getTime"),
+            Map.entry("byte[]", "getBytes"));
+
+    /**
+     * java.sql.Types constant for each Java type. Anything else is OTHER.
+     */
+    private static final Map<String, String> SQL_TYPES = Map.ofEntries(
+            Map.entry("int", "INTEGER"),
+            Map.entry("java.lang.Integer", "INTEGER"),
+            Map.entry("long", "BIGINT"),
+            Map.entry("java.lang.Long", "BIGINT"),
+            Map.entry("double", "DOUBLE"),
+            Map.entry("java.lang.Double", "DOUBLE"),
+            Map.entry("float", "REAL"),
+            Map.entry("java.lang.Float", "REAL"),
+            Map.entry("boolean", "BOOLEAN"),
+            Map.entry("java.lang.Boolean", "BOOLEAN"),
+            Map.entry("short", "SMALLINT"),
+            Map.entry("java.lang.Short", "SMALLINT"),
+            Map.entry("byte", "TINYINT"),
+            Map.entry("java.lang.Byte", "TINYINT"),
+            Map.entry("java.lang.String", "VARCHAR"),
+            Map.entry("java.math.BigDecimal", "DECIMAL"),
+            Map.entry("java.sql.Timestamp", "TIMESTAMP"),
+            Map.entry("java.sql.Date", "DATE"),
+            Map.entry("java.sql.Time", "TIME"),
+            Map.entry("byte[]", "VARBINARY"),
+            Map.entry("java.time.LocalDate", "DATE"),
+            Map.entry("java.time.LocalTime", "TIME"),
+            Map.entry("java.time.LocalDateTime", "TIMESTAMP"),
+            Map.entry("java.time.Instant", "TIMESTAMP"),
+            Map.entry("java.time.OffsetDateTime", "TIMESTAMP_WITH_TIMEZONE"));
+
+    private static final Map<String, String> DEFAULTS = Map.of(
+            "int", "0",
+            "long", "0L",
+            "double", "0.0",
+            "float", "0.0f",
+            "boolean", "false",
+            "short", "(short) 0",
+            "byte", "(byte) 0",
+            "char", "'\\0'");
+
+    private final String name;
+    private final String type;
+    private final String erasure;
+
+    MappedField(final String name, final String type, final String erasure) {
+        this.name = name;
+        this.type = type;
+        this.erasure = erasure;
+    }
+
+    String name() {
+        return name;
+    }
+
+    /**
+     * @return name of the Column enum constant for this field, e.g. FIRST_NAME for firstName
+     */
+    String constant() {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < name.length(); i++) {
+            final char c = name.charAt(i);
+            if (Character.isUpperCase(c) && i > 0 && !Character.isUpperCase(name.charAt(i - 1))) {
+                sb.append('_');
+            }
+            sb.append(Character.toUpperCase(c));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return the java.sql.Types constant for this field
+     */
+    String sqlType() {
+        return SQL_TYPES.getOrDefault(erasure, "OTHER");
+    }
+
+    /**
+     * @param index expression for the column index to read
+     * @return expression reading this field's value from a ResultSet named rs
+     */
+    String read(final String index) {
+        final String getter = GETTERS.get(erasure);
+        if (getter != null) {
+            return "rs." + getter + "(" + index + ")";
+        }
+        if ("java.lang.Object".equals(erasure)) {
+            return "rs.getObject(" + index + ")";
+        }
+        final String read = "rs.getObject(" + index + ", " + boxed() + ".class)";
+        return castsRead() ? "(" + type + ") " + read : read;
+    }
+
+    /**
+     * @return true if {@link #read(String)} casts getObject to a parameterized type, an unchecked cast
+     */
+    boolean castsRead() {
+        return !GETTERS.containsKey(erasure) && !"java.lang.Object".equals(erasure)
+               && !type.equals(erasure) && !type.equals(boxed());
+    }
+
+    /**
+     * @return the value to use when the field has no matching column
+     */
+    String defaultValue() {
+        return DEFAULTS.getOrDefault(erasure, "null");
+    }
+
+    private String boxed() {
+        return "char".equals(erasure) ? "java.lang.Character" : erasure;
+    }
+}
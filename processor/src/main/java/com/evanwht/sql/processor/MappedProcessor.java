@@ -0,0 +1,144 @@
+package com.evanwht.sql.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Generates a {@code Column} enum and a reflection free {@code ResultMapper} for every type annotated with
+ * {@code com.evanwht.sql.Mapped}. Classes map their public, non-static, non-final fields and must have a public
+ * no argument constructor. Records map their components through the canonical constructor.
+ *
+ * @author evanwht1@gmail.com
+ */
+public class MappedProcessor extends AbstractProcessor {
+
+    static final String MAPPED = "com.evanwht.sql.Mapped";
+
+    private Types types;
+    private Filer filer;
+    private Messager messager;
+
+    @Override
+    public synchronized void init(final ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        this.types = processingEnv.getTypeUtils();
+        this.filer = processingEnv.getFiler();
+        this.messager = processingEnv.getMessager();
+    }
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Set.of(MAPPED);
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element instanceof TypeElement && validate((TypeElement) element)) {
+                    generate((TypeElement) element);
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean validate(final TypeElement type) {
+        if (type.getModifiers().contains(Modifier.PRIVATE)
+                || (type.getNestingKind() == NestingKind.MEMBER && !type.getModifiers().contains(Modifier.STATIC) && !isRecord(type))) {
+            return error(type, "@Mapped types must be top level or static nested types that are not private");
+        }
+        if (!isRecord(type) && ElementFilter.constructorsIn(type.getEnclosedElements())
+                                            .stream()
+                                            .noneMatch(c -> c.getParameters().isEmpty() && c.getModifiers().contains(Modifier.PUBLIC))) {
+            return error(type, "@Mapped classes need a public no argument constructor");
+        }
+        return true;
+    }
+
+    private boolean error(final Element element, final String message) {
+        messager.printMessage(Diagnostic.Kind.ERROR, message, element);
+        return false;
+    }
+
+    private void generate(final TypeElement type) {
+        final MappedType mapped = new MappedType(type, isRecord(type), fields(type));
+        try {
+            write(mapped.qualifiedName("Columns"), mapped.columnsSource(), type);
+            write(mapped.qualifiedName("ResultMapper"), mapped.mapperSource(), type);
+        } catch (IOException e) {
+            error(type, "Could not generate sources: " + e.getMessage());
+        }
+    }
+
+    private void write(final String name, final String source, final TypeElement origin) throws IOException {
+        try (final Writer writer = filer.createSourceFile(name, origin).openWriter()) {
+            writer.write(source);
+        }
+    }
+
+    private List<MappedField> fields(final TypeElement type) {
+        final List<MappedField> fields = new ArrayList<>();
+        if (isRecord(type)) {
+            // record fields are declared in component order, matching the canonical constructor
+            for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+                if (!field.getModifiers().contains(Modifier.STATIC)) {
+                    fields.add(field(field));
+                }
+            }
+        } else {
+            for (VariableElement field : ElementFilter.fieldsIn(processingEnv.getElementUtils().getAllMembers(type))) {
+                final Set<Modifier> modifiers = field.getModifiers();
+                if (modifiers.contains(Modifier.PUBLIC) && !modifiers.contains(Modifier.STATIC) && !modifiers.contains(Modifier.FINAL)) {
+                    fields.add(field(field));
+                }
+            }
+        }
+        return fields;
+    }
+
+    private MappedField field(final VariableElement field) {
+        final TypeMirror type = field.asType();
+        return new MappedField(field.getSimpleName().toString(), type.toString(), types.erasure(type).toString());
+    }
+
+    private static boolean isRecord(final TypeElement type) {
+        // ElementKind.RECORD only exists on newer JDKs
+        return "RECORD".equals(type.getKind().name());
+    }
+
+    /**
+     * @return the package a type is declared in
+     */
+    static PackageElement packageOf(final Element element) {
+        Element e = element;
+        while (!(e instanceof PackageElement)) {
+            e = e.getEnclosingElement();
+        }
+        return (PackageElement) e;
+    }
+}
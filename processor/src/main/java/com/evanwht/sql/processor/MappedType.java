@@ -0,0 +1,139 @@
+package com.evanwht.sql.processor;
+
+import javax.lang.model.element.TypeElement;
+import java.util.List;
+
+/**
+ * A {@code @Mapped} type and the sources generated for it.
+ *
+ * @author evanwht1@gmail.com
+ */
+final class MappedType {
+
+    private final String packageName;
+    private final String typeName;
+    private final String prefix;
+    private final boolean record;
+    private final List<MappedField> fields;
+
+    MappedType(final TypeElement type, final boolean record, final List<MappedField> fields) {
+        this.packageName = MappedProcessor.packageOf(type).getQualifiedName().toString();
+        this.typeName = type.getQualifiedName().toString();
+        final String relativeName = packageName.isEmpty() ? typeName : typeName.substring(packageName.length() + 1);
+        this.prefix = relativeName.replace('.', '_');
+        this.record = record;
+        this.fields = fields;
+    }
+
+    /**
+     * @param suffix suffix of the generated type
+     * @return the fully qualified name of the generated type
+     */
+    String qualifiedName(final String suffix) {
+        return packageName.isEmpty() ? prefix + suffix : packageName + "." + prefix + suffix;
+    }
+
+    String columnsSource() {
+        final String name = prefix + "Columns";
+        final StringBuilder sb = header()
+                .append("import com.evanwht.sql.Column;\n")
+                .append("import java.sql.Types;\n")
+                .append("import javax.annotation.processing.Generated;\n\n")
+                .append("/**\n * Columns of {@link ").append(typeName).append("}.\n */\n")
+                .append("@Generated(\"").append(MappedProcessor.class.getName()).append("\")\n")
+                .append("public enum ").append(name).append(" implements Column {\n\n");
+        for (int i = 0; i < fields.size(); i++) {
+            final MappedField field = fields.get(i);
+            sb.append("    ").append(field.constant())
+              .append("(\"").append(field.name()).append("\", Types.").append(field.sqlType()).append(")")
+              .append(i == fields.size() - 1 ? ";\n\n" : ",\n");
+        }
+        if (fields.isEmpty()) {
+            sb.append("    ;\n\n");
+        }
+        return sb.append("    private final String name;\n")
+                 .append("    private final int type;\n\n")
+                 .append("    ").append(name).append("(final String name, final int type) {\n")
+                 .append("        this.name = name;\n")
+                 .append("        this.type = type;\n")
+                 .append("    }\n\n")
+                 .append("    @Override\n")
+                 .append("    public String getName() {\n")
+                 .append("        return name;\n")
+                 .append("    }\n\n")
+                 .append("    @Override\n")
+                 .append("    public int getType() {\n")
+                 .append("        return type;\n")
+                 .append("    }\n")
+                 .append("}\n")
+                 .toString();
+    }
+
+    String mapperSource() {
+        final String name = prefix + "ResultMapper";
+        final StringBuilder sb = header()
+                .append("import com.evanwht.sql.ResultMapper;\n")
+                .append("import java.sql.ResultSet;\n")
+                .append("import java.sql.ResultSetMetaData;\n")
+                .append("import java.sql.SQLException;\n")
+                .append("import javax.annotation.processing.Generated;\n\n")
+                .append("/**\n * Reflection free {@link ResultMapper} for {@link ").append(typeName).append("}.\n")
+                .append(" * Columns are looked up by label once per ResultSet in {@link #bind(ResultSet)} and read by index.\n */\n")
+                .append("@Generated(\"").append(MappedProcessor.class.getName()).append("\")\n");
+        if (fields.stream().anyMatch(MappedField::castsRead)) {
+            sb.append("@SuppressWarnings(\"unchecked\")\n");
+        }
+        sb.append("public final class ").append(name).append(" implements ResultMapper<").append(typeName).append("> {\n\n")
+          .append("    @Override\n")
+          .append("    public ").append(typeName).append(" map(final ResultSet rs) throws SQLException {\n")
+          .append("        return bind(rs).map(rs);\n")
+          .append("    }\n\n")
+          .append("    @Override\n")
+          .append("    public ResultMapper<").append(typeName).append("> bind(final ResultSet rs) throws SQLException {\n")
+          .append("        final int[] columns = new int[").append(fields.size()).append("];\n")
+          .append("        final ResultSetMetaData metaData = rs.getMetaData();\n")
+          .append("        for (int i = metaData.getColumnCount(); i > 0; i--) {\n")
+          .append("            switch (metaData.getColumnLabel(i)) {\n");
+        for (int i = 0; i < fields.size(); i++) {
+            sb.append("                case \"").append(fields.get(i).name()).append("\" -> columns[").append(i).append("] = i;\n");
+        }
+        sb.append("                default -> {\n")
+          .append("                }\n")
+          .append("            }\n")
+          .append("        }\n")
+          .append("        return row -> read(row, columns);\n")
+          .append("    }\n\n")
+          .append("    /**\n     * @param columns index of the column for every field, 0 if the ResultSet has no such column\n     */\n")
+          .append("    private static ").append(typeName).append(" read(final ResultSet rs, final int[] columns) throws SQLException {\n");
+        if (record) {
+            sb.append("        return new ").append(typeName).append("(");
+            for (int i = 0; i < fields.size(); i++) {
+                final MappedField field = fields.get(i);
+                sb.append(i == 0 ? "\n" : ",\n")
+                  .append("                columns[").append(i).append("] > 0 ? ")
+                  .append(field.read("columns[" + i + "]")).append(" : ").append(field.defaultValue());
+            }
+            sb.append(");\n");
+        } else {
+            sb.append("        final ").append(typeName).append(" o = new ").append(typeName).append("();\n");
+            for (int i = 0; i < fields.size(); i++) {
+                final MappedField field = fields.get(i);
+                sb.append("        if (columns[").append(i).append("] > 0) {\n")
+                  .append("            o.").append(field.name()).append(" = ").append(field.read("columns[" + i + "]")).append(";\n")
+                  .append("        }\n");
+            }
+            sb.append("        return o;\n");
+        }
+        return sb.append("    }\n")
+                 .append("}\n")
+                 .toString();
+    }
+
+    private StringBuilder header() {
+        final StringBuilder sb = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            sb.append("package ").append(packageName).append(";\n\n");
+        }
+        return sb;
+    }
+}
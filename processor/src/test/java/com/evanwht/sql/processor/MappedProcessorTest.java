@@ -0,0 +1,126 @@
+package com.evanwht.sql.processor;
+
+import com.evanwht.sql.Column;
+import com.evanwht.sql.ResultMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author evanwht1@gmail.com
+ */
+class MappedProcessorTest {
+
+    private static final String POJO = "package test;\n"
+            + "@com.evanwht.sql.Mapped\n"
+            + "public class Pojo {\n"
+            + "    public long id;\n"
+            + "    public String firstName;\n"
+            + "    public Integer age;\n"
+            + "    public final int ignored = 0;\n"
+            + "}\n";
+
+    private static final String RECORD = "package test;\n"
+            + "@com.evanwht.sql.Mapped\n"
+            + "public record Rec(long id, String firstName, int age, java.util.List<String> tags) {}\n";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void generatesColumnsAndMapper() throws Exception {
+        compile("Pojo", POJO);
+
+        try (final URLClassLoader loader = new URLClassLoader(new URL[]{dir.toUri().toURL()}, getClass().getClassLoader())) {
+            final Class<?> columns = loader.loadClass("test.PojoColumns");
+            final Object[] constants = columns.getEnumConstants();
+            assertEquals(3, constants.length);
+            assertEquals("FIRST_NAME", ((Enum<?>) constants[1]).name());
+            assertEquals("firstName", ((Column) constants[1]).getName());
+            assertEquals(Types.VARCHAR, ((Column) constants[1]).getType());
+            assertEquals(Types.BIGINT, ((Column) constants[0]).getType());
+
+            final ResultMapper<?> mapper = (ResultMapper<?>) loader.loadClass("test.PojoResultMapper")
+                                                                  .getDeclaredConstructor()
+                                                                  .newInstance();
+            final Object pojo = mapper.map(resultSet());
+            final Class<?> pojoClass = loader.loadClass("test.Pojo");
+            assertEquals(7L, pojoClass.getField("id").get(pojo));
+            assertEquals("name", pojoClass.getField("firstName").get(pojo));
+            assertNull(pojoClass.getField("age").get(pojo));
+        }
+    }
+
+    @Test
+    void generatesRecordMapper() throws Exception {
+        compile("Rec", RECORD);
+
+        try (final URLClassLoader loader = new URLClassLoader(new URL[]{dir.toUri().toURL()}, getClass().getClassLoader())) {
+            assertEquals(4, loader.loadClass("test.RecColumns").getEnumConstants().length);
+
+            final ResultMapper<?> mapper = (ResultMapper<?>) loader.loadClass("test.RecResultMapper")
+                                                                  .getDeclaredConstructor()
+                                                                  .newInstance();
+            final ResultSet rs = resultSet();
+            final ResultMapper<?> bound = mapper.bind(rs);
+            final Object first = bound.map(rs);
+            bound.map(rs);
+            verify(rs, times(1)).getMetaData();
+
+            final Class<?> recClass = loader.loadClass("test.Rec");
+            assertEquals(7L, recClass.getMethod("id").invoke(first));
+            assertEquals("name", recClass.getMethod("firstName").invoke(first));
+            // components without a column get their default value
+            assertEquals(0, recClass.getMethod("age").invoke(first));
+            assertNull(recClass.getMethod("tags").invoke(first));
+        }
+    }
+
+    private void compile(final String name, final String code) throws Exception {
+        final Path source = dir.resolve("test/" + name + ".java");
+        Files.createDirectories(source.getParent());
+        Files.writeString(source, code);
+
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        final ByteArrayOutputStream errors = new ByteArrayOutputStream();
+        final int result = compiler.run(null, null, errors,
+                                        "-classpath", System.getProperty("java.class.path"),
+                                        "-processor", MappedProcessor.class.getName(),
+                                        "-Xlint:all,-processing",
+                                        "-Werror",
+                                        "-d", dir.toString(),
+                                        "-s", dir.toString(),
+                                        source.toString());
+        assertEquals(0, result, errors.toString());
+    }
+
+    private static ResultSet resultSet() throws SQLException {
+        final ResultSet rs = mock(ResultSet.class);
+        final ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(rs.getMetaData()).thenReturn(metaData);
+        when(metaData.getColumnCount()).thenReturn(2);
+        when(metaData.getColumnLabel(1)).thenReturn("firstName");
+        when(metaData.getColumnLabel(2)).thenReturn("id");
+        when(rs.getString(1)).thenReturn("name");
+        when(rs.getLong(2)).thenReturn(7L);
+        return rs;
+    }
+}
@@ -0,0 +1,106 @@
+package com.evanwht.sql;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Collection;
+
+/**
+ * A parameter that binds every value of a {@code whereIn} clause as a single {@link Array} of the type of its
+ * column. See {@link InListMode#ARRAY}.
+ *
+ * @author evanwht1@gmail.com
+ */
+final class ArrayParameter implements Column {
+
+    private final Column element;
+
+    ArrayParameter(final Column element) {
+        this.element = element;
+    }
+
+    /**
+     * @return the column every element of the array is compared to
+     */
+    Column element() {
+        return element;
+    }
+
+    @Override
+    public String getName() {
+        return element.getName();
+    }
+
+    @Override
+    public int getType() {
+        return Types.ARRAY;
+    }
+
+    /**
+     * @param connection the connection the array is bound on
+     * @param value an Array, a Collection or an Object[]
+     * @return the value as an Array
+     * @throws SQLException if the value can't be an array or the driver couldn't create one
+     */
+    Array toArray(final Connection connection, final Object value) throws SQLException {
+        if (value instanceof Array) {
+            return (Array) value;
+        }
+        final Object[] elements;
+        if (value instanceof Object[]) {
+            elements = (Object[]) value;
+        } else if (value instanceof Collection) {
+            elements = ((Collection<?>) value).toArray();
+        } else {
+            throw new SQLException("Expected an array or collection of values for " + getName() + " but got " + value.getClass());
+        }
+        return connection.createArrayOf(typeName(element), elements);
+    }
+
+    /**
+     * @param column the column every element of the array is compared to
+     * @return the name of its type as understood by {@link Connection#createArrayOf(String, Object[])}
+     * @throws SQLException if the column has no type name and its type isn't a standard one
+     */
+    static String typeName(final Column column) throws SQLException {
+        if (column.getTypeName() != null) {
+            return column.getTypeName();
+        }
+        final String name = standardTypeName(column.getType());
+        if (name == null) {
+            throw new SQLException("No array type name known for " + column.getName() + ". Return the db's name for "
+                                   + "its type from Column.getTypeName()");
+        }
+        return name;
+    }
+
+    /**
+     * @param type a java.sql.Types type
+     * @return the name PostgreSQL, the main db with arrays of any type, knows the type by. Null if the type has no
+     * standard name
+     */
+    private static String standardTypeName(final int type) {
+        return switch (type) {
+            case Types.BIGINT -> "bigint";
+            case Types.INTEGER -> "integer";
+            case Types.SMALLINT, Types.TINYINT -> "smallint";
+            case Types.DOUBLE -> "float8";
+            case Types.FLOAT, Types.REAL -> "float4";
+            case Types.NUMERIC, Types.DECIMAL -> "numeric";
+            case Types.BIT, Types.BOOLEAN -> "boolean";
+            case Types.CHAR, Types.VARCHAR, Types.LONGVARCHAR, Types.NCHAR, Types.NVARCHAR, Types.LONGNVARCHAR -> "varchar";
+            case Types.DATE -> "date";
+            case Types.TIME -> "time";
+            case Types.TIMESTAMP -> "timestamp";
+            case Types.TIME_WITH_TIMEZONE -> "timetz";
+            case Types.TIMESTAMP_WITH_TIMEZONE -> "timestamptz";
+            default -> null;
+        };
+    }
+
+    @Override
+    public String toString() {
+        return getName() + "[]";
+    }
+}
@@ -0,0 +1,101 @@
+package com.evanwht.sql;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs statements off the calling thread. Every task takes its own connection from a {@link DataSource} and
+ * closes it, returning it to the pool, once the statement is done. The returned futures complete exceptionally
+ * with the {@link SQLException} of a failed statement.
+ * <p>
+ * The default executor starts a virtual thread per task on JDKs that have them (21+), which suits blocking JDBC
+ * calls. On older JDKs it falls back to a fixed pool of daemon threads, twice as many as there are processors, and
+ * tasks beyond that wait in a queue. Pass an executor sized to the connection pool to run more statements at once.
+ *
+ * @author evanwht1@gmail.com
+ */
+public final class Async {
+
+    private Async() {
+    }
+
+    /**
+     * @return the executor used by the async methods that aren't given one
+     */
+    public static Executor defaultExecutor() {
+        return DefaultExecutor.INSTANCE;
+    }
+
+    /**
+     * Work to do with a connection.
+     */
+    @FunctionalInterface
+    interface ConnectionTask<R> {
+        R run(Connection connection) throws SQLException;
+    }
+
+    /**
+     * Runs a task on the executor with a connection from the DataSource.
+     *
+     * @return a future of the result of the task
+     */
+    static <R> CompletableFuture<R> run(final DataSource dataSource, final Executor executor, final ConnectionTask<R> task) {
+        Objects.requireNonNull(dataSource, "dataSource");
+        Objects.requireNonNull(executor, "executor");
+        final CompletableFuture<R> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                if (future.isDone()) {
+                    return;
+                }
+                final R result;
+                try (final Connection connection = dataSource.getConnection()) {
+                    result = task.run(connection);
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                    return;
+                }
+                // completed only after the connection is closed, so callers never see it still open
+                future.complete(result);
+            });
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    private static final class DefaultExecutor {
+
+        private static final Executor INSTANCE = create();
+
+        private static Executor create() {
+            try {
+                // looked up reflectively so this library still runs on JDKs without virtual threads
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException e) {
+                final AtomicInteger count = new AtomicInteger();
+                final ThreadFactory threads = runnable -> {
+                    final Thread thread = new Thread(runnable, "simple-sql-async-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                };
+                final int size = Runtime.getRuntime().availableProcessors() * 2;
+                final ThreadPoolExecutor pool = new ThreadPoolExecutor(size, size, 60, TimeUnit.SECONDS,
+                                                                       new LinkedBlockingQueue<>(), threads);
+                pool.allowCoreThreadTimeOut(true);
+                return pool;
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.evanwht.sql;
+
+/**
+ * How a batch of rows is sent to the db.
+ *
+ * @author evanwht1@gmail.com
+ */
+public enum BatchMode {
+    /**
+     * One statement per row, sent together with {@link java.sql.PreparedStatement#executeBatch()}.
+     */
+    JDBC,
+    /**
+     * One statement per chunk of rows, e.g. {@code INSERT ... VALUES (?, ?), (?, ?), ...}. Chunks are sized to stay
+     * under the driver's limit on the number of parameters in a statement.
+     */
+    MULTI_ROW
+}
@@ -0,0 +1,40 @@
+package com.evanwht.sql;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.BitSet;
+
+/**
+ * A {@link ColumnVector} of booleans, stored as a bitmap.
+ *
+ * @author evanwht1@gmail.com
+ */
+public final class BooleanVector extends ColumnVector {
+
+    private final BitSet values = new BitSet();
+
+    BooleanVector(final String name, final int type) {
+        super(name, type);
+    }
+
+    @Override
+    void read(final ResultSet resultSet, final int columnIndex) throws SQLException {
+        if (resultSet.getBoolean(columnIndex)) {
+            values.set(size);
+        } else if (resultSet.wasNull()) {
+            setNull(size);
+        }
+        size++;
+    }
+
+    @Override
+    public boolean getBoolean(final int row) {
+        checkRow(row);
+        return values.get(row);
+    }
+
+    @Override
+    public Object getObject(final int row) {
+        return isNull(row) ? null : getBoolean(row);
+    }
+}
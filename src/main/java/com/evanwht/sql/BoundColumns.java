@@ -0,0 +1,86 @@
+package com.evanwht.sql;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/**
+ * The JDBC index of every {@link Column} of one ResultSet, so values can be read by index instead of by label,
+ * which many drivers look up case insensitively for every value read. Created once per ResultSet and handed to
+ * every row, see {@link BoundResultMapper}.
+ * <p>
+ * The index of every selected column is known from the order it was selected in, without asking the driver. Any
+ * other column, e.g. when every column is selected, is looked up by label once, the first time it is needed.
+ * Looking up a column after that scans a small array by identity and allocates nothing.
+ *
+ * @author evanwht1@gmail.com
+ */
+public final class BoundColumns {
+
+    private final ResultSet resultSet;
+    private Column[] columns;
+    private int[] indexes;
+    private int size;
+    private String[] labels;
+
+    /**
+     * @param resultSet the result to resolve columns of
+     * @param selected the columns the query selects, in order. Empty if the query selects every column
+     */
+    BoundColumns(final ResultSet resultSet, final Column[] selected) {
+        this.resultSet = resultSet;
+        this.columns = Arrays.copyOf(selected, Math.max(selected.length, 8));
+        this.indexes = new int[columns.length];
+        this.size = selected.length;
+        for (int i = 0; i < selected.length; i++) {
+            indexes[i] = i + 1;
+        }
+    }
+
+    /**
+     * @param column a column of the result
+     * @return the index of the column in the result, starting at 1
+     * @throws SQLException if the result has no such column
+     */
+    public int indexOf(final Column column) throws SQLException {
+        for (int i = 0; i < size; i++) {
+            if (columns[i] == column) {
+                return indexes[i];
+            }
+        }
+        return resolve(column);
+    }
+
+    private int resolve(final Column column) throws SQLException {
+        if (labels == null) {
+            final ResultSetMetaData metaData = resultSet.getMetaData();
+            labels = new String[metaData.getColumnCount()];
+            for (int i = 0; i < labels.length; i++) {
+                labels[i] = metaData.getColumnLabel(i + 1);
+            }
+        }
+        int index = 0;
+        for (int i = 0; i < labels.length && index == 0; i++) {
+            if (labels[i].equals(column.getName())) {
+                index = i + 1;
+            }
+        }
+        // some drivers change the case of unquoted names
+        for (int i = 0; i < labels.length && index == 0; i++) {
+            if (labels[i].equalsIgnoreCase(column.getName())) {
+                index = i + 1;
+            }
+        }
+        if (index == 0) {
+            throw new SQLException("No column named " + column.getName() + " in the result");
+        }
+        if (size == columns.length) {
+            columns = Arrays.copyOf(columns, size * 2);
+            indexes = Arrays.copyOf(indexes, size * 2);
+        }
+        columns[size] = column;
+        indexes[size++] = index;
+        return index;
+    }
+}
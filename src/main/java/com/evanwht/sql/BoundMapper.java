@@ -0,0 +1,58 @@
+package com.evanwht.sql;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Adapts a {@link BoundResultMapper} to a {@link ResultMapper}. Each query {@link #bind(ResultSet) binds} it to its
+ * ResultSet, which resolves the columns once for every row of that query; no state about a ResultSet is kept on the
+ * mapper itself.
+ *
+ * @author evanwht1@gmail.com
+ */
+final class BoundMapper<T> implements ResultMapper<T> {
+
+    private final BoundResultMapper<T> mapper;
+    private final Column[] selected;
+
+    /**
+     * @param mapper maps rows by index
+     * @param selected the columns the query selects, in order. Empty if the query selects every column
+     */
+    BoundMapper(final BoundResultMapper<T> mapper, final Column[] selected) {
+        this.mapper = mapper;
+        this.selected = selected;
+    }
+
+    /**
+     * Maps a single row, resolving its columns first. Queries of this library bind the mapper to their ResultSet
+     * instead, so the columns are only resolved once per query.
+     */
+    @Override
+    public T map(final ResultSet rs) throws SQLException {
+        return mapper.map(rs, new BoundColumns(rs, selected));
+    }
+
+    @Override
+    public ResultMapper<T> bind(final ResultSet rs) {
+        final BoundColumns columns = new BoundColumns(rs, selected);
+        return row -> mapper.map(row, columns);
+    }
+
+    /**
+     * Mappers of the same lambda and selected columns produce equal objects from the same rows, which lets them
+     * share cached results (see {@link QueryCache}).
+     */
+    @Override
+    public boolean equals(final Object o) {
+        return o instanceof BoundMapper && mapper == ((BoundMapper<?>) o).mapper
+                && Arrays.equals(selected, ((BoundMapper<?>) o).selected);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(mapper, Arrays.hashCode(selected));
+    }
+}
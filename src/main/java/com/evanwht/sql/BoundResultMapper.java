@@ -0,0 +1,19 @@
+package com.evanwht.sql;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps a row of a ResultSet to a given type, reading values by the index of their {@link Column} instead of by
+ * label, without hard coding positions.
+ * <pre>{@code
+ * new SelectBuilder<>((rs, columns) -> rs.getString(columns.indexOf(MyDBColumns.NAME)))
+ * }</pre>
+ * {@link SelectBuilder#SelectBuilder(BoundResultMapper)}
+ *
+ * @author evanwht1@gmail.com
+ */
+@FunctionalInterface
+public interface BoundResultMapper<T> {
+    T map(final ResultSet rs, final BoundColumns columns) throws SQLException;
+}
@@ -0,0 +1,329 @@
+package com.evanwht.sql;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Loads a large number of rows as fast as the db can take them. The calling thread reads objects from an
+ * {@link Iterator} or {@link Stream}, turns them into rows of values and groups them into batches. Writer threads,
+ * each with its own connection, insert the batches with JDBC batches, so the next batch is being bound while the
+ * previous one is executing. At most {@code queueCapacity} batches wait for a writer; once that many do, reading
+ * stops until a writer catches up.
+ * <p>
+ * Each writer commits every {@code commitEvery} batches, and once more at the end. If any batch fails, every writer
+ * rolls back what it hasn't committed and the load fails; batches committed before that stay in the table.
+ * <pre>{@code
+ * BulkLoadStats stats = new BulkInsertBuilder<User>()
+ *     .table("users")
+ *     .columns(Users.ID, Users.NAME)
+ *     .values(user -> new Object[]{user.id, user.name})
+ *     .progress(s -> log.info("{}", s))
+ *     .load(dataSource, users);
+ * }</pre>
+ *
+ * @author evanwht1@gmail.com
+ */
+public class BulkInsertBuilder<T> {
+
+    /**
+     * Default number of batches each writer inserts before committing.
+     */
+    public static final int DEFAULT_COMMIT_EVERY = 10;
+
+    private static final List<Object[]> END = new ArrayList<>(0);
+    private static final long POLL_MILLIS = 100;
+
+    private String table;
+    private Column[] columns;
+    private Function<? super T, Object[]> extractor;
+    private int batchSize = Statements.DEFAULT_BATCH_SIZE;
+    private int commitEvery = DEFAULT_COMMIT_EVERY;
+    private int writers = 2;
+    private int queueCapacity = 4;
+    private Executor executor = Async.defaultExecutor();
+    private Consumer<BulkLoadStats> progress = stats -> { };
+
+    /**
+     * @param table name of the table to insert data into
+     * @return the builder this was invoked on
+     */
+    public BulkInsertBuilder<T> table(final String table) {
+        this.table = table;
+        return this;
+    }
+
+    /**
+     * @param columns the columns every row sets, in the order of the values returned by the extractor
+     * @return the builder this was invoked on
+     */
+    public BulkInsertBuilder<T> columns(final Column... columns) {
+        this.columns = columns.clone();
+        return this;
+    }
+
+    /**
+     * @param extractor turns an object into the values of its row, one per column. Called on the thread running
+     *                  the load
+     * @return the builder this was invoked on
+     */
+    public BulkInsertBuilder<T> values(final Function<? super T, Object[]> extractor) {
+        this.extractor = extractor;
+        return this;
+    }
+
+    /**
+     * @param batchSize number of rows sent to the db at once. Defaults to 1000
+     * @return the builder this was invoked on
+     */
+    public BulkInsertBuilder<T> batchSize(final int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * @param commitEvery number of batches each writer inserts before committing. Defaults to 10
+     * @return the builder this was invoked on
+     */
+    public BulkInsertBuilder<T> commitEvery(final int commitEvery) {
+        if (commitEvery < 1) {
+            throw new IllegalArgumentException("commitEvery must be positive");
+        }
+        this.commitEvery = commitEvery;
+        return this;
+    }
+
+    /**
+     * @param writers number of threads, and connections, inserting batches at once. Defaults to 2
+     * @return the builder this was invoked on
+     */
+    public BulkInsertBuilder<T> writers(final int writers) {
+        if (writers < 1) {
+            throw new IllegalArgumentException("writers must be positive");
+        }
+        this.writers = writers;
+        return this;
+    }
+
+    /**
+     * @param queueCapacity maximum number of batches waiting for a writer. Defaults to 4
+     * @return the builder this was invoked on
+     */
+    public BulkInsertBuilder<T> queueCapacity(final int queueCapacity) {
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("queueCapacity must be positive");
+        }
+        this.queueCapacity = queueCapacity;
+        return this;
+    }
+
+    /**
+     * @param executor runs the writers. Defaults to {@link Async#defaultExecutor()}
+     * @return the builder this was invoked on
+     */
+    public BulkInsertBuilder<T> executor(final Executor executor) {
+        this.executor = Objects.requireNonNull(executor, "executor");
+        return this;
+    }
+
+    /**
+     * @param progress called with the progress of the load after every batch, on the writer thread that ran it. Must
+     *                 be fast and thread safe
+     * @return the builder this was invoked on
+     */
+    public BulkInsertBuilder<T> progress(final Consumer<BulkLoadStats> progress) {
+        this.progress = Objects.requireNonNull(progress, "progress");
+        return this;
+    }
+
+    /**
+     * Inserts a row for every object of the stream, then closes it.
+     *
+     * @param dataSource where writers get their connections from
+     * @param rows the objects to insert
+     * @return the final stats of the load
+     * @throws SQLException if the builder is incomplete, or an error occurred inserting a batch
+     */
+    public BulkLoadStats load(final DataSource dataSource, final Stream<? extends T> rows) throws SQLException {
+        try (rows) {
+            return load(dataSource, rows.iterator());
+        }
+    }
+
+    /**
+     * Inserts a row for every object of the iterator.
+     *
+     * @param dataSource where writers get their connections from
+     * @param rows the objects to insert
+     * @return the final stats of the load
+     * @throws SQLException if the builder is incomplete, or an error occurred inserting a batch
+     */
+    public BulkLoadStats load(final DataSource dataSource, final Iterator<? extends T> rows) throws SQLException {
+        final PreparedCommand command = compiled();
+        final BlockingQueue<List<Object[]>> queue = new ArrayBlockingQueue<>(queueCapacity);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final BulkLoadStats stats = new BulkLoadStats();
+        final List<CompletableFuture<Void>> running = new ArrayList<>(writers);
+        for (int i = 0; i < writers; i++) {
+            running.add(Async.<Void>run(dataSource, executor, connection -> {
+                write(connection, command, queue, failure, stats);
+                return null;
+            }).whenComplete((ignored, e) -> {
+                if (e != null) {
+                    failure.compareAndSet(null, e);
+                }
+            }));
+        }
+        try {
+            List<Object[]> batch = new ArrayList<>(batchSize);
+            while (rows.hasNext() && failure.get() == null) {
+                final Object[] values = extractor.apply(rows.next());
+                if (values.length != columns.length) {
+                    throw new SQLException("Expected " + columns.length + " values but got " + values.length);
+                }
+                batch.add(values);
+                if (batch.size() == batchSize) {
+                    enqueue(queue, batch, failure);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                enqueue(queue, batch, failure);
+            }
+            for (int i = 0; i < writers; i++) {
+                enqueue(queue, END, failure);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure.compareAndSet(null, e);
+        } catch (SQLException | RuntimeException e) {
+            failure.compareAndSet(null, e);
+        }
+        for (CompletableFuture<Void> writer : running) {
+            try {
+                writer.join();
+            } catch (CompletionException e) {
+                // already recorded as the failure
+            }
+        }
+        final Throwable e = failure.get();
+        stats.finished(e != null);
+        if (e instanceof SQLException) {
+            throw (SQLException) e;
+        } else if (e != null) {
+            throw new SQLException("Bulk load of " + table + " failed after " + stats.getRows() + " rows", e);
+        }
+        return stats;
+    }
+
+    private PreparedCommand compiled() throws SQLException {
+        if (table == null || columns == null || columns.length == 0 || extractor == null) {
+            throw new SQLException("Need a table, columns and a values extractor");
+        }
+        final InsertBuilder insert = new InsertBuilder().table(table);
+        for (Column column : columns) {
+            insert.value(column, null);
+        }
+        return insert.compile();
+    }
+
+    /**
+     * Hands a batch to the writers, waiting while the queue is full unless a writer fails.
+     */
+    private static void enqueue(final BlockingQueue<List<Object[]>> queue, final List<Object[]> batch,
+                                final AtomicReference<Throwable> failure) throws InterruptedException {
+        while (failure.get() == null) {
+            if (queue.offer(batch, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        }
+    }
+
+    private void write(final Connection connection, final PreparedCommand command, final BlockingQueue<List<Object[]>> queue,
+                       final AtomicReference<Throwable> failure, final BulkLoadStats stats) throws SQLException {
+        final boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        int uncommitted = 0;
+        Exception thrown = null;
+        try {
+            while (true) {
+                final List<Object[]> batch = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (failure.get() != null) {
+                    connection.rollback();
+                    return;
+                }
+                if (batch == END) {
+                    break;
+                }
+                if (batch != null) {
+                    final long start = System.nanoTime();
+                    command.executeBatch(connection, batch, batch.size());
+                    stats.batchDone(batch.size(), System.nanoTime() - start);
+                    if (++uncommitted == commitEvery) {
+                        connection.commit();
+                        stats.committed();
+                        uncommitted = 0;
+                    }
+                    progress.accept(stats);
+                }
+            }
+            if (uncommitted > 0) {
+                connection.commit();
+                stats.committed();
+            }
+        } catch (SQLException | RuntimeException e) {
+            thrown = e;
+            failure.compareAndSet(null, e);
+            rollback(connection, e);
+            throw e;
+        } catch (InterruptedException e) {
+            thrown = e;
+            Thread.currentThread().interrupt();
+            failure.compareAndSet(null, e);
+            rollback(connection, e);
+        } finally {
+            restoreAutoCommit(connection, autoCommit, thrown);
+        }
+    }
+
+    private static void rollback(final Connection connection, final Exception cause) {
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            cause.addSuppressed(e);
+        }
+    }
+
+    /**
+     * @param cause the failure of the writer, which a failure to restore auto-commit mustn't replace. Null if it
+     *              didn't fail
+     */
+    private static void restoreAutoCommit(final Connection connection, final boolean autoCommit, final Exception cause)
+            throws SQLException {
+        try {
+            connection.setAutoCommit(autoCommit);
+        } catch (SQLException e) {
+            if (cause == null) {
+                throw e;
+            }
+            cause.addSuppressed(e);
+        }
+    }
+}
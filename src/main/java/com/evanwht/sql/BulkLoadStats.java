@@ -0,0 +1,105 @@
+package com.evanwht.sql;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live progress of a load run by a {@link BulkInsertBuilder}. Updated by the writer threads as each batch finishes,
+ * so it can be read at any time while the load runs.
+ *
+ * @author evanwht1@gmail.com
+ */
+public final class BulkLoadStats {
+
+    private final long start = System.nanoTime();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder commits = new LongAdder();
+    private final LatencyHistogram batchLatency = new LatencyHistogram();
+    private volatile long end;
+    private volatile boolean failed;
+
+    BulkLoadStats() {
+    }
+
+    void batchDone(final int batchRows, final long elapsedNanos) {
+        rows.add(batchRows);
+        batches.increment();
+        batchLatency.record(elapsedNanos);
+    }
+
+    void committed() {
+        commits.increment();
+    }
+
+    void finished(final boolean failed) {
+        this.failed = failed;
+        end = System.nanoTime();
+    }
+
+    /**
+     * @return number of rows inserted so far, committed or not
+     */
+    public long getRows() {
+        return rows.sum();
+    }
+
+    /**
+     * @return number of batches sent to the db so far
+     */
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    /**
+     * @return number of commits so far
+     */
+    public long getCommits() {
+        return commits.sum();
+    }
+
+    /**
+     * @return time from the start of the load until now, or until it finished
+     */
+    public long getElapsedNanos() {
+        final long finished = end;
+        return (finished == 0 ? System.nanoTime() : finished) - start;
+    }
+
+    /**
+     * @return rows inserted per second, averaged over the whole load so far
+     */
+    public double getRowsPerSecond() {
+        final long elapsed = getElapsedNanos();
+        return elapsed == 0 ? 0 : getRows() * 1_000_000_000.0 / elapsed;
+    }
+
+    /**
+     * @return how long each batch took to bind and execute
+     */
+    public LatencyHistogram getBatchLatency() {
+        return batchLatency;
+    }
+
+    /**
+     * @return true once the load has stopped, either with every row inserted and committed or with a failure (see
+     * {@link #isFailed()})
+     */
+    public boolean isFinished() {
+        return end != 0;
+    }
+
+    /**
+     * @return true if the load stopped because of a failure. Rows not yet committed were rolled back
+     */
+    public boolean isFailed() {
+        return end != 0 && failed;
+    }
+
+    @Override
+    public String toString() {
+        return "rows=" + getRows() + " batches=" + getBatches() + " commits=" + getCommits()
+                + " rows/s=" + Math.round(getRowsPerSecond())
+                + " batch p50=" + batchLatency.getValueAtPercentile(50) / 1_000 + "us"
+                + " p99=" + batchLatency.getValueAtPercentile(99) / 1_000 + "us";
+    }
+}
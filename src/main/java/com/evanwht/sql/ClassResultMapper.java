@@ -1,67 +1,425 @@
 package com.evanwht.sql;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.sql.Date;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
 import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Simple ResultMapper to turn a DB row into an object of the supplied class. Loops over the returned
- * columns and tried to set values on fields that match any of the column names. Only works with simple
- * data types (integer, double, boolean, and string), anything else and it will attempt to set a generic
- * object on the field.
+ * columns and tries to set values on public fields that match any of the column names. Each value is read
+ * with the ResultSet getter matching the type of its field (getInt, getLong, getString, getTimestamp, ...),
+ * falling back to getObject for any other type.
+ * <p>
+ * Records are created through their canonical constructor, with components matched to columns by name.
+ * Components that have no matching column are passed their default value.
+ * <p>
+ * The constructor and a MethodHandle for every column are resolved once per class and shape of result set
+ * (column labels) and reused for every following query. Each query looks up its plan once, when it binds the mapper
+ * to its ResultSet (see {@link #bind(ResultSet)}); no state about a ResultSet is kept on the mapper itself.
+ * <p>
+ * {@link #columnsOf(Class)} lists the columns a class can be mapped from, which {@link SelectBuilder} selects
+ * instead of every column of the table.
  *
  * @author evanwht1@gmail.com
  */
 public class ClassResultMapper<T> implements ResultMapper<T> {
 
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    /**
+     * ResultSet getters for field types that have a dedicated one. Any other type is read with getObject.
+     */
+    private static final Map<Class<?>, String> GETTERS = Map.ofEntries(
+            Map.entry(int.class, "getInt"),
+            Map.entry(long.class, "getLong"),
+            Map.entry(double.class, "getDouble"),
+            Map.entry(float.class, "getFloat"),
+            Map.entry(boolean.class, "getBoolean"),
+            Map.entry(short.class, "getShort"),
+            Map.entry(byte.class, "getByte"),
+            Map.entry(String.class, "getString"),
+            Map.entry(BigDecimal.class, "getBigDecimal"),
+            Map.entry(Timestamp.class, "getTimestamp"),
+            Map.entry(Date.class, "getDate"),
+            Map.entry(Time.class, "getTime"),
+            Map.entry(byte[].class, "getBytes"));
+
+    /**
+     * java.sql.Types constant for each field type. Anything else is OTHER.
+     */
+    private static final Map<Class<?>, Integer> SQL_TYPES = Map.ofEntries(
+            Map.entry(int.class, Types.INTEGER),
+            Map.entry(Integer.class, Types.INTEGER),
+            Map.entry(long.class, Types.BIGINT),
+            Map.entry(Long.class, Types.BIGINT),
+            Map.entry(double.class, Types.DOUBLE),
+            Map.entry(Double.class, Types.DOUBLE),
+            Map.entry(float.class, Types.REAL),
+            Map.entry(Float.class, Types.REAL),
+            Map.entry(boolean.class, Types.BOOLEAN),
+            Map.entry(Boolean.class, Types.BOOLEAN),
+            Map.entry(short.class, Types.SMALLINT),
+            Map.entry(Short.class, Types.SMALLINT),
+            Map.entry(byte.class, Types.TINYINT),
+            Map.entry(Byte.class, Types.TINYINT),
+            Map.entry(String.class, Types.VARCHAR),
+            Map.entry(BigDecimal.class, Types.DECIMAL),
+            Map.entry(Timestamp.class, Types.TIMESTAMP),
+            Map.entry(Date.class, Types.DATE),
+            Map.entry(Time.class, Types.TIME),
+            Map.entry(byte[].class, Types.VARBINARY),
+            Map.entry(LocalDate.class, Types.DATE),
+            Map.entry(LocalTime.class, Types.TIME),
+            Map.entry(LocalDateTime.class, Types.TIMESTAMP),
+            Map.entry(Instant.class, Types.TIMESTAMP),
+            Map.entry(OffsetDateTime.class, Types.TIMESTAMP_WITH_TIMEZONE));
+
+    private static final ClassValue<ClassPlans> PLANS = new ClassValue<>() {
+        @Override
+        protected ClassPlans computeValue(final Class<?> type) {
+            return new ClassPlans(type);
+        }
+    };
+
+    private static final ClassValue<Optional<ResultMapper<?>>> GENERATED = new ClassValue<>() {
+        @Override
+        protected Optional<ResultMapper<?>> computeValue(final Class<?> type) {
+            return generatedMapper(type);
+        }
+    };
+
+    private static final ClassValue<List<Column>> COLUMNS = new ClassValue<>() {
+        @Override
+        protected List<Column> computeValue(final Class<?> type) {
+            return generatedColumns(type).orElseGet(() -> PLANS.get(type).columns());
+        }
+    };
+
     private final Class<T> tClass;
 
     public ClassResultMapper(final Class<T> tClass) {
         this.tClass = tClass;
     }
 
+    /**
+     * Gets the mapper generated for a class by the annotation processor (see {@link Mapped}), falling back to
+     * a ClassResultMapper if there isn't one.
+     *
+     * @param tClass the class of the desired output objects
+     * @return a mapper for the class
+     */
+    @SuppressWarnings("unchecked")
+    static <T> ResultMapper<T> forClass(final Class<T> tClass) {
+        return (ResultMapper<T>) GENERATED.get(tClass).orElseGet(() -> new ClassResultMapper<>(tClass));
+    }
+
+    private static Optional<ResultMapper<?>> generatedMapper(final Class<?> type) {
+        final String name = type.getName().replace('$', '_') + "ResultMapper";
+        try {
+            final Class<?> mapperClass = Class.forName(name, true, type.getClassLoader());
+            if (ResultMapper.class.isAssignableFrom(mapperClass)) {
+                return Optional.of((ResultMapper<?>) mapperClass.getDeclaredConstructor().newInstance());
+            }
+        } catch (ClassNotFoundException e) {
+            // nothing was generated for this class
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException("Can't instantiate generated mapper: " + name, e);
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Lists the columns a class is mapped from: the constants of the {@code Column} enum generated for it by the
+     * annotation processor (see {@link Mapped}) or, if there isn't one, a column for every public, non-static,
+     * non-final field or record component, named after it.
+     *
+     * @param tClass the class of the desired output objects
+     * @return the columns. Generated columns and record components are in declaration order; fields are in the
+     * order {@link Class#getFields()} returns them, which is unspecified
+     */
+    static List<Column> columnsOf(final Class<?> tClass) {
+        return COLUMNS.get(tClass);
+    }
+
+    private static Optional<List<Column>> generatedColumns(final Class<?> type) {
+        final String name = type.getName().replace('$', '_') + "Columns";
+        try {
+            final Class<?> columnsClass = Class.forName(name, true, type.getClassLoader());
+            if (columnsClass.isEnum() && Column.class.isAssignableFrom(columnsClass)) {
+                return Optional.of(List.of((Column[]) columnsClass.getEnumConstants()));
+            }
+        } catch (ClassNotFoundException e) {
+            // nothing was generated for this class
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Maps a single row, reading the labels of its columns first. Queries of this library {@link #bind(ResultSet)
+     * bind} the mapper to their ResultSet instead, so the labels are only read once per query.
+     */
     @Override
     public T map(final ResultSet rs) throws SQLException {
-        final Constructor<?> constructor = Arrays.stream(tClass.getConstructors())
-                                                 .filter(c -> c.getParameterCount() == 0)
-                                                 .findAny()
-                                                 .orElseThrow(() -> {
-                                                     throw new RuntimeException("Can't instantiate instance of type: " + tClass.getSimpleName());
-                                                 });
+        return map(rs, plan(rs));
+    }
+
+    @Override
+    public ResultMapper<T> bind(final ResultSet rs) throws SQLException {
+        final Plan plan = plan(rs);
+        return row -> map(row, plan);
+    }
+
+    private Plan plan(final ResultSet rs) throws SQLException {
+        return PLANS.get(tClass).plan(rs.getMetaData());
+    }
+
+    private T map(final ResultSet rs, final Plan plan) throws SQLException {
         try {
-            final T o = (T) constructor.newInstance();
-            setAllFields(o, rs);
-            return o;
-        } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
-            throw new RuntimeException("Can't instantiate instance of type: " + tClass.getSimpleName());
+            final Object o = (Object) plan.constructor.invokeExact(rs);
+            for (MethodHandle setter : plan.setters) {
+                setter.invokeExact(o, rs);
+            }
+            return tClass.cast(o);
+        } catch (SQLException | RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new RuntimeException("Can't instantiate instance of type: " + tClass.getSimpleName(), e);
         }
     }
 
-    private void setAllFields(final T obj, final ResultSet rs) throws SQLException {
-        final int columnCount = rs.getMetaData().getColumnCount();
-        for (int i = 0; i < columnCount; i++) {
-            String columnName = rs.getMetaData().getColumnName(i);
+    /**
+     * Mappers of the same class produce equal objects from the same rows, which lets them share cached results
+     * (see {@link QueryCache}).
+     */
+    @Override
+    public boolean equals(final Object o) {
+        return o instanceof ClassResultMapper && tClass == ((ClassResultMapper<?>) o).tClass;
+    }
+
+    @Override
+    public int hashCode() {
+        return tClass.hashCode();
+    }
+
+    /**
+     * The reflective lookups for a class, and the plans for every result set shape it has been mapped from.
+     */
+    private static final class ClassPlans {
+
+        private final Class<?> type;
+        private final Map<String, Field> fields = new LinkedHashMap<>();
+        private final RecordComponent[] components;
+        private final Map<List<String>, Plan> plans = new ConcurrentHashMap<>();
+
+        private ClassPlans(final Class<?> type) {
+            this.type = type;
+            this.components = RecordComponent.of(type);
+            for (Field field : type.getFields()) {
+                final int modifiers = field.getModifiers();
+                if (!Modifier.isStatic(modifiers) && !Modifier.isFinal(modifiers) && field.trySetAccessible()) {
+                    fields.put(field.getName(), field);
+                }
+            }
+        }
+
+        private List<Column> columns() {
+            final List<Column> columns = new ArrayList<>();
+            if (components == null) {
+                fields.values().forEach(field -> columns.add(new FieldColumn(field.getName(), field.getType())));
+            } else {
+                for (RecordComponent component : components) {
+                    columns.add(new FieldColumn(component.name, component.type));
+                }
+            }
+            return List.copyOf(columns);
+        }
+
+        private Plan plan(final ResultSetMetaData metaData) throws SQLException {
+            final int columnCount = metaData.getColumnCount();
+            final List<String> shape = new ArrayList<>(columnCount);
+            for (int i = 1; i <= columnCount; i++) {
+                shape.add(metaData.getColumnLabel(i));
+            }
+            final Plan plan = plans.get(shape);
+            return plan != null ? plan : plans.computeIfAbsent(shape, this::createPlan);
+        }
+
+        private Plan createPlan(final List<String> shape) {
             try {
-                final Field field = tClass.getField(columnName);
-                final int columnType = rs.getMetaData().getColumnType(i);
-                setField(field, columnType, i, obj, rs);
-            } catch (NoSuchFieldException | IllegalAccessException e) {
-                // Silently move on
+                return components == null ? pojoPlan(shape) : recordPlan(shape);
+            } catch (ReflectiveOperationException e) {
+                throw new RuntimeException("Can't instantiate instance of type: " + type.getSimpleName(), e);
+            }
+        }
+
+        private Plan pojoPlan(final List<String> shape) throws ReflectiveOperationException {
+            final Constructor<?> constructor = Arrays.stream(type.getConstructors())
+                                                     .filter(c -> c.getParameterCount() == 0)
+                                                     .findAny()
+                                                     .orElseThrow(() -> {
+                                                         throw new RuntimeException("Can't instantiate instance of type: " + type.getSimpleName());
+                                                     });
+            constructor.trySetAccessible();
+            final MethodHandle create = MethodHandles.dropArguments(
+                    LOOKUP.unreflectConstructor(constructor).asType(MethodType.methodType(Object.class)),
+                    0, ResultSet.class);
+            final List<MethodHandle> setters = new ArrayList<>();
+            for (int i = 0; i < shape.size(); i++) {
+                final Field field = fields.get(shape.get(i));
+                if (field != null) {
+                    // (T, F)void filtered to (T, ResultSet)void
+                    final MethodHandle setter = MethodHandles.filterArguments(LOOKUP.unreflectSetter(field), 1,
+                                                                              getter(field.getType(), i + 1));
+                    setters.add(setter.asType(MethodType.methodType(void.class, Object.class, ResultSet.class)));
+                }
             }
+            return new Plan(create, setters.toArray(new MethodHandle[0]));
+        }
+
+        private Plan recordPlan(final List<String> shape) throws ReflectiveOperationException {
+            final Class<?>[] types = Arrays.stream(components).map(c -> c.type).toArray(Class<?>[]::new);
+            final Constructor<?> constructor = type.getDeclaredConstructor(types);
+            constructor.trySetAccessible();
+            final MethodHandle[] getters = new MethodHandle[components.length];
+            for (int i = 0; i < components.length; i++) {
+                final int column = shape.indexOf(components[i].name);
+                getters[i] = column < 0
+                        ? MethodHandles.empty(MethodType.methodType(types[i], ResultSet.class))
+                        : getter(types[i], column + 1);
+            }
+            // (C1, C2, ...)T filtered to (ResultSet, ResultSet, ...)T, then collapsed to (ResultSet)T
+            final MethodHandle filtered = MethodHandles.filterArguments(LOOKUP.unreflectConstructor(constructor), 0, getters)
+                                                       .asType(MethodType.methodType(Object.class, Collections.nCopies(getters.length, ResultSet.class)));
+            final MethodHandle create = MethodHandles.permuteArguments(
+                    filtered, MethodType.methodType(Object.class, ResultSet.class), new int[components.length]);
+            return new Plan(create, new MethodHandle[0]);
+        }
+
+        /**
+         * @return a (ResultSet)type handle that reads the column at the index with the getter matching the type
+         */
+        private static MethodHandle getter(final Class<?> type, final int columnIndex) throws ReflectiveOperationException {
+            final String name = GETTERS.get(type);
+            if (name != null) {
+                final MethodHandle getter = LOOKUP.findVirtual(ResultSet.class, name, MethodType.methodType(type, int.class));
+                return MethodHandles.insertArguments(getter, 1, columnIndex);
+            }
+            if (type == Object.class) {
+                final MethodHandle getter = LOOKUP.findVirtual(ResultSet.class, "getObject", MethodType.methodType(Object.class, int.class));
+                return MethodHandles.insertArguments(getter, 1, columnIndex);
+            }
+            // boxed types and anything else the driver may convert to, e.g. Long, LocalDateTime, UUID
+            final MethodHandle getter = LOOKUP.findVirtual(ResultSet.class, "getObject",
+                                                           MethodType.methodType(Object.class, int.class, Class.class));
+            return MethodHandles.insertArguments(getter, 1, columnIndex, type)
+                                .asType(MethodType.methodType(type, ResultSet.class));
+        }
+    }
+
+    /**
+     * How to map every row of one result set shape: a handle that creates the object from the row and a setter
+     * for every column that has a matching field.
+     */
+    private static final class Plan {
+
+        private final MethodHandle constructor;
+        private final MethodHandle[] setters;
+
+        private Plan(final MethodHandle constructor, final MethodHandle[] setters) {
+            this.constructor = constructor;
+            this.setters = setters;
+        }
+    }
+
+    /**
+     * Column named after a field or record component, typed by its Java type.
+     */
+    private static final class FieldColumn implements Column {
+
+        private final String name;
+        private final int type;
+
+        private FieldColumn(final String name, final Class<?> type) {
+            this.name = name;
+            this.type = SQL_TYPES.getOrDefault(type, Types.OTHER);
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public int getType() {
+            return type;
+        }
+
+        @Override
+        public String toString() {
+            return name;
         }
     }
 
-    private void setField(final Field field, final int type, final int columnIndex, final T obj, final ResultSet rs) throws SQLException, IllegalAccessException {
-        switch (type) {
-            case Types.INTEGER -> field.setInt(obj, rs.getInt(columnIndex));
-            case Types.DOUBLE -> field.setDouble(obj, rs.getDouble(columnIndex));
-            case Types.BOOLEAN -> field.setBoolean(obj, rs.getBoolean(columnIndex));
-            case Types.VARCHAR -> field.set(obj, rs.getString(columnIndex));
-            default -> field.set(obj, rs.getObject(columnIndex));
+    /**
+     * Name and type of a record component. Looked up reflectively so this library can still run on JDKs
+     * without records.
+     */
+    private static final class RecordComponent {
+
+        private final String name;
+        private final Class<?> type;
+
+        private RecordComponent(final String name, final Class<?> type) {
+            this.name = name;
+            this.type = type;
+        }
+
+        /**
+         * @return the components of the class in declaration order, or null if it isn't a record
+         */
+        private static RecordComponent[] of(final Class<?> type) {
+            final Class<?> superclass = type.getSuperclass();
+            if (superclass == null || !"java.lang.Record".equals(superclass.getName())) {
+                return null;
+            }
+            try {
+                final Object[] components = (Object[]) Class.class.getMethod("getRecordComponents").invoke(type);
+                final RecordComponent[] result = new RecordComponent[components.length];
+                for (int i = 0; i < components.length; i++) {
+                    final Method getName = components[i].getClass().getMethod("getName");
+                    final Method getType = components[i].getClass().getMethod("getType");
+                    result[i] = new RecordComponent((String) getName.invoke(components[i]),
+                                                    (Class<?>) getType.invoke(components[i]));
+                }
+                return result;
+            } catch (ReflectiveOperationException e) {
+                throw new RuntimeException("Can't read components of record: " + type.getSimpleName(), e);
+            }
         }
     }
 }
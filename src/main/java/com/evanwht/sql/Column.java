@@ -16,5 +16,14 @@ public interface Column {
      * @return the java.sql.Types type of the column
      */
     int getType();
+
+    /**
+     * @return the db's own name for the type of the column, e.g. {@code "uuid"}, used to bind an array of its values
+     * in {@link InListMode#ARRAY}. Null to derive the name from {@link #getType()}, which only knows the standard
+     * types
+     */
+    default String getTypeName() {
+        return null;
+    }
 }
 
@@ -0,0 +1,93 @@
+package com.evanwht.sql;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The pieces of sql a column is rendered as, built once per column name and shared by every statement so rendering
+ * doesn't have to concatenate them again.
+ *
+ * @author evanwht1@gmail.com
+ */
+final class ColumnFragments {
+
+    /**
+     * Column names beyond this many are still rendered, just without being remembered.
+     */
+    private static final int MAX_COLUMNS = 4096;
+
+    private static final Map<String, ColumnFragments> FRAGMENTS = new ConcurrentHashMap<>();
+
+    private final String name;
+    private final String equalsParameter;
+    private final String isNull;
+    private final String greaterThanParameter;
+    private final String anyParameter;
+
+    private ColumnFragments(final String name) {
+        this.name = name.intern();
+        this.equalsParameter = (name + " = ?").intern();
+        this.isNull = (name + " IS NULL").intern();
+        this.greaterThanParameter = (name + " > ?").intern();
+        this.anyParameter = (name + " = ANY(?)").intern();
+    }
+
+    /**
+     * @param column a column
+     * @return the fragments for the name of the column
+     */
+    static ColumnFragments of(final Column column) {
+        final String name = column.getName();
+        final ColumnFragments fragments = FRAGMENTS.get(name);
+        if (fragments != null) {
+            return fragments;
+        }
+        if (FRAGMENTS.size() >= MAX_COLUMNS) {
+            return new ColumnFragments(name);
+        }
+        return FRAGMENTS.computeIfAbsent(name, ColumnFragments::new);
+    }
+
+    /**
+     * @return {@code name}
+     */
+    String name() {
+        return name;
+    }
+
+    /**
+     * @return {@code name = ?}
+     */
+    String equalsParameter() {
+        return equalsParameter;
+    }
+
+    /**
+     * @return {@code name IS NULL}
+     */
+    String isNull() {
+        return isNull;
+    }
+
+    /**
+     * @param value the value the column is compared to
+     * @return {@code name IS NULL} if the value is null, otherwise {@code name = ?}
+     */
+    String condition(final Object value) {
+        return value == null ? isNull : equalsParameter;
+    }
+
+    /**
+     * @return {@code name > ?}
+     */
+    String greaterThanParameter() {
+        return greaterThanParameter;
+    }
+
+    /**
+     * @return {@code name = ANY(?)}
+     */
+    String anyParameter() {
+        return anyParameter;
+    }
+}
@@ -0,0 +1,144 @@
+package com.evanwht.sql;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.BitSet;
+
+/**
+ * The values of one column of a {@link ColumnarBatch}, stored in a single array typed by the column's
+ * {@link java.sql.Types} code, with SQL NULLs tracked in a bitmap. Values are read by row index with the getter
+ * matching the type of the vector; the other getters throw an {@link IllegalStateException}.
+ *
+ * @author evanwht1@gmail.com
+ */
+public abstract class ColumnVector {
+
+    private final String name;
+    private final int type;
+    private final BitSet nulls = new BitSet();
+    int size;
+
+    ColumnVector(final String name, final int type) {
+        this.name = name;
+        this.type = type;
+    }
+
+    /**
+     * @param name label of the column
+     * @param type the java.sql.Types type of the column
+     * @param capacity number of rows expected
+     * @return the vector that best stores values of the type
+     */
+    static ColumnVector forType(final String name, final int type, final int capacity) {
+        return switch (type) {
+            case Types.BIGINT -> new LongVector(name, type, capacity);
+            case Types.INTEGER, Types.SMALLINT, Types.TINYINT -> new IntVector(name, type, capacity);
+            case Types.DOUBLE, Types.FLOAT, Types.REAL -> new DoubleVector(name, type, capacity);
+            case Types.BIT, Types.BOOLEAN -> new BooleanVector(name, type);
+            case Types.CHAR, Types.VARCHAR, Types.LONGVARCHAR, Types.NCHAR, Types.NVARCHAR, Types.LONGNVARCHAR ->
+                    new StringVector(name, type, capacity);
+            default -> new ObjectVector(name, type, capacity);
+        };
+    }
+
+    /**
+     * Reads the value of the column from the current row of the ResultSet and appends it to this vector.
+     */
+    abstract void read(ResultSet resultSet, int columnIndex) throws SQLException;
+
+    /**
+     * Frees any memory only needed while reading.
+     */
+    void complete() {
+    }
+
+    void setNull(final int row) {
+        nulls.set(row);
+    }
+
+    /**
+     * @return label of the column
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the java.sql.Types type of the column
+     */
+    public int getType() {
+        return type;
+    }
+
+    /**
+     * @return number of rows in the vector
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param row index of the row
+     * @return true if the value of the row is SQL NULL
+     */
+    public boolean isNull(final int row) {
+        return nulls.get(row);
+    }
+
+    /**
+     * @param row index of the row
+     * @return the value of the row, 0 if it is null
+     */
+    public long getLong(final int row) {
+        throw unsupported("long");
+    }
+
+    /**
+     * @param row index of the row
+     * @return the value of the row, 0 if it is null
+     */
+    public int getInt(final int row) {
+        throw unsupported("int");
+    }
+
+    /**
+     * @param row index of the row
+     * @return the value of the row, 0 if it is null
+     */
+    public double getDouble(final int row) {
+        throw unsupported("double");
+    }
+
+    /**
+     * @param row index of the row
+     * @return the value of the row, false if it is null
+     */
+    public boolean getBoolean(final int row) {
+        throw unsupported("boolean");
+    }
+
+    /**
+     * @param row index of the row
+     * @return the value of the row, null if it is null
+     */
+    public String getString(final int row) {
+        throw unsupported("String");
+    }
+
+    /**
+     * @param row index of the row
+     * @return the value of the row, boxed if it is a primitive. Null if it is null
+     */
+    public abstract Object getObject(final int row);
+
+    void checkRow(final int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("row " + row + " of " + size);
+        }
+    }
+
+    private IllegalStateException unsupported(final String javaType) {
+        return new IllegalStateException("Column " + name + " can't be read as a " + javaType);
+    }
+}
@@ -0,0 +1,201 @@
+package com.evanwht.sql;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * The rows of a query stored column by column (see {@link SelectBuilder#getColumnar(java.sql.Connection)}). Each
+ * column is a {@link ColumnVector} holding its values in a single array, so scanning a column reads contiguous memory
+ * and no object is created per row.
+ * <p>
+ * Rows can be read directly from the vectors by index, or with a {@link Cursor}.
+ *
+ * @author evanwht1@gmail.com
+ */
+public final class ColumnarBatch {
+
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private final ColumnVector[] vectors;
+    private final int size;
+
+    private ColumnarBatch(final ColumnVector[] vectors, final int size) {
+        this.vectors = vectors;
+        this.size = size;
+    }
+
+    /**
+     * Reads every remaining row of a ResultSet.
+     *
+     * @param resultSet the rows to read
+     * @param columns the selected columns, in order. If empty the labels and types reported by the driver are used
+     * @param capacity number of rows expected, 0 if unknown
+     * @return the rows, by column
+     * @throws SQLException if an error occurred reading the rows
+     */
+    static ColumnarBatch read(final ResultSet resultSet, final Column[] columns, final int capacity) throws SQLException {
+        final int initial = capacity > 0 ? capacity : DEFAULT_CAPACITY;
+        final ColumnVector[] vectors;
+        if (columns.length > 0) {
+            vectors = new ColumnVector[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                vectors[i] = ColumnVector.forType(columns[i].getName(), columns[i].getType(), initial);
+            }
+        } else {
+            final ResultSetMetaData metaData = resultSet.getMetaData();
+            vectors = new ColumnVector[metaData.getColumnCount()];
+            for (int i = 0; i < vectors.length; i++) {
+                vectors[i] = ColumnVector.forType(metaData.getColumnLabel(i + 1), metaData.getColumnType(i + 1), initial);
+            }
+        }
+        int size = 0;
+        while (resultSet.next()) {
+            for (int i = 0; i < vectors.length; i++) {
+                vectors[i].read(resultSet, i + 1);
+            }
+            size++;
+        }
+        for (ColumnVector vector : vectors) {
+            vector.complete();
+        }
+        return new ColumnarBatch(vectors, size);
+    }
+
+    /**
+     * @return number of rows
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return number of columns
+     */
+    public int getColumnCount() {
+        return vectors.length;
+    }
+
+    /**
+     * @return every column, in the order they were selected
+     */
+    public List<ColumnVector> getColumns() {
+        return List.of(vectors);
+    }
+
+    /**
+     * @param index index of the column, starting at 0
+     * @return the values of the column
+     */
+    public ColumnVector column(final int index) {
+        return vectors[index];
+    }
+
+    /**
+     * @param column a selected column
+     * @return the values of the column
+     * @throws IllegalArgumentException if the column wasn't selected
+     */
+    public ColumnVector column(final Column column) {
+        return vectors[indexOf(column)];
+    }
+
+    /**
+     * @param column a selected column
+     * @return index of the column, starting at 0
+     * @throws IllegalArgumentException if the column wasn't selected
+     */
+    public int indexOf(final Column column) {
+        for (int i = 0; i < vectors.length; i++) {
+            if (vectors[i].getName().equalsIgnoreCase(column.getName())) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Column " + column.getName() + " is not in this batch");
+    }
+
+    /**
+     * @return a new cursor positioned before the first row
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Reads a batch row by row, like a ResultSet. A single cursor is moved over every row, so reading a batch
+     * creates no objects. Columns are addressed by index, starting at 0; look indexes up once with
+     * {@link ColumnarBatch#indexOf(Column)}.
+     */
+    public final class Cursor {
+
+        private int row = -1;
+
+        private Cursor() {
+        }
+
+        /**
+         * Moves to the next row.
+         *
+         * @return true if there was another row
+         */
+        public boolean next() {
+            if (row < size) {
+                row++;
+            }
+            return row < size;
+        }
+
+        /**
+         * Moves back to before the first row.
+         */
+        public void reset() {
+            row = -1;
+        }
+
+        /**
+         * @param row index of the row to move to
+         */
+        public void moveTo(final int row) {
+            if (row < 0 || row >= size) {
+                throw new IndexOutOfBoundsException("row " + row + " of " + size);
+            }
+            this.row = row;
+        }
+
+        /**
+         * @return index of the current row
+         */
+        public int getRow() {
+            return row;
+        }
+
+        public boolean isNull(final int column) {
+            return vectors[column].isNull(row);
+        }
+
+        public long getLong(final int column) {
+            return vectors[column].getLong(row);
+        }
+
+        public int getInt(final int column) {
+            return vectors[column].getInt(row);
+        }
+
+        public double getDouble(final int column) {
+            return vectors[column].getDouble(row);
+        }
+
+        public boolean getBoolean(final int column) {
+            return vectors[column].getBoolean(row);
+        }
+
+        public String getString(final int column) {
+            return vectors[column].getString(row);
+        }
+
+        public Object getObject(final int column) {
+            return vectors[column].getObject(row);
+        }
+    }
+}
@@ -1,13 +1,16 @@
 package com.evanwht.sql;
 
+import javax.sql.DataSource;
 import java.sql.Connection;
-import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.OptionalInt;
-import java.util.StringJoiner;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 import static com.evanwht.sql.Keywords.DELETE;
 import static com.evanwht.sql.Keywords.FROM;
@@ -22,6 +25,11 @@ public class DeleteBuilder {
 
     private String table;
     private final Map<Column, Object> clauses = new LinkedHashMap<>();
+    private final List<Object[]> rows = new ArrayList<>();
+    private PreparedCommand batchCommand;
+    private int batchSize = Statements.DEFAULT_BATCH_SIZE;
+    private InListMode inListMode = InListMode.BUCKETED;
+    private int maxParameters = Statements.DEFAULT_MAX_PARAMETERS;
 
     /**
      * @param table name of the table to delete data from
@@ -44,6 +52,74 @@ public class DeleteBuilder {
         return this;
     }
 
+    /**
+     * Adds a clause to the delete statement to delete only rows whose column has any of the values. An empty
+     * collection matches no rows. See {@link #inListMode(InListMode)} for how the values are sent to the db.
+     *
+     * @param column a {@link Column} representing a column of the table in the db
+     * @param values the desired values of the column
+     * @return the builder this was invoked on
+     */
+    public DeleteBuilder whereIn(final Column column, final Collection<?> values) {
+        clauses.put(column, InList.of(values));
+        return this;
+    }
+
+    /**
+     * @param inListMode how the values of {@link #whereIn(Column, Collection)} clauses are sent to the db. Defaults
+     *                   to {@link InListMode#BUCKETED}
+     * @return the builder this was invoked on
+     */
+    public DeleteBuilder inListMode(final InListMode inListMode) {
+        this.inListMode = inListMode;
+        return this;
+    }
+
+    /**
+     * @param maxParameters the driver's limit on parameters in a single statement. {@link #execute(Connection)}
+     *                      splits an IN list that needs more into several statements. Defaults to 32767
+     * @return the builder this was invoked on
+     */
+    public DeleteBuilder maxParameters(final int maxParameters) {
+        if (maxParameters < 1) {
+            throw new IllegalArgumentException("maxParameters must be positive");
+        }
+        this.maxParameters = maxParameters;
+        return this;
+    }
+
+    /**
+     * Adds the where clauses set so far as a row of a batch (see {@link #executeBatch(Connection)}) and clears them
+     * so the next row can be set. Every row must produce the same statement: the same columns in the same order,
+     * with the same where clauses set to null.
+     *
+     * @return the builder this was invoked on
+     * @throws IllegalStateException if the row is invalid or produces a different statement than the first row
+     */
+    public DeleteBuilder addRow() {
+        final PreparedCommand command = compile();
+        if (batchCommand == null) {
+            batchCommand = command;
+        } else if (!batchCommand.getSql().equals(command.getSql())) {
+            throw new IllegalStateException("Every row must produce the same statement as the first: " + batchCommand.getSql());
+        }
+        rows.add(parameterValues());
+        clauses.clear();
+        return this;
+    }
+
+    /**
+     * @param batchSize maximum number of rows sent to the db at once. Defaults to 1000
+     * @return the builder this was invoked on
+     */
+    public DeleteBuilder batchSize(final int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+        this.batchSize = batchSize;
+        return this;
+    }
+
     /**
      * Builds a DELETE statement for the table and where clauses supplied to this builder.
      * Only be visible for testing.
@@ -51,36 +127,144 @@ public class DeleteBuilder {
      * @return DELETE statement
      */
     String createStatement() {
-        return new StringJoiner(" ", DELETE, ";")
-                .add(FROM)
-                .add(table)
-                .add(WHERE)
-                .add(clauses.entrySet()
-                            .stream()
-                            .map(e -> e.getKey().getName() + (e.getValue() == null ? " IS NULL" : " = ?"))
-                            .collect(Collectors.joining(" AND ")))
-                .toString();
+        return SqlCache.getInstance().get(statementKey(), this::renderStatement);
+    }
+
+    private StatementKey statementKey() {
+        final StatementKey.Builder key = StatementKey.builder(DELETE, table);
+        clauses.forEach((column, value) -> key.add(column.getName()).add(InList.shape(value, inListMode)));
+        return key.build();
+    }
+
+    private String renderStatement() {
+        try (final SqlRenderer sql = SqlRenderer.open().append(DELETE).append(FROM).word(table).word(WHERE)) {
+            int i = 0;
+            for (Map.Entry<Column, Object> clause : clauses.entrySet()) {
+                sql.separate(i++, " AND");
+                InList.appendCondition(sql, clause.getKey(), clause.getValue(), inListMode);
+            }
+            return sql.finish();
+        }
+    }
+
+    /**
+     * Freezes this builder into an immutable, thread safe command. The parameters of the compiled command are the
+     * non-null where clauses of this builder, in the order they were added. Clauses with a null value are compiled
+     * as IS NULL checks and take no parameter. IN lists take one parameter per value of the list, rounded up
+     * to a power of two, or a single array parameter in {@link InListMode#ARRAY}.
+     *
+     * @return a compiled command that can be run with just the values of its parameters
+     * @throws IllegalStateException if the table name was empty or there were no where clauses or
+     * the command has more than maxParameters parameters
+     */
+    public PreparedCommand compile() {
+        try {
+            return compiled();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+
+    private PreparedCommand compiled() throws SQLException {
+        if (table == null || clauses.isEmpty()) {
+            throw new SQLException("Need both table and at least one where clause");
+        }
+        final List<Column> parameters = new ArrayList<>(clauses.size());
+        clauses.forEach((column, value) -> InList.addParameters(parameters, column, value, inListMode));
+        InList.checkParameters(parameters.size(), maxParameters);
+        return new PreparedCommand(table, createStatement(), parameters.toArray(new Column[0]));
     }
 
     /**
      * Builds the PreparedStatement and sets the necessary values for any where clauses
      *
      * @param connection connection to the db to perform this statement on
-     * @return a prepared statement that can be executed
+     * @return the number of rows deleted, empty if none were
      * @throws SQLException if the table name was empty or an error occurred performing the query
      */
     public OptionalInt execute(final Connection connection) throws SQLException {
-        if (table == null || clauses.isEmpty()) {
-            throw new SQLException("Need both table and at least one where clause");
+        return execute(connection, chunks());
+    }
+
+    /**
+     * @return the statements to run and their values: just one, unless an IN list needs more parameters than
+     * maxParameters
+     */
+    List<InList.Chunk<PreparedCommand>> chunks() throws SQLException {
+        return InList.chunks(clauses.values(), inListMode, 0, maxParameters,
+                             () -> new InList.Chunk<>(compiled(), parameterValues()));
+    }
+
+    private static OptionalInt execute(final Connection connection, final List<InList.Chunk<PreparedCommand>> chunks) throws SQLException {
+        int rows = 0;
+        for (InList.Chunk<PreparedCommand> chunk : chunks) {
+            rows += chunk.statement.execute(connection, chunk.args).orElse(0);
         }
-        final PreparedStatement statement = connection.prepareStatement(createStatement());
-        int index = 1;
-        for (Map.Entry<Column, Object> p : clauses.entrySet()) {
-            if (p.getValue() != null) {
-                statement.setObject(index++, p.getValue(), p.getKey().getType());
+        return rows > 0 ? OptionalInt.of(rows) : OptionalInt.empty();
+    }
+
+    /**
+     * Runs {@link #execute(Connection)} on the default executor (see {@link Async#defaultExecutor()}) with a
+     * connection from the DataSource. The statement is built from the state of this builder when this is called.
+     *
+     * @param dataSource where to get a connection from. The connection is closed once the statement is done
+     * @return future of the result, completed exceptionally with the SQLException if the statement fails
+     */
+    public CompletableFuture<OptionalInt> executeAsync(final DataSource dataSource) {
+        return executeAsync(dataSource, Async.defaultExecutor());
+    }
+
+    /**
+     * Runs {@link #execute(Connection)} on the executor with a connection from the DataSource. The statement is
+     * built from the state of this builder when this is called.
+     *
+     * @param dataSource where to get a connection from. The connection is closed once the statement is done
+     * @param executor runs the statement
+     * @return future of the result, completed exceptionally with the SQLException if the statement fails
+     */
+    public CompletableFuture<OptionalInt> executeAsync(final DataSource dataSource, final Executor executor) {
+        try {
+            final List<InList.Chunk<PreparedCommand>> chunks = chunks();
+            return Async.run(dataSource, executor, connection -> execute(connection, chunks));
+        } catch (SQLException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Runs the statement once for every row added with {@link #addRow()}, plus a final row of any where clauses set
+     * since, sending at most batchSize rows to the db per round trip. Once run the rows are cleared, so the builder
+     * can collect the next batch.
+     *
+     * @param connection connection to the db to perform this statement on
+     * @return the number of rows deleted by each row of the batch, as reported by the driver
+     * @throws SQLException if the table name was empty or an error occurred performing the query
+     */
+    public int[] executeBatch(final Connection connection) throws SQLException {
+        if (!clauses.isEmpty()) {
+            try {
+                addRow();
+            } catch (IllegalStateException e) {
+                throw new SQLException(e.getMessage(), e);
             }
         }
-        final int rows = statement.executeUpdate();
-        return rows > 0 ? OptionalInt.of(rows) : OptionalInt.empty();
+        if (rows.isEmpty()) {
+            return new int[0];
+        }
+        final int[] counts = batchCommand.executeBatch(connection, rows, batchSize);
+        rows.clear();
+        batchCommand = null;
+        return counts;
+    }
+
+    /**
+     * @return the values of the parameters of the statement, in bind order
+     */
+    private Object[] parameterValues() {
+        final List<Object> values = new ArrayList<>(clauses.size());
+        for (Object value : clauses.values()) {
+            InList.addValues(values, value, inListMode);
+        }
+        return values.toArray();
     }
 }
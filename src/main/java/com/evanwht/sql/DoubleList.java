@@ -0,0 +1,23 @@
+package com.evanwht.sql;
+
+/**
+ * Growable array of primitive doubles.
+ *
+ * @author evanwht1@gmail.com
+ */
+final class DoubleList extends PrimitiveList<double[]> {
+
+    DoubleList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    DoubleList(final int capacity) {
+        super(capacity, double[]::new);
+    }
+
+    void add(final double value) {
+        // the index first, as adding may grow the array
+        final int index = nextIndex();
+        values[index] = value;
+    }
+}
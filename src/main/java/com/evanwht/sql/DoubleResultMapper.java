@@ -0,0 +1,15 @@
+package com.evanwht.sql;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps a row of a ResultSet to a primitive double, so that reading doubles never boxes them.
+ * {@link SelectBuilder#getDoubles(java.sql.Connection, DoubleResultMapper)}
+ *
+ * @author evanwht1@gmail.com
+ */
+@FunctionalInterface
+public interface DoubleResultMapper {
+    double map(final ResultSet rs) throws SQLException;
+}
@@ -0,0 +1,48 @@
+package com.evanwht.sql;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/**
+ * A {@link ColumnVector} of primitive doubles.
+ *
+ * @author evanwht1@gmail.com
+ */
+public final class DoubleVector extends ColumnVector {
+
+    private double[] values;
+
+    DoubleVector(final String name, final int type, final int capacity) {
+        super(name, type);
+        this.values = new double[Math.max(capacity, 1)];
+    }
+
+    @Override
+    void read(final ResultSet resultSet, final int columnIndex) throws SQLException {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size] = resultSet.getDouble(columnIndex);
+        if (resultSet.wasNull()) {
+            setNull(size);
+        }
+        size++;
+    }
+
+    @Override
+    void complete() {
+        values = Arrays.copyOf(values, size);
+    }
+
+    @Override
+    public double getDouble(final int row) {
+        checkRow(row);
+        return values[row];
+    }
+
+    @Override
+    public Object getObject(final int row) {
+        return isNull(row) ? null : getDouble(row);
+    }
+}
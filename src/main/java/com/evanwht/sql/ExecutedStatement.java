@@ -0,0 +1,140 @@
+package com.evanwht.sql;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * A statement that ran, or failed, as reported to {@link ExecutionListener#onStatement(ExecutedStatement)}.
+ * Batches are reported once, with the number of rows in the batch and no bound values.
+ *
+ * @author evanwht1@gmail.com
+ */
+public final class ExecutedStatement {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final String table;
+    private final String kind;
+    private final String sql;
+    private final Column[] parameters;
+    private final Object[] args;
+    private final long elapsedNanos;
+    private final int rows;
+    private final SQLException failure;
+
+    ExecutedStatement(final String table, final String kind, final String sql, final Column[] parameters,
+                      final Object[] args, final long elapsedNanos, final int rows, final SQLException failure) {
+        this.table = table;
+        this.kind = kind;
+        this.sql = sql;
+        this.parameters = parameters;
+        this.args = args;
+        this.elapsedNanos = elapsedNanos;
+        this.rows = rows;
+        this.failure = failure;
+    }
+
+    /**
+     * Derives a stable identifier for the shape of a statement. Every value of a statement rendered by the builders
+     * is a bind parameter, so statements that differ only by their values share a fingerprint, and the fingerprint
+     * of a statement is the same in every run of the application.
+     *
+     * @param sql sql of a statement
+     * @return 16 hex digits identifying the sql
+     */
+    public static String fingerprint(final String sql) {
+        long hash = FNV_OFFSET;
+        for (int i = 0; i < sql.length(); i++) {
+            hash ^= sql.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        final String hex = Long.toHexString(hash);
+        return "0".repeat(16 - hex.length()) + hex;
+    }
+
+    /**
+     * @return the table the statement ran against
+     */
+    public String getTable() {
+        return table;
+    }
+
+    /**
+     * @return the kind of statement: SELECT, INSERT, UPDATE, DELETE or MERGE
+     */
+    public String getKind() {
+        return kind;
+    }
+
+    /**
+     * @return the sql that ran, with a ? for every value
+     */
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * @return see {@link #fingerprint(String)}
+     */
+    public String getFingerprint() {
+        return fingerprint(sql);
+    }
+
+    /**
+     * @return the columns each parameter of the statement sets or is compared to, in bind order
+     */
+    public List<Column> getParameters() {
+        return List.of(parameters);
+    }
+
+    /**
+     * @return the values bound to the parameters, in bind order. Empty for a batch
+     */
+    public List<Object> getArgs() {
+        return args == null ? List.of() : Collections.unmodifiableList(Arrays.asList(args));
+    }
+
+    /**
+     * @return true if the statement ran once for every row of a batch
+     */
+    public boolean isBatch() {
+        return args == null;
+    }
+
+    /**
+     * @return how long the statement took, from preparing it to mapping the last row or failing
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * @return number of rows read by a query, changed by a write, or in a batch. 0 if the statement failed
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * @return why the statement failed, empty if it ran to completion
+     */
+    public Optional<SQLException> getFailure() {
+        return Optional.ofNullable(failure);
+    }
+
+    /**
+     * @return true if the statement failed
+     */
+    public boolean isFailed() {
+        return failure != null;
+    }
+
+    @Override
+    public String toString() {
+        return sql;
+    }
+}
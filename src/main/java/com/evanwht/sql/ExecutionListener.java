@@ -0,0 +1,34 @@
+package com.evanwht.sql;
+
+/**
+ * Told how long each {@link Phase} of every statement took, and about every statement as a whole once it is done.
+ * Both are optional, so a listener only overrides what it needs. Register listeners with
+ * {@link ExecutionListeners#register(ExecutionListener)}.
+ * <p>
+ * Listeners are called on the thread running the statement, while it runs, so they must be fast and thread safe,
+ * and must not throw.
+ *
+ * @author evanwht1@gmail.com
+ */
+public interface ExecutionListener {
+
+    /**
+     * @param table the table the statement runs against
+     * @param kind the kind of statement: SELECT, INSERT, UPDATE, DELETE or MERGE
+     * @param phase the phase that finished
+     * @param elapsedNanos how long the phase took
+     * @param rows number of rows read for {@link Phase#MAP}, or changed for {@link Phase#EXECUTE} of a write. 0
+     * otherwise
+     */
+    default void onPhase(final String table, final String kind, final Phase phase, final long elapsedNanos, final int rows) {
+    }
+
+    /**
+     * Called once a statement is done, after all of its phases. Statements that fail with an SQLException, e.g. a
+     * timeout, are reported too, with the time until they failed and {@link ExecutedStatement#getFailure()} set.
+     *
+     * @param statement the statement that ran
+     */
+    default void onStatement(final ExecutedStatement statement) {
+    }
+}
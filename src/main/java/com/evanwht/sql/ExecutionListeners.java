@@ -0,0 +1,120 @@
+package com.evanwht.sql;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * The {@link ExecutionListener}s every builder and compiled statement reports to. While none are registered the
+ * only cost to a statement is reading a volatile field once per phase; the clock isn't read.
+ *
+ * @author evanwht1@gmail.com
+ */
+public final class ExecutionListeners {
+
+    /**
+     * Returned by {@link #start()} when no listener is registered.
+     */
+    static final long DISABLED = Long.MIN_VALUE;
+
+    private static final ExecutionListener[] NONE = new ExecutionListener[0];
+
+    private static volatile ExecutionListener[] listeners = NONE;
+
+    private ExecutionListeners() {
+    }
+
+    /**
+     * @param listener a listener to tell about every following statement
+     */
+    public static synchronized void register(final ExecutionListener listener) {
+        Objects.requireNonNull(listener, "listener");
+        final ExecutionListener[] current = listeners;
+        final ExecutionListener[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = listener;
+        listeners = updated;
+    }
+
+    /**
+     * @param listener a registered listener
+     * @return true if the listener was registered
+     */
+    public static synchronized boolean unregister(final ExecutionListener listener) {
+        final ExecutionListener[] current = listeners;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == listener) {
+                final ExecutionListener[] updated = new ExecutionListener[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, i);
+                System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                listeners = updated.length == 0 ? NONE : updated;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Unregisters every listener.
+     */
+    public static synchronized void clear() {
+        listeners = NONE;
+    }
+
+    /**
+     * @return the time a phase starts, or {@link #DISABLED} if no listener is registered
+     */
+    static long start() {
+        return listeners.length == 0 ? DISABLED : System.nanoTime();
+    }
+
+    /**
+     * Reports a phase that started at the value returned by {@link #start()}.
+     */
+    static void end(final String table, final String kind, final Phase phase, final long start, final int rows) {
+        if (start == DISABLED) {
+            return;
+        }
+        phase(table, kind, phase, System.nanoTime() - start, rows);
+    }
+
+    /**
+     * Reports a phase that was timed by the caller, e.g. summed over the rows of a lazily read query.
+     */
+    static void phase(final String table, final String kind, final Phase phase, final long elapsedNanos, final int rows) {
+        for (ExecutionListener listener : listeners) {
+            listener.onPhase(table, kind, phase, elapsedNanos, rows);
+        }
+    }
+
+    /**
+     * Reports a whole statement that started at the value returned by {@link #start()}.
+     *
+     * @param args the bound values, or null for a batch
+     */
+    static void statement(final String table, final String kind, final String sql, final Column[] parameters,
+                          final Object[] args, final long start, final int rows) {
+        report(table, kind, sql, parameters, args, start, rows, null);
+    }
+
+    /**
+     * Reports a statement that started at the value returned by {@link #start()} and failed.
+     *
+     * @param args the bound values, or null for a batch
+     */
+    static void failed(final String table, final String kind, final String sql, final Column[] parameters,
+                       final Object[] args, final long start, final SQLException failure) {
+        report(table, kind, sql, parameters, args, start, 0, failure);
+    }
+
+    private static void report(final String table, final String kind, final String sql, final Column[] parameters,
+                               final Object[] args, final long start, final int rows, final SQLException failure) {
+        if (start == DISABLED) {
+            return;
+        }
+        final ExecutedStatement statement = new ExecutedStatement(table, kind, sql, parameters, args,
+                                                                  System.nanoTime() - start, rows, failure);
+        for (ExecutionListener listener : listeners) {
+            listener.onStatement(statement);
+        }
+    }
+}
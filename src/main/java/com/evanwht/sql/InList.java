@@ -0,0 +1,229 @@
+package com.evanwht.sql;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The values of a {@code whereIn} clause, stored as the value of the clause in a builder. Also holds the helpers the
+ * builders use to render, and collect the parameters and values of, any kind of where clause: null for IS NULL, an
+ * InList, or a single value.
+ *
+ * @author evanwht1@gmail.com
+ */
+final class InList {
+
+    private final Object[] values;
+    private int from;
+    private int to;
+
+    private InList(final Object[] values) {
+        this.values = values;
+        this.to = values.length;
+    }
+
+    /**
+     * @param values the values of the clause
+     * @return a list of the distinct values, copied so later changes to the collection don't change the clause
+     */
+    static InList of(final Collection<?> values) {
+        // duplicates would only waste parameters, and could match a row in more than one chunk
+        return new InList(values instanceof Set ? values.toArray() : new LinkedHashSet<>(values).toArray());
+    }
+
+    /**
+     * @return number of values in the current window
+     */
+    int size() {
+        return to - from;
+    }
+
+    /**
+     * Limits the values bound to a slice of the list, to run a list too large for one statement in chunks.
+     *
+     * @param from index of the first value
+     * @param to index after the last value
+     */
+    private void window(final int from, final int to) {
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * @param size number of values
+     * @return number of parameters rendered for that many values: the next power of two, or 0 if there are none
+     */
+    static int bucket(final int size) {
+        return size <= 1 ? size : Integer.highestOneBit(size - 1) << 1;
+    }
+
+    /**
+     * @param value the value of a where clause
+     * @param mode how lists are sent
+     * @return what about the clause changes the rendered sql, for a {@link StatementKey}
+     */
+    static Object shape(final Object value, final InListMode mode) {
+        if (value instanceof InList) {
+            return mode == InListMode.ARRAY ? mode : Integer.valueOf(bucket(((InList) value).size()));
+        }
+        return value == null;
+    }
+
+    /**
+     * Renders a where clause, e.g. {@code name = ?}, {@code name IS NULL} or {@code name IN (?, ?)}.
+     */
+    static void appendCondition(final SqlRenderer sql, final Column column, final Object value, final InListMode mode) {
+        final ColumnFragments fragments = ColumnFragments.of(column);
+        if (!(value instanceof InList)) {
+            sql.word(fragments.condition(value));
+        } else if (mode == InListMode.ARRAY) {
+            sql.word(fragments.anyParameter());
+        } else {
+            final int bucket = bucket(((InList) value).size());
+            if (bucket == 0) {
+                // IN () isn't valid sql, but is always false
+                sql.word("1 = 0");
+                return;
+            }
+            sql.word(fragments.name()).append(" IN (");
+            for (int i = 0; i < bucket; i++) {
+                sql.separate(i, ", ").append('?');
+            }
+            sql.append(')');
+        }
+    }
+
+    /**
+     * Adds the columns the parameters of a where clause are compared to.
+     */
+    static void addParameters(final List<Column> parameters, final Column column, final Object value, final InListMode mode) {
+        if (!(value instanceof InList)) {
+            if (value != null) {
+                parameters.add(column);
+            }
+        } else if (mode == InListMode.ARRAY) {
+            parameters.add(new ArrayParameter(column));
+        } else {
+            for (int i = bucket(((InList) value).size()); i > 0; i--) {
+                parameters.add(column);
+            }
+        }
+    }
+
+    /**
+     * Adds the values bound to the parameters of a where clause.
+     */
+    static void addValues(final List<Object> values, final Object value, final InListMode mode) {
+        if (!(value instanceof InList)) {
+            if (value != null) {
+                values.add(value);
+            }
+            return;
+        }
+        final InList list = (InList) value;
+        if (mode == InListMode.ARRAY) {
+            final Object[] elements = new Object[list.size()];
+            System.arraycopy(list.values, list.from, elements, 0, elements.length);
+            values.add(elements);
+            return;
+        }
+        for (int i = list.from; i < list.to; i++) {
+            values.add(list.values[i]);
+        }
+        // pad with the last value, which doesn't change what matches
+        for (int i = bucket(list.size()) - list.size(); i > 0; i--) {
+            values.add(list.values[list.to - 1]);
+        }
+    }
+
+    /**
+     * @param parameters number of parameters of a statement
+     * @param maxParameters the driver's limit on parameters in a single statement
+     * @throws SQLException if the statement has too many parameters
+     */
+    static void checkParameters(final int parameters, final int maxParameters) throws SQLException {
+        if (parameters > maxParameters) {
+            throw new SQLException("Statement needs " + parameters + " parameters but the limit is " + maxParameters
+                                           + ". Run it from its builder, which splits large IN lists, or use InListMode.ARRAY");
+        }
+    }
+
+    /**
+     * Compiles the statements needed to run a builder. Usually that is a single statement, but if the where clauses
+     * need more parameters than the driver allows the largest IN list is split into chunks, each run as its own
+     * statement.
+     *
+     * @param clauses values of the where clauses of the builder
+     * @param mode how lists are sent
+     * @param fixedParameters number of parameters the builder has besides its where clauses
+     * @param maxParameters the driver's limit on parameters in a single statement
+     * @param compiler compiles the builder as it is when called
+     * @return the statements to run, in order
+     * @throws SQLException if even a single value of the largest list leaves too many parameters
+     */
+    static <S> List<S> chunks(final Collection<Object> clauses, final InListMode mode, final int fixedParameters,
+                              final int maxParameters, final Compiler<S> compiler) throws SQLException {
+        if (mode == InListMode.ARRAY) {
+            return List.of(compiler.compile());
+        }
+        int parameters = fixedParameters;
+        InList largest = null;
+        for (Object value : clauses) {
+            if (value instanceof InList) {
+                final InList list = (InList) value;
+                parameters += bucket(list.size());
+                if (largest == null || list.size() > largest.size()) {
+                    largest = list;
+                }
+            } else if (value != null) {
+                parameters++;
+            }
+        }
+        if (parameters <= maxParameters) {
+            return List.of(compiler.compile());
+        }
+        if (largest == null) {
+            checkParameters(parameters, maxParameters);
+        }
+        final int available = maxParameters - parameters + bucket(largest.size());
+        checkParameters(parameters - bucket(largest.size()) + 1, maxParameters);
+        final int chunkSize = Integer.highestOneBit(available);
+        final int size = largest.size();
+        final List<S> chunks = new ArrayList<>(size / chunkSize + 1);
+        try {
+            for (int start = 0; start < size; start += chunkSize) {
+                largest.window(start, Math.min(start + chunkSize, size));
+                chunks.add(compiler.compile());
+            }
+        } finally {
+            largest.window(0, size);
+        }
+        return chunks;
+    }
+
+    /**
+     * Compiles a builder into a statement and the values to run it with.
+     */
+    @FunctionalInterface
+    interface Compiler<S> {
+
+        S compile() throws SQLException;
+    }
+
+    /**
+     * A compiled statement and the values to run it with.
+     */
+    static final class Chunk<S> {
+
+        final S statement;
+        final Object[] args;
+
+        Chunk(final S statement, final Object[] args) {
+            this.statement = statement;
+            this.args = args;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.evanwht.sql;
+
+/**
+ * How the values of a {@code whereIn} clause are sent to the db.
+ *
+ * @author evanwht1@gmail.com
+ */
+public enum InListMode {
+    /**
+     * {@code column IN (?, ?, ...)} with one parameter per value. The number of parameters is rounded up to a power
+     * of two, padded by repeating the last value, so lists of similar sizes share a statement and a query plan.
+     * Lists with more values than the driver allows parameters are split into several statements.
+     */
+    BUCKETED,
+    /**
+     * {@code column = ANY(?)} with every value bound as a single {@link java.sql.Array}, so every list shares one
+     * statement regardless of its size. Needs a driver that supports
+     * {@link java.sql.Connection#createArrayOf(String, Object[])} and a db that understands {@code ANY}, like Postgres.
+     */
+    ARRAY
+}
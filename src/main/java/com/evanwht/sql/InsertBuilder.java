@@ -1,15 +1,16 @@
 package com.evanwht.sql;
 
+import javax.sql.DataSource;
 import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.OptionalLong;
-import java.util.StringJoiner;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 import static com.evanwht.sql.Keywords.INSERT;
 import static com.evanwht.sql.Keywords.INTO;
@@ -22,8 +23,13 @@ import static com.evanwht.sql.Keywords.VALUES;
  */
 public class InsertBuilder {
 
+    private static final String KIND = "INSERT";
+
     private String table;
     private final Map<Column, Object> values = new LinkedHashMap<>();
+    private final RowBatch batch = new RowBatch();
+    private BatchMode batchMode = BatchMode.JDBC;
+    private int maxParameters = Statements.DEFAULT_MAX_PARAMETERS;
 
     /**
      * @param table name of the table to insert data into
@@ -46,6 +52,49 @@ public class InsertBuilder {
         return this;
     }
 
+    /**
+     * Adds the values set so far as a row of a batch insert (see {@link #executeBatch(Connection)}) and clears them
+     * so the next row can be set. Every row must set the same columns in the same order.
+     *
+     * @return the builder this was invoked on
+     * @throws IllegalStateException if no values were set or they are for different columns than the first row
+     */
+    public InsertBuilder addRow() {
+        batch.add(values);
+        return this;
+    }
+
+    /**
+     * @param batchMode how rows of a batch insert are sent to the db. Defaults to {@link BatchMode#JDBC}
+     * @return the builder this was invoked on
+     */
+    public InsertBuilder batchMode(final BatchMode batchMode) {
+        this.batchMode = batchMode;
+        return this;
+    }
+
+    /**
+     * @param batchSize maximum number of rows sent to the db at once. Defaults to 1000
+     * @return the builder this was invoked on
+     */
+    public InsertBuilder batchSize(final int batchSize) {
+        batch.batchSize(batchSize);
+        return this;
+    }
+
+    /**
+     * @param maxParameters the driver's limit on parameters in a single statement. Only used by
+     *                      {@link BatchMode#MULTI_ROW}. Defaults to 32767
+     * @return the builder this was invoked on
+     */
+    public InsertBuilder maxParameters(final int maxParameters) {
+        if (maxParameters < 1) {
+            throw new IllegalArgumentException("maxParameters must be positive");
+        }
+        this.maxParameters = maxParameters;
+        return this;
+    }
+
     /**
      * Builds a INSERT statement for the select columns in the table supplied to this builder.
      * Only be visible for testing.
@@ -53,48 +102,172 @@ public class InsertBuilder {
      * @return INSERT statement
      */
     String createStatement() {
-        final StringJoiner sj = new StringJoiner(" ", INSERT, ";")
-                .add(INTO)
-                .add(table);
-        if (!values.isEmpty()) {
-            sj.add(values.keySet()
-                         .stream()
-                         .map(Column::getName)
-                         .collect(Collectors.joining(", ", "(", ")")))
-              .add(VALUES)
-              .add(values.values()
-                         .stream()
-                         .map(p -> "?")
-                         .collect(Collectors.joining(", ", "(", ")")));
+        return createStatement(values.keySet(), 1);
+    }
+
+    /**
+     * @param columns the columns to insert
+     * @param rowCount number of rows of values the statement inserts
+     * @return INSERT statement
+     */
+    private String createStatement(final Collection<Column> columns, final int rowCount) {
+        final StatementKey.Builder key = StatementKey.builder(INSERT, table);
+        columns.forEach(column -> key.add(column.getName()));
+        key.section().add(rowCount);
+        return SqlCache.getInstance().get(key.build(), () -> renderStatement(columns, rowCount));
+    }
+
+    private String renderStatement(final Collection<Column> columns, final int rowCount) {
+        try (final SqlRenderer sql = SqlRenderer.open().append(INSERT).append(INTO).word(table)) {
+            if (!columns.isEmpty()) {
+                sql.word("(");
+                int i = 0;
+                for (Column column : columns) {
+                    sql.separate(i++, ", ").append(ColumnFragments.of(column).name());
+                }
+                sql.append(')').word(VALUES).append(' ');
+                for (int row = 0; row < rowCount; row++) {
+                    sql.separate(row, ", ").append('(');
+                    for (int p = 0; p < columns.size(); p++) {
+                        sql.separate(p, ", ").append('?');
+                    }
+                    sql.append(')');
+                }
+            }
+            return sql.finish();
         }
-        return sj.toString();
+    }
+
+    /**
+     * Freezes this builder into an immutable, thread safe command. The parameters of the compiled command are the
+     * inserted columns of this builder, in the order they were added.
+     *
+     * @return a compiled command that can be run with just the values of its parameters
+     * @throws IllegalStateException if the table name was empty
+     */
+    public PreparedCommand compile() {
+        try {
+            return compiled();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+
+    private PreparedCommand compiled() throws SQLException {
+        if (table == null) {
+            throw new SQLException("No table defined");
+        }
+        return new PreparedCommand(table, createStatement(), values.keySet().toArray(new Column[0]));
+    }
+
+    /**
+     * @return the statement to run and its values
+     */
+    List<InList.Chunk<PreparedCommand>> chunks() throws SQLException {
+        return List.of(new InList.Chunk<>(compiled(), values.values().toArray()));
     }
 
     /**
      * Builds the PreparedStatement and sets the necessary values for any where clauses
      *
      * @param connection connection to the db to perform this statement on
-     * @return a prepared statement that can be executed
+     * @return the generated key of the inserted row, empty if nothing was inserted
      * @throws SQLException if the table name was empty or an error occurred performing the query
      */
     public OptionalLong execute(final Connection connection) throws SQLException {
+        return compiled().executeForKey(connection, values.values().toArray());
+    }
+
+    /**
+     * Runs {@link #execute(Connection)} on the default executor (see {@link Async#defaultExecutor()}) with a
+     * connection from the DataSource. The statement is built from the state of this builder when this is called.
+     *
+     * @param dataSource where to get a connection from. The connection is closed once the statement is done
+     * @return future of the result, completed exceptionally with the SQLException if the statement fails
+     */
+    public CompletableFuture<OptionalLong> executeAsync(final DataSource dataSource) {
+        return executeAsync(dataSource, Async.defaultExecutor());
+    }
+
+    /**
+     * Runs {@link #execute(Connection)} on the executor with a connection from the DataSource. The statement is
+     * built from the state of this builder when this is called.
+     *
+     * @param dataSource where to get a connection from. The connection is closed once the statement is done
+     * @param executor runs the statement
+     * @return future of the result, completed exceptionally with the SQLException if the statement fails
+     */
+    public CompletableFuture<OptionalLong> executeAsync(final DataSource dataSource, final Executor executor) {
+        try {
+            return compiled().executeForKeyAsync(dataSource, executor, values.values().toArray());
+        } catch (SQLException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Inserts every row added with {@link #addRow()}, plus a final row of any values set since, using the
+     * configured {@link BatchMode}. Once inserted the rows are cleared, so the builder can collect the next batch.
+     *
+     * @param connection connection to the db to perform this statement on
+     * @return the generated keys of the inserted rows, in the order the driver returned them
+     * @throws SQLException if the table name was empty, a row has more columns than {@link #maxParameters(int)}
+     * allows in {@link BatchMode#MULTI_ROW}, or an error occurred performing the query
+     */
+    public long[] executeBatch(final Connection connection) throws SQLException {
         if (table == null) {
             throw new SQLException("No table defined");
         }
-        final PreparedStatement statement = connection.prepareStatement(createStatement(), Statement.RETURN_GENERATED_KEYS);
-        int index = 1;
-        for (Map.Entry<Column, Object> p : values.entrySet()) {
-            statement.setObject(index++, p.getValue(), p.getKey().getType());
-        }
-        final int rows = statement.executeUpdate();
-        if (rows > 0) {
-            try (final ResultSet generatedKeys = statement.getGeneratedKeys()) {
-                if (generatedKeys.next()) {
-                    return OptionalLong.of(generatedKeys.getLong(1));
+        return batch.run(values, new long[0], (rowColumns, rows, batchSize) -> batchMode == BatchMode.MULTI_ROW
+                ? executeMultiRow(connection, rowColumns, rows)
+                : new PreparedCommand(table, createStatement(Arrays.asList(rowColumns), 1), rowColumns)
+                        .executeBatchForKeys(connection, rows, batchSize));
+    }
+
+    private long[] executeMultiRow(final Connection connection, final Column[] rowColumns, final List<Object[]> rows)
+            throws SQLException {
+        final int rowsPerStatement = batch.rowsPerStatement(maxParameters);
+        final List<Column> columns = Arrays.asList(rowColumns);
+        final LongList keys = new LongList(rows.size());
+        final long started = ExecutionListeners.start();
+        StatementCache.Lease lease = null;
+        int leaseRows = 0;
+        // reported as the statement run, since every chunk but the last shares it
+        final String firstSql = createStatement(columns, Math.min(rowsPerStatement, rows.size()));
+        try {
+            for (int start = 0; start < rows.size(); start += rowsPerStatement) {
+                final int count = Math.min(rowsPerStatement, rows.size() - start);
+                if (count != leaseRows) {
+                    // only the last chunk can be a different size
+                    if (lease != null) {
+                        lease.close();
+                    }
+                    final String sql = createStatement(columns, count);
+                    final long prepareStart = ExecutionListeners.start();
+                    lease = Statements.prepare(connection, sql, true);
+                    ExecutionListeners.end(table, KIND, Phase.PREPARE, prepareStart, 0);
+                    leaseRows = count;
+                }
+                final long bindStart = ExecutionListeners.start();
+                for (int i = 0; i < count; i++) {
+                    Statements.bind(lease.statement(), i * rowColumns.length, rowColumns, rows.get(start + i));
                 }
+                ExecutionListeners.end(table, KIND, Phase.BIND, bindStart, 0);
+                final long executeStart = ExecutionListeners.start();
+                final int inserted = lease.statement().executeUpdate();
+                ExecutionListeners.end(table, KIND, Phase.EXECUTE, executeStart, inserted);
+                Statements.readGeneratedKeys(lease.statement(), keys);
+            }
+            ExecutionListeners.statement(table, KIND, firstSql, rowColumns, null, started, rows.size());
+        } catch (SQLException e) {
+            ExecutionListeners.failed(table, KIND, firstSql, rowColumns, null, started, e);
+            throw e;
+        } finally {
+            QueryCache.invalidate(table);
+            if (lease != null) {
+                lease.close();
             }
         }
-        return OptionalLong.empty();
+        return keys.toArray();
     }
 }
-
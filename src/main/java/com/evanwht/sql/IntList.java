@@ -0,0 +1,23 @@
+package com.evanwht.sql;
+
+/**
+ * Growable array of primitive ints.
+ *
+ * @author evanwht1@gmail.com
+ */
+final class IntList extends PrimitiveList<int[]> {
+
+    IntList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    IntList(final int capacity) {
+        super(capacity, int[]::new);
+    }
+
+    void add(final int value) {
+        // the index first, as adding may grow the array
+        final int index = nextIndex();
+        values[index] = value;
+    }
+}
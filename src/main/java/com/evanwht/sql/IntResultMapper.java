@@ -0,0 +1,15 @@
+package com.evanwht.sql;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps a row of a ResultSet to a primitive int, so that reading ints never boxes them.
+ * {@link SelectBuilder#getInts(java.sql.Connection, IntResultMapper)}
+ *
+ * @author evanwht1@gmail.com
+ */
+@FunctionalInterface
+public interface IntResultMapper {
+    int map(final ResultSet rs) throws SQLException;
+}
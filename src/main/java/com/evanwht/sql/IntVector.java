@@ -0,0 +1,53 @@
+package com.evanwht.sql;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/**
+ * A {@link ColumnVector} of primitive ints.
+ *
+ * @author evanwht1@gmail.com
+ */
+public final class IntVector extends ColumnVector {
+
+    private int[] values;
+
+    IntVector(final String name, final int type, final int capacity) {
+        super(name, type);
+        this.values = new int[Math.max(capacity, 1)];
+    }
+
+    @Override
+    void read(final ResultSet resultSet, final int columnIndex) throws SQLException {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size] = resultSet.getInt(columnIndex);
+        if (resultSet.wasNull()) {
+            setNull(size);
+        }
+        size++;
+    }
+
+    @Override
+    void complete() {
+        values = Arrays.copyOf(values, size);
+    }
+
+    @Override
+    public int getInt(final int row) {
+        checkRow(row);
+        return values[row];
+    }
+
+    @Override
+    public long getLong(final int row) {
+        return getInt(row);
+    }
+
+    @Override
+    public Object getObject(final int row) {
+        return isNull(row) ? null : getInt(row);
+    }
+}
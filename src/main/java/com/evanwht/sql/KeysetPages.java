@@ -0,0 +1,120 @@
+package com.evanwht.sql;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterates over the pages of a query using keyset pagination. The first page is read with
+ * {@code ORDER BY key LIMIT ?} and every following page with {@code key > ? ORDER BY key LIMIT ?}, using the key of
+ * the last row of the previous page. Unlike OFFSET, every page costs the same for the db to find.
+ * <p>
+ * A page is only read once {@link #hasNext()} or {@link #next()} is called. Iteration ends after the first page
+ * with fewer rows than the page size.
+ *
+ * @author evanwht1@gmail.com
+ */
+final class KeysetPages<T> implements Iterator<List<T>> {
+
+    private final Connection connection;
+    private final PreparedQuery<T> first;
+    private final PreparedQuery<T> next;
+    private final ResultMapper<T> resultMapper;
+    private final String key;
+    private final int pageSize;
+    private final Object[] args;
+    private Object lastKey;
+    private List<T> page;
+    private boolean started;
+    private boolean done;
+
+    /**
+     * @param first query for the first page, taking args then the page size
+     * @param next query for every following page, taking args, the last key, then the page size
+     * @param key label of the key column in the result set
+     * @param args values of the other parameters of the queries, in bind order
+     */
+    KeysetPages(final Connection connection, final PreparedQuery<T> first, final PreparedQuery<T> next,
+                final ResultMapper<T> resultMapper, final String key, final int pageSize, final Object[] args) {
+        this.connection = connection;
+        this.first = first.mappedBy(new KeyMapper());
+        this.next = next.mappedBy(new KeyMapper());
+        this.resultMapper = resultMapper;
+        this.key = key;
+        this.pageSize = pageSize;
+        this.args = args;
+    }
+
+    /**
+     * Remembers the key of every row it maps.
+     */
+    private final class KeyMapper implements ResultMapper<T> {
+
+        @Override
+        public T map(final ResultSet rs) throws SQLException {
+            return bind(rs).map(rs);
+        }
+
+        @Override
+        public ResultMapper<T> bind(final ResultSet rs) throws SQLException {
+            final ResultMapper<T> bound = resultMapper.bind(rs);
+            return row -> {
+                lastKey = row.getObject(key);
+                return bound.map(row);
+            };
+        }
+    }
+
+    /**
+     * @return true if there is another page with at least one row
+     * @throws UncheckedSQLException if an error occurred reading the page
+     */
+    @Override
+    public boolean hasNext() {
+        if (page == null && !done) {
+            try {
+                page = fetch();
+            } catch (SQLException e) {
+                done = true;
+                throw new UncheckedSQLException(e);
+            }
+            if (page.size() < pageSize) {
+                done = true;
+            }
+            if (page.isEmpty()) {
+                page = null;
+            }
+        }
+        return page != null;
+    }
+
+    /**
+     * @return the next page of mapped rows. Never empty
+     * @throws UncheckedSQLException if an error occurred reading the page
+     */
+    @Override
+    public List<T> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        final List<T> current = page;
+        page = null;
+        return current;
+    }
+
+    private List<T> fetch() throws SQLException {
+        final Object[] values = Arrays.copyOf(args, args.length + 2);
+        if (!started) {
+            started = true;
+            values[args.length] = pageSize;
+            return first.getMany(connection, Arrays.copyOf(values, args.length + 1));
+        }
+        values[args.length] = lastKey;
+        values[args.length + 1] = pageSize;
+        return next.getMany(connection, values);
+    }
+}
@@ -11,6 +11,7 @@ class Keywords {
     static final String UPDATE = "UPDATE ";
     static final String INSERT = "INSERT ";
     static final String DELETE = "DELETE ";
+    static final String MERGE = "MERGE ";
     static final String SET = "SET";
     static final String FROM = "FROM";
     static final String INTO = "INTO";
@@ -18,5 +19,7 @@ class Keywords {
     static final String WHERE = "WHERE";
     static final String GROUP_BY = "GROUP BY";
     static final String ORDER_BY = "ORDER BY";
+    static final String LIMIT = "LIMIT";
+    static final String OFFSET = "OFFSET";
 
 }
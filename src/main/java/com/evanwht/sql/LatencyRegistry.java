@@ -0,0 +1,109 @@
+package com.evanwht.sql;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+/**
+ * {@link ExecutionListener} that records the time of every phase in a {@link LatencyHistogram} per table, kind of
+ * statement and phase, e.g. to export the p99 of running SELECTs against a table.
+ * <pre>{@code
+ * LatencyRegistry latencies = new LatencyRegistry();
+ * ExecutionListeners.register(latencies);
+ * ...
+ * latencies.histogram("my_table", "SELECT", Phase.EXECUTE).getValueAtPercentile(99);
+ * }</pre>
+ *
+ * @author evanwht1@gmail.com
+ */
+public final class LatencyRegistry implements ExecutionListener {
+
+    private final Map<Key, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    @Override
+    public void onPhase(final String table, final String kind, final Phase phase, final long elapsedNanos, final int rows) {
+        final Key key = new Key(table, kind, phase);
+        LatencyHistogram histogram = histograms.get(key);
+        if (histogram == null) {
+            histogram = histograms.computeIfAbsent(key, k -> new LatencyHistogram());
+        }
+        histogram.record(elapsedNanos);
+    }
+
+    /**
+     * @param table name of a table
+     * @param kind kind of statement: SELECT, INSERT, UPDATE, DELETE or MERGE
+     * @param phase a phase of running a statement
+     * @return the latencies of the phase of statements of the kind run against the table. Empty if there are none
+     */
+    public LatencyHistogram histogram(final String table, final String kind, final Phase phase) {
+        final LatencyHistogram histogram = histograms.get(new Key(table, kind, phase));
+        return histogram == null ? new LatencyHistogram() : histogram;
+    }
+
+    /**
+     * Calls the consumer with every table, kind and phase that has been recorded.
+     *
+     * @param consumer called with a description of the table, kind and phase, like {@code my_table SELECT EXECUTE},
+     * and its histogram
+     */
+    public void forEach(final BiConsumer<String, LatencyHistogram> consumer) {
+        histograms.forEach((key, histogram) -> consumer.accept(key.toString(), histogram));
+    }
+
+    /**
+     * @return every recorded histogram, keyed like {@link #forEach(BiConsumer)}
+     */
+    public Map<String, LatencyHistogram> getHistograms() {
+        final Map<String, LatencyHistogram> all = new TreeMap<>();
+        forEach(all::put);
+        return Collections.unmodifiableMap(all);
+    }
+
+    /**
+     * Removes every histogram.
+     */
+    public void clear() {
+        histograms.clear();
+    }
+
+    private static final class Key {
+
+        private final String table;
+        private final String kind;
+        private final Phase phase;
+        private final int hash;
+
+        private Key(final String table, final String kind, final Phase phase) {
+            this.table = table;
+            this.kind = kind;
+            this.phase = phase;
+            this.hash = (31 * Objects.hashCode(table) + Objects.hashCode(kind)) * 31 + phase.ordinal();
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) o;
+            return phase == other.phase && Objects.equals(table, other.table) && Objects.equals(kind, other.kind);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public String toString() {
+            return table + " " + kind + " " + phase;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.evanwht.sql;
+
+/**
+ * Growable array of primitive longs.
+ *
+ * @author evanwht1@gmail.com
+ */
+final class LongList extends PrimitiveList<long[]> {
+
+    LongList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    LongList(final int capacity) {
+        super(capacity, long[]::new);
+    }
+
+    void add(final long value) {
+        // the index first, as adding may grow the array
+        final int index = nextIndex();
+        values[index] = value;
+    }
+}
@@ -0,0 +1,15 @@
+package com.evanwht.sql;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps a row of a ResultSet to a primitive long, so that reading longs never boxes them.
+ * {@link SelectBuilder#getLongs(java.sql.Connection, LongResultMapper)}
+ *
+ * @author evanwht1@gmail.com
+ */
+@FunctionalInterface
+public interface LongResultMapper {
+    long map(final ResultSet rs) throws SQLException;
+}
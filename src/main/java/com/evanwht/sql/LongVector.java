@@ -0,0 +1,48 @@
+package com.evanwht.sql;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/**
+ * A {@link ColumnVector} of primitive longs.
+ *
+ * @author evanwht1@gmail.com
+ */
+public final class LongVector extends ColumnVector {
+
+    private long[] values;
+
+    LongVector(final String name, final int type, final int capacity) {
+        super(name, type);
+        this.values = new long[Math.max(capacity, 1)];
+    }
+
+    @Override
+    void read(final ResultSet resultSet, final int columnIndex) throws SQLException {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size] = resultSet.getLong(columnIndex);
+        if (resultSet.wasNull()) {
+            setNull(size);
+        }
+        size++;
+    }
+
+    @Override
+    void complete() {
+        values = Arrays.copyOf(values, size);
+    }
+
+    @Override
+    public long getLong(final int row) {
+        checkRow(row);
+        return values[row];
+    }
+
+    @Override
+    public Object getObject(final int row) {
+        return isNull(row) ? null : getLong(row);
+    }
+}
@@ -0,0 +1,25 @@
+package com.evanwht.sql;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a class or record to be processed by the simple-sql-builder-processor annotation processor. For a type
+ * named {@code Pojo} the processor generates, in the same package:
+ * <ul>
+ *     <li>{@code PojoColumns}, an enum implementing {@link Column} with a constant for every mapped field</li>
+ *     <li>{@code PojoResultMapper}, a {@link ResultMapper} that reads every column by index without reflection</li>
+ * </ul>
+ * Nested types have the names of their enclosing types prepended, e.g. {@code Outer_PojoResultMapper}.
+ * {@link SelectBuilder#SelectBuilder(Class)} uses the generated mapper whenever it is on the classpath.
+ *
+ * @author evanwht1@gmail.com
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface Mapped {
+}
@@ -0,0 +1,43 @@
+package com.evanwht.sql;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/**
+ * A {@link ColumnVector} for any type without a more compact representation, e.g. decimals, dates and arrays.
+ *
+ * @author evanwht1@gmail.com
+ */
+public final class ObjectVector extends ColumnVector {
+
+    private Object[] values;
+
+    ObjectVector(final String name, final int type, final int capacity) {
+        super(name, type);
+        this.values = new Object[Math.max(capacity, 1)];
+    }
+
+    @Override
+    void read(final ResultSet resultSet, final int columnIndex) throws SQLException {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size] = resultSet.getObject(columnIndex);
+        if (values[size] == null) {
+            setNull(size);
+        }
+        size++;
+    }
+
+    @Override
+    void complete() {
+        values = Arrays.copyOf(values, size);
+    }
+
+    @Override
+    public Object getObject(final int row) {
+        checkRow(row);
+        return values[row];
+    }
+}
@@ -0,0 +1,33 @@
+package com.evanwht.sql;
+
+import java.sql.Types;
+
+/**
+ * Parameters of the LIMIT and OFFSET clauses of a SELECT query. Binding them as parameters instead of rendering
+ * their values lets every page of a query share one statement.
+ *
+ * @author evanwht1@gmail.com
+ */
+enum Paging implements Column {
+
+    LIMIT("LIMIT", Types.INTEGER),
+    OFFSET("OFFSET", Types.INTEGER);
+
+    private final String name;
+    private final int type;
+
+    Paging(final String name, final int type) {
+        this.name = name;
+        this.type = type;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public int getType() {
+        return type;
+    }
+}
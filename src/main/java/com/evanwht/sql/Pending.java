@@ -0,0 +1,96 @@
+package com.evanwht.sql;
+
+import java.sql.SQLException;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.OptionalLong;
+
+/**
+ * The result of a statement queued in a {@link Session}, available once the session has flushed it.
+ * <p>
+ * The Pending of an insert can be used as the value of a column of a later statement of the same session, e.g.
+ * the foreign key of a child row. It is replaced by the key generated for the insert when the later statement
+ * runs, and the later statement is never moved ahead of the insert.
+ *
+ * @author evanwht1@gmail.com
+ */
+public final class Pending {
+
+    private boolean done;
+    private int count;
+    private boolean hasKey;
+    private long key;
+    private SQLException failure;
+
+    Pending() {
+    }
+
+    void completed(final int rows) {
+        count += rows;
+        done = true;
+    }
+
+    void failed(final SQLException failure) {
+        this.failure = failure;
+        done = true;
+    }
+
+    void generated(final long key) {
+        this.key = key;
+        this.hasKey = true;
+    }
+
+    /**
+     * @return true if the statement has run, or won't because its flush failed
+     */
+    public boolean isDone() {
+        return done;
+    }
+
+    /**
+     * @return true if the statement failed, or was discarded because a statement flushed before it failed
+     */
+    public boolean isFailed() {
+        return failure != null;
+    }
+
+    /**
+     * @return why the statement didn't complete, empty if it did or hasn't run yet
+     */
+    public Optional<SQLException> getFailure() {
+        return Optional.ofNullable(failure);
+    }
+
+    /**
+     * @return the number of rows changed, as reported by the driver, empty if none were
+     * @throws IllegalStateException if the statement hasn't run yet or failed
+     */
+    public OptionalInt getCount() {
+        checkDone();
+        return count > 0 ? OptionalInt.of(count) : OptionalInt.empty();
+    }
+
+    /**
+     * @return the key generated for the inserted row, empty if the statement isn't an insert or the driver
+     * returned no key for it
+     * @throws IllegalStateException if the statement hasn't run yet or failed
+     */
+    public OptionalLong getKey() {
+        checkDone();
+        return hasKey ? OptionalLong.of(key) : OptionalLong.empty();
+    }
+
+    private void checkDone() {
+        if (!done) {
+            throw new IllegalStateException("The session hasn't flushed this statement yet");
+        }
+        if (failure != null) {
+            throw new IllegalStateException("The statement didn't complete", failure);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return !done ? "pending" : failure != null ? "failed" : hasKey ? "key=" + key : "count=" + count;
+    }
+}
@@ -0,0 +1,34 @@
+package com.evanwht.sql;
+
+/**
+ * The steps of running a statement, reported to {@link ExecutionListener}s.
+ *
+ * @author evanwht1@gmail.com
+ */
+public enum Phase {
+
+    /**
+     * Building the sql of a statement, or looking it up in the {@link SqlCache}.
+     */
+    RENDER,
+
+    /**
+     * Getting a PreparedStatement from the connection or a {@link StatementCache}.
+     */
+    PREPARE,
+
+    /**
+     * Setting the values of the parameters of a statement.
+     */
+    BIND,
+
+    /**
+     * Running the statement on the db, up to the first row of a query or the update count of a write.
+     */
+    EXECUTE,
+
+    /**
+     * Reading and mapping the rows of a query.
+     */
+    MAP
+}
@@ -0,0 +1,279 @@
+package com.evanwht.sql;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.OptionalInt;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * An immutable INSERT, UPDATE, or DELETE statement created by the {@code compile()} method of one of the write
+ * builders. The sql is rendered once, so a compiled command can be stored in a static final field and run
+ * concurrently from any number of threads by supplying only the values for its parameters.
+ * <p>
+ * Running a command invalidates the results of its table in every {@link QueryCache}.
+ *
+ * @author evanwht1@gmail.com
+ */
+public final class PreparedCommand {
+
+    private final String table;
+    private final String sql;
+    private final Column[] parameters;
+    private final String kind;
+
+    PreparedCommand(final String table, final String sql, final Column[] parameters) {
+        this.table = table;
+        this.sql = sql;
+        this.parameters = parameters;
+        this.kind = sql.substring(0, sql.indexOf(' '));
+    }
+
+    /**
+     * @return name of the table this command changes
+     */
+    public String getTable() {
+        return table;
+    }
+
+    /**
+     * @return the sql this command runs
+     */
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * @return the columns each parameter of the command sets or is compared to, in bind order
+     */
+    public List<Column> getParameters() {
+        return List.of(parameters);
+    }
+
+    /**
+     * Runs the command.
+     *
+     * @param connection connection to the db to perform this statement on
+     * @param args values for the parameters of the command, in bind order
+     * @return the number of rows changed, empty if none were
+     * @throws SQLException if the wrong number of values was supplied or an error occurred performing the statement
+     */
+    public OptionalInt execute(final Connection connection, final Object... args) throws SQLException {
+        final long started = ExecutionListeners.start();
+        try (final StatementCache.Lease lease = prepare(connection, false)) {
+            bind(lease.statement(), args);
+            final long start = ExecutionListeners.start();
+            final int rows = lease.statement().executeUpdate();
+            ExecutionListeners.end(table, kind, Phase.EXECUTE, start, rows);
+            executed(started, args, rows);
+            return rows > 0 ? OptionalInt.of(rows) : OptionalInt.empty();
+        } catch (SQLException e) {
+            failed(started, args, e);
+            throw e;
+        } finally {
+            QueryCache.invalidate(table);
+        }
+    }
+
+    /**
+     * Runs the command and returns the first key generated by the db. Meant for commands compiled from an
+     * {@link InsertBuilder}.
+     *
+     * @param connection connection to the db to perform this statement on
+     * @param args values for the parameters of the command, in bind order
+     * @return the generated key of the inserted row, empty if nothing was inserted
+     * @throws SQLException if the wrong number of values was supplied or an error occurred performing the statement
+     */
+    public OptionalLong executeForKey(final Connection connection, final Object... args) throws SQLException {
+        final long started = ExecutionListeners.start();
+        try (final StatementCache.Lease lease = prepare(connection, true)) {
+            final PreparedStatement statement = lease.statement();
+            bind(statement, args);
+            final long start = ExecutionListeners.start();
+            final int rows = statement.executeUpdate();
+            ExecutionListeners.end(table, kind, Phase.EXECUTE, start, rows);
+            executed(started, args, rows);
+            if (rows > 0) {
+                try (final ResultSet generatedKeys = statement.getGeneratedKeys()) {
+                    if (generatedKeys.next()) {
+                        return OptionalLong.of(generatedKeys.getLong(1));
+                    }
+                }
+            }
+            return OptionalLong.empty();
+        } catch (SQLException e) {
+            failed(started, args, e);
+            throw e;
+        } finally {
+            QueryCache.invalidate(table);
+        }
+    }
+
+    /**
+     * Runs {@link #execute(Connection, Object...)} on the executor with a connection from the DataSource.
+     *
+     * @param dataSource where to get a connection from. The connection is closed once the command is done
+     * @param executor runs the command, e.g. {@link Async#defaultExecutor()}
+     * @param args values for the parameters of the command, in bind order
+     * @return future of the number of rows changed, completed exceptionally with the SQLException if the command fails
+     */
+    public CompletableFuture<OptionalInt> executeAsync(final DataSource dataSource, final Executor executor, final Object... args) {
+        return Async.run(dataSource, executor, connection -> execute(connection, args));
+    }
+
+    /**
+     * Runs {@link #executeForKey(Connection, Object...)} on the executor with a connection from the DataSource.
+     *
+     * @param dataSource where to get a connection from. The connection is closed once the command is done
+     * @param executor runs the command, e.g. {@link Async#defaultExecutor()}
+     * @param args values for the parameters of the command, in bind order
+     * @return future of the generated key, completed exceptionally with the SQLException if the command fails
+     */
+    public CompletableFuture<OptionalLong> executeForKeyAsync(final DataSource dataSource, final Executor executor, final Object... args) {
+        return Async.run(dataSource, executor, connection -> executeForKey(connection, args));
+    }
+
+    /**
+     * Runs the command once for every row of values using JDBC batches, sending at most batchSize rows per round
+     * trip.
+     *
+     * @param connection connection to the db to perform this statement on
+     * @param rows values for the parameters of the command, one array per execution, in bind order
+     * @param batchSize maximum number of rows sent to the db at once
+     * @return the number of rows changed by each execution, as reported by the driver
+     * @throws SQLException if the wrong number of values was supplied or an error occurred performing the statement
+     */
+    public int[] executeBatch(final Connection connection, final List<Object[]> rows, final int batchSize) throws SQLException {
+        checkBatchSize(batchSize);
+        final long started = ExecutionListeners.start();
+        try {
+            final int[] counts = new int[rows.size()];
+            try (final StatementCache.Lease lease = prepare(connection, false)) {
+                final PreparedStatement statement = lease.statement();
+                for (int start = 0; start < rows.size(); start += batchSize) {
+                    final int end = Math.min(start + batchSize, rows.size());
+                    addBatch(statement, rows, start, end);
+                    final long executeStart = ExecutionListeners.start();
+                    final int[] batchCounts = statement.executeBatch();
+                    ExecutionListeners.end(table, kind, Phase.EXECUTE, executeStart, end - start);
+                    System.arraycopy(batchCounts, 0, counts, start, Math.min(batchCounts.length, end - start));
+                }
+            }
+            executed(started, null, rows.size());
+            return counts;
+        } catch (SQLException e) {
+            failed(started, null, e);
+            throw e;
+        } finally {
+            QueryCache.invalidate(table);
+        }
+    }
+
+    /**
+     * Runs the command once for every row of values using JDBC batches, sending at most batchSize rows per round
+     * trip, and returns the keys generated by the db. Meant for commands compiled from an {@link InsertBuilder}.
+     *
+     * @param connection connection to the db to perform this statement on
+     * @param rows values for the parameters of the command, one array per execution, in bind order
+     * @param batchSize maximum number of rows sent to the db at once
+     * @return the generated keys of the inserted rows, in the order the driver returned them
+     * @throws SQLException if the wrong number of values was supplied or an error occurred performing the statement
+     */
+    public long[] executeBatchForKeys(final Connection connection, final List<Object[]> rows, final int batchSize) throws SQLException {
+        return executeBatchForKeys(connection, rows, batchSize, null);
+    }
+
+    /**
+     * Same as {@link #executeBatchForKeys(Connection, List, int)}, also reporting the number of rows changed by each
+     * execution.
+     *
+     * @param counts filled with the number of rows changed by each execution, as reported by the driver. Must have
+     *               room for every row. Null if not needed
+     */
+    long[] executeBatchForKeys(final Connection connection, final List<Object[]> rows, final int batchSize,
+                               final int[] counts) throws SQLException {
+        checkBatchSize(batchSize);
+        final long started = ExecutionListeners.start();
+        try {
+            final LongList keys = new LongList(rows.size());
+            try (final StatementCache.Lease lease = prepare(connection, true)) {
+                final PreparedStatement statement = lease.statement();
+                for (int start = 0; start < rows.size(); start += batchSize) {
+                    final int end = Math.min(start + batchSize, rows.size());
+                    addBatch(statement, rows, start, end);
+                    final long executeStart = ExecutionListeners.start();
+                    final int[] batchCounts = statement.executeBatch();
+                    ExecutionListeners.end(table, kind, Phase.EXECUTE, executeStart, end - start);
+                    if (counts != null) {
+                        System.arraycopy(batchCounts, 0, counts, start, Math.min(batchCounts.length, end - start));
+                    }
+                    Statements.readGeneratedKeys(statement, keys);
+                }
+            }
+            executed(started, null, rows.size());
+            return keys.toArray();
+        } catch (SQLException e) {
+            failed(started, null, e);
+            throw e;
+        } finally {
+            QueryCache.invalidate(table);
+        }
+    }
+
+    private StatementCache.Lease prepare(final Connection connection, final boolean generatedKeys) throws SQLException {
+        final long start = ExecutionListeners.start();
+        final StatementCache.Lease lease = Statements.prepare(connection, sql, generatedKeys);
+        ExecutionListeners.end(table, kind, Phase.PREPARE, start, 0);
+        return lease;
+    }
+
+    private void bind(final PreparedStatement statement, final Object[] args) throws SQLException {
+        final long start = ExecutionListeners.start();
+        Statements.bind(statement, parameters, args);
+        ExecutionListeners.end(table, kind, Phase.BIND, start, 0);
+    }
+
+    private void addBatch(final PreparedStatement statement, final List<Object[]> rows, final int start, final int end) throws SQLException {
+        final long started = ExecutionListeners.start();
+        for (int i = start; i < end; i++) {
+            Statements.bind(statement, parameters, rows.get(i));
+            statement.addBatch();
+        }
+        ExecutionListeners.end(table, kind, Phase.BIND, started, 0);
+    }
+
+    /**
+     * Reports a run of this command that started at the value returned by {@link ExecutionListeners#start()} and
+     * failed.
+     *
+     * @param args the bound values, or null for a batch
+     */
+    private void failed(final long start, final Object[] args, final SQLException failure) {
+        ExecutionListeners.failed(table, kind, sql, parameters, args, start, failure);
+    }
+
+    /**
+     * Reports a run of this command that started at the value returned by {@link ExecutionListeners#start()}.
+     *
+     * @param args the bound values, or null for a batch
+     */
+    private void executed(final long start, final Object[] args, final int rows) {
+        ExecutionListeners.statement(table, kind, sql, parameters, args, start, rows);
+    }
+
+    private static void checkBatchSize(final int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return sql;
+    }
+}
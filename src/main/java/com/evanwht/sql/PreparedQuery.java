@@ -0,0 +1,543 @@
+package com.evanwht.sql;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * An immutable SELECT query created by {@link SelectBuilder#compile()}. The sql is rendered once, so a compiled
+ * query can be stored in a static final field and run concurrently from any number of threads by supplying only
+ * the values for its parameters.
+ * <p>
+ * Statements are closed once their results have been mapped, or reused if the connection was wrapped by a
+ * {@link StatementCache}. Queries that return the ResultSet itself (see {@link SelectBuilder#resultSetSelector()})
+ * leave the statement open until the returned ResultSet is closed.
+ *
+ * @author evanwht1@gmail.com
+ */
+public final class PreparedQuery<T> {
+
+    private static final String KIND = "SELECT";
+
+    private static final LongResultMapper FIRST_LONG = rs -> rs.getLong(1);
+    private static final IntResultMapper FIRST_INT = rs -> rs.getInt(1);
+    private static final DoubleResultMapper FIRST_DOUBLE = rs -> rs.getDouble(1);
+
+    private final String table;
+    private final String sql;
+    private final Column[] columns;
+    private final Column[] parameters;
+    private final ResultMapper<T> resultMapper;
+    private final boolean returnsResultSet;
+    private final int fetchSize;
+    private final QueryCache queryCache;
+
+    PreparedQuery(final String table, final String sql, final Column[] columns, final Column[] parameters,
+                  final ResultMapper<T> resultMapper, final boolean returnsResultSet, final int fetchSize) {
+        this(table, sql, columns, parameters, resultMapper, returnsResultSet, fetchSize, null);
+    }
+
+    private PreparedQuery(final String table, final String sql, final Column[] columns, final Column[] parameters,
+                          final ResultMapper<T> resultMapper, final boolean returnsResultSet, final int fetchSize,
+                          final QueryCache queryCache) {
+        this.table = table;
+        this.sql = sql;
+        this.columns = columns;
+        this.parameters = parameters;
+        this.resultMapper = resultMapper;
+        this.returnsResultSet = returnsResultSet;
+        this.fetchSize = fetchSize;
+        this.queryCache = queryCache;
+    }
+
+    /**
+     * Caches the results of {@link #getOne(Connection, Object...)} and {@link #getMany(Connection, Object...)} for
+     * each set of parameter values. Results are shared between callers, so they must not be modified. Queries that
+     * return the ResultSet itself are never cached.
+     *
+     * @param queryCache the cache to keep results in. Null disables caching
+     * @return a copy of this query that caches its results
+     */
+    public PreparedQuery<T> withCache(final QueryCache queryCache) {
+        return new PreparedQuery<>(table, sql, columns, parameters, resultMapper, returnsResultSet, fetchSize, queryCache);
+    }
+
+    /**
+     * @return name of the table this query pulls data from
+     */
+    public String getTable() {
+        return table;
+    }
+
+    /**
+     * @return the sql this query runs
+     */
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * @return the columns this query selects, in order. Empty if it selects every column
+     */
+    public List<Column> getColumns() {
+        return List.of(columns);
+    }
+
+    /**
+     * @return the columns each parameter of the query is compared to, in bind order
+     */
+    public List<Column> getParameters() {
+        return List.of(parameters);
+    }
+
+    /**
+     * @param resultMapper maps the rows of the query
+     * @return this query with a different mapper
+     */
+    PreparedQuery<T> mappedBy(final ResultMapper<T> resultMapper) {
+        return new PreparedQuery<>(table, sql, columns, parameters, resultMapper, false, fetchSize, null);
+    }
+
+    /**
+     * Gets a PreparedStatement for this query and sets the values for its parameters.
+     *
+     * @param connection connection to the db to perform this query on
+     * @param args values for the parameters of the query, in bind order
+     * @param maxRows maximum number of rows the driver should return, 0 for no limit
+     * @return a lease on a prepared statement that can be executed
+     * @throws SQLException if the wrong number of values was supplied or an error occurred preparing the query
+     */
+    private StatementCache.Lease prepare(final Connection connection, final Object[] args, final int maxRows) throws SQLException {
+        long start = ExecutionListeners.start();
+        final StatementCache.Lease lease = returnsResultSet
+                ? StatementCache.Lease.uncached(StatementCache.prepare(connection, sql, false))
+                : Statements.prepare(connection, sql, false);
+        boolean prepared = false;
+        try {
+            ExecutionListeners.end(table, KIND, Phase.PREPARE, start, 0);
+            start = ExecutionListeners.start();
+            final PreparedStatement statement = lease.statement();
+            // cached statements keep the settings of their last execution, so always reset them
+            if (fetchSize > 0 || lease.isCached()) {
+                statement.setFetchSize(fetchSize);
+            }
+            if (maxRows > 0 || lease.isCached()) {
+                statement.setMaxRows(maxRows);
+            }
+            Statements.bind(statement, parameters, args);
+            ExecutionListeners.end(table, KIND, Phase.BIND, start, 0);
+            prepared = true;
+            return lease;
+        } finally {
+            if (!prepared) {
+                lease.close();
+            }
+        }
+    }
+
+    private ResultSet execute(final PreparedStatement statement) throws SQLException {
+        final long start = ExecutionListeners.start();
+        final ResultSet resultSet = statement.executeQuery();
+        ExecutionListeners.end(table, KIND, Phase.EXECUTE, start, 0);
+        return resultSet;
+    }
+
+    /**
+     * Gets the first row returned from the db and maps it to the desired object. The driver is told to return at
+     * most one row, so any other rows are never sent.
+     *
+     * @param connection connection to the db to perform this query on
+     * @param args values for the parameters of the query, in bind order
+     * @return Optional wrapped mapped object
+     * @throws SQLException if the wrong number of values was supplied or an error occurred performing the query
+     */
+    public Optional<T> getOne(final Connection connection, final Object... args) throws SQLException {
+        if (queryCache != null && !returnsResultSet) {
+            return queryCache.get(table, new QueryCache.Key(sql, "one", resultMapper, args), () -> readOne(connection, args));
+        }
+        return readOne(connection, args);
+    }
+
+    private Optional<T> readOne(final Connection connection, final Object[] args) throws SQLException {
+        final long start = ExecutionListeners.start();
+        final Optional<T> row;
+        try {
+            if (returnsResultSet) {
+                final PreparedStatement statement = prepare(connection, args, 1).statement();
+                statement.closeOnCompletion();
+                final ResultSet resultSet = execute(statement);
+                row = mapFirst(resultSet);
+                if (row.isEmpty()) {
+                    resultSet.close();
+                }
+            } else {
+                try (final StatementCache.Lease lease = prepare(connection, args, 1);
+                     final ResultSet resultSet = execute(lease.statement())) {
+                    row = mapFirst(resultSet);
+                }
+            }
+        } catch (SQLException e) {
+            failed(start, args, e);
+            throw e;
+        }
+        executed(start, args, row.isPresent() ? 1 : 0);
+        return row;
+    }
+
+    /**
+     * Retrieves and maps rows returned from the db.
+     *
+     * @param connection connection to the db to perform this query on
+     * @param args values for the parameters of the query, in bind order
+     * @return List of mapped objects. Never null
+     * @throws SQLException if the wrong number of values was supplied or an error occurred performing the query
+     */
+    public List<T> getMany(final Connection connection, final Object... args) throws SQLException {
+        if (queryCache != null && !returnsResultSet) {
+            return queryCache.get(table, new QueryCache.Key(sql, "many", resultMapper, args),
+                                  () -> Collections.unmodifiableList(readMany(connection, args)));
+        }
+        return readMany(connection, args);
+    }
+
+    private List<T> readMany(final Connection connection, final Object[] args) throws SQLException {
+        final long start = ExecutionListeners.start();
+        final List<T> rows;
+        try {
+            if (returnsResultSet) {
+                final PreparedStatement statement = prepare(connection, args, 0).statement();
+                statement.closeOnCompletion();
+                rows = mapAll(execute(statement));
+            } else {
+                try (final StatementCache.Lease lease = prepare(connection, args, 0);
+                     final ResultSet resultSet = execute(lease.statement())) {
+                    rows = mapAll(resultSet);
+                }
+            }
+        } catch (SQLException e) {
+            failed(start, args, e);
+            throw e;
+        }
+        executed(start, args, rows.size());
+        return rows;
+    }
+
+    /**
+     * Runs {@link #getOne(Connection, Object...)} on the executor with a connection from the DataSource.
+     *
+     * @param dataSource where to get a connection from. The connection is closed once the query is done
+     * @param executor runs the query, e.g. {@link Async#defaultExecutor()}
+     * @param args values for the parameters of the query, in bind order
+     * @return future of the mapped row, completed exceptionally with the SQLException if the query fails
+     */
+    public CompletableFuture<Optional<T>> getOneAsync(final DataSource dataSource, final Executor executor, final Object... args) {
+        return Async.run(dataSource, executor, connection -> getOne(connection, args));
+    }
+
+    /**
+     * Runs {@link #getMany(Connection, Object...)} on the executor with a connection from the DataSource.
+     *
+     * @param dataSource where to get a connection from. The connection is closed once the query is done
+     * @param executor runs the query, e.g. {@link Async#defaultExecutor()}
+     * @param args values for the parameters of the query, in bind order
+     * @return future of the mapped rows, completed exceptionally with the SQLException if the query fails
+     */
+    public CompletableFuture<List<T>> getManyAsync(final DataSource dataSource, final Executor executor, final Object... args) {
+        return Async.run(dataSource, executor, connection -> getMany(connection, args));
+    }
+
+    /**
+     * Reads the first column of every row as a long, without boxing. SQL NULLs are read as 0.
+     *
+     * @param connection connection to the db to perform this query on
+     * @param args values for the parameters of the query, in bind order
+     * @return the value of every row, in order. Never null
+     * @throws SQLException if the wrong number of values was supplied or an error occurred performing the query
+     */
+    public long[] getLongs(final Connection connection, final Object... args) throws SQLException {
+        return getLongs(connection, FIRST_LONG, args);
+    }
+
+    /**
+     * Maps every row to a long, without boxing.
+     *
+     * @param connection connection to the db to perform this query on
+     * @param mapper maps a row to a long
+     * @param args values for the parameters of the query, in bind order
+     * @return the mapped value of every row, in order. Never null
+     * @throws SQLException if the wrong number of values was supplied or an error occurred performing the query
+     */
+    public long[] getLongs(final Connection connection, final LongResultMapper mapper, final Object... args) throws SQLException {
+        return readAll(connection, args, new LongList(), (values, resultSet) -> values.add(mapper.map(resultSet)));
+    }
+
+    /**
+     * Reads the first column of every row as a int, without boxing. SQL NULLs are read as 0.
+     *
+     * @param connection connection to the db to perform this query on
+     * @param args values for the parameters of the query, in bind order
+     * @return the value of every row, in order. Never null
+     * @throws SQLException if the wrong number of values was supplied or an error occurred performing the query
+     */
+    public int[] getInts(final Connection connection, final Object... args) throws SQLException {
+        return getInts(connection, FIRST_INT, args);
+    }
+
+    /**
+     * Maps every row to a int, without boxing.
+     *
+     * @param connection connection to the db to perform this query on
+     * @param mapper maps a row to a int
+     * @param args values for the parameters of the query, in bind order
+     * @return the mapped value of every row, in order. Never null
+     * @throws SQLException if the wrong number of values was supplied or an error occurred performing the query
+     */
+    public int[] getInts(final Connection connection, final IntResultMapper mapper, final Object... args) throws SQLException {
+        return readAll(connection, args, new IntList(), (values, resultSet) -> values.add(mapper.map(resultSet)));
+    }
+
+    /**
+     * Reads the first column of every row as a double, without boxing. SQL NULLs are read as 0.
+     *
+     * @param connection connection to the db to perform this query on
+     * @param args values for the parameters of the query, in bind order
+     * @return the value of every row, in order. Never null
+     * @throws SQLException if the wrong number of values was supplied or an error occurred performing the query
+     */
+    public double[] getDoubles(final Connection connection, final Object... args) throws SQLException {
+        return getDoubles(connection, FIRST_DOUBLE, args);
+    }
+
+    /**
+     * Maps every row to a double, without boxing.
+     *
+     * @param connection connection to the db to perform this query on
+     * @param mapper maps a row to a double
+     * @param args values for the parameters of the query, in bind order
+     * @return the mapped value of every row, in order. Never null
+     * @throws SQLException if the wrong number of values was supplied or an error occurred performing the query
+     */
+    public double[] getDoubles(final Connection connection, final DoubleResultMapper mapper, final Object... args) throws SQLException {
+        return readAll(connection, args, new DoubleList(), (values, resultSet) -> values.add(mapper.map(resultSet)));
+    }
+
+    /**
+     * Runs the query and adds every row to a list of primitives, without boxing.
+     *
+     * @param values the list to add to
+     * @param sink adds the value of the current row to the list
+     * @return the values of every row, in order
+     */
+    private <A, L extends PrimitiveList<A>> A readAll(final Connection connection, final Object[] args, final L values,
+                                                      final RowSink<L> sink) throws SQLException {
+        final long started = ExecutionListeners.start();
+        final A rows;
+        try (final StatementCache.Lease lease = prepare(connection, args, 0);
+             final ResultSet resultSet = execute(lease.statement())) {
+            final long start = ExecutionListeners.start();
+            while (resultSet.next()) {
+                sink.add(values, resultSet);
+            }
+            ExecutionListeners.end(table, KIND, Phase.MAP, start, values.size());
+            rows = values.toArray();
+        } catch (SQLException e) {
+            failed(started, args, e);
+            throw e;
+        }
+        executed(started, args, values.size());
+        return rows;
+    }
+
+    /**
+     * Adds the value of the current row of a ResultSet to a list of primitives.
+     */
+    @FunctionalInterface
+    private interface RowSink<L> {
+        void add(L values, ResultSet resultSet) throws SQLException;
+    }
+
+    /**
+     * Reads every row into a columnar batch, typed by the selected columns, or by the types reported by the driver
+     * if the query selects every column.
+     *
+     * @param connection connection to the db to perform this query on
+     * @param args values for the parameters of the query, in bind order
+     * @return the rows of the query, by column. Never null
+     * @throws SQLException if the wrong number of values was supplied or an error occurred performing the query
+     */
+    public ColumnarBatch getColumnar(final Connection connection, final Object... args) throws SQLException {
+        final long started = ExecutionListeners.start();
+        final ColumnarBatch batch;
+        try (final StatementCache.Lease lease = prepare(connection, args, 0);
+             final ResultSet resultSet = execute(lease.statement())) {
+            final long start = ExecutionListeners.start();
+            batch = ColumnarBatch.read(resultSet, columns, fetchSize);
+            ExecutionListeners.end(table, KIND, Phase.MAP, start, batch.size());
+        } catch (SQLException e) {
+            failed(started, args, e);
+            throw e;
+        }
+        executed(started, args, batch.size());
+        return batch;
+    }
+
+    /**
+     * Runs the query and returns an iterator that maps rows lazily as they are pulled. The iterator must be
+     * closed if it isn't read to the end. Since the caller decides when the query is done, lazily read queries are
+     * not reported to {@link ExecutionListener#onStatement(ExecutedStatement)}. Their {@link Phase#MAP} is reported
+     * once the iterator is closed, with the time spent mapping every row read.
+     *
+     * @param connection connection to the db to perform this query on
+     * @param args values for the parameters of the query, in bind order
+     * @return iterator over the mapped rows
+     * @throws SQLException if the wrong number of values was supplied or an error occurred performing the query
+     */
+    public ResultIterator<T> iterator(final Connection connection, final Object... args) throws SQLException {
+        final StatementCache.Lease lease = prepare(connection, args, 0);
+        ResultIterator<T> iterator = null;
+        try {
+            iterator = new ResultIterator<>(table, KIND, lease, execute(lease.statement()), resultMapper);
+            return iterator;
+        } finally {
+            if (iterator == null) {
+                lease.close();
+            }
+        }
+    }
+
+    /**
+     * Runs the query and returns a stream that maps rows lazily as they are consumed. The stream must be closed,
+     * e.g. with try-with-resources, if it isn't consumed to the end.
+     *
+     * @param connection connection to the db to perform this query on
+     * @param args values for the parameters of the query, in bind order
+     * @return stream of the mapped rows
+     * @throws SQLException if the wrong number of values was supplied or an error occurred performing the query
+     */
+    public Stream<T> stream(final Connection connection, final Object... args) throws SQLException {
+        final ResultIterator<T> iterator = iterator(connection, args);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false)
+                            .onClose(() -> {
+                                try {
+                                    iterator.close();
+                                } catch (SQLException e) {
+                                    throw new UncheckedSQLException(e);
+                                }
+                            });
+    }
+
+    /**
+     * Runs the query and hands every mapped row to the action as it is read.
+     *
+     * @param connection connection to the db to perform this query on
+     * @param action called with every mapped row
+     * @param args values for the parameters of the query, in bind order
+     * @throws SQLException if the wrong number of values was supplied or an error occurred performing the query
+     */
+    public void forEach(final Connection connection, final Consumer<? super T> action, final Object... args) throws SQLException {
+        final long started = ExecutionListeners.start();
+        int rows = 0;
+        try (final StatementCache.Lease lease = prepare(connection, args, 0);
+             final ResultSet resultSet = execute(lease.statement())) {
+            final long start = ExecutionListeners.start();
+            ResultMapper<T> mapper = null;
+            while (resultSet.next()) {
+                if (mapper == null) {
+                    mapper = resultMapper.bind(resultSet);
+                }
+                action.accept(mapper.map(resultSet));
+                rows++;
+            }
+            ExecutionListeners.end(table, KIND, Phase.MAP, start, rows);
+        } catch (SQLException e) {
+            failed(started, args, e);
+            throw e;
+        }
+        executed(started, args, rows);
+    }
+
+    /**
+     * Runs the query and visits every row through one reused {@link Row}, without mapping rows to objects.
+     *
+     * @param connection connection to the db to perform this query on
+     * @param visitor called with every row
+     * @param args values for the parameters of the query, in bind order
+     * @return number of rows visited
+     * @throws SQLException if the wrong number of values was supplied or an error occurred performing the query
+     */
+    public int forEachRow(final Connection connection, final RowVisitor visitor, final Object... args) throws SQLException {
+        final long started = ExecutionListeners.start();
+        int rows = 0;
+        try (final StatementCache.Lease lease = prepare(connection, args, 0);
+             final ResultSet resultSet = execute(lease.statement())) {
+            final long start = ExecutionListeners.start();
+            final Row row = new Row(resultSet, columns);
+            while (resultSet.next()) {
+                visitor.visit(row);
+                rows++;
+            }
+            ExecutionListeners.end(table, KIND, Phase.MAP, start, rows);
+        } catch (SQLException e) {
+            failed(started, args, e);
+            throw e;
+        }
+        executed(started, args, rows);
+        return rows;
+    }
+
+    /**
+     * Reports a run of this query that started at the value returned by {@link ExecutionListeners#start()} and
+     * failed.
+     */
+    private void failed(final long start, final Object[] args, final SQLException failure) {
+        ExecutionListeners.failed(table, KIND, sql, parameters, args, start, failure);
+    }
+
+    /**
+     * Reports a run of this query that started at the value returned by {@link ExecutionListeners#start()}.
+     */
+    private void executed(final long start, final Object[] args, final int rows) {
+        ExecutionListeners.statement(table, KIND, sql, parameters, args, start, rows);
+    }
+
+    private Optional<T> mapFirst(final ResultSet resultSet) throws SQLException {
+        final long start = ExecutionListeners.start();
+        final Optional<T> row = resultSet.next()
+                ? Optional.of(resultMapper.bind(resultSet).map(resultSet))
+                : Optional.empty();
+        ExecutionListeners.end(table, KIND, Phase.MAP, start, row.isPresent() ? 1 : 0);
+        return row;
+    }
+
+    private List<T> mapAll(final ResultSet resultSet) throws SQLException {
+        final long start = ExecutionListeners.start();
+        final List<T> list = new ArrayList<>();
+        ResultMapper<T> mapper = null;
+        while (resultSet.next()) {
+            if (mapper == null) {
+                mapper = resultMapper.bind(resultSet);
+            }
+            list.add(mapper.map(resultSet));
+        }
+        ExecutionListeners.end(table, KIND, Phase.MAP, start, list.size());
+        return list;
+    }
+
+    @Override
+    public String toString() {
+        return sql;
+    }
+}
@@ -0,0 +1,62 @@
+package com.evanwht.sql;
+
+import java.util.function.IntFunction;
+
+/**
+ * Growth and bounds of a growable array of primitives. Subclasses add values of their primitive type.
+ *
+ * @param <A> the primitive array type, e.g. {@code long[]}
+ * @author evanwht1@gmail.com
+ */
+abstract class PrimitiveList<A> {
+
+    // some VMs reserve header words in an array
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+    static final int DEFAULT_CAPACITY = 16;
+
+    private final IntFunction<A> newArray;
+    A values;
+    private int capacity;
+    private int size;
+
+    PrimitiveList(final int capacity, final IntFunction<A> newArray) {
+        this.newArray = newArray;
+        this.capacity = Math.min(Math.max(capacity, 1), MAX_CAPACITY);
+        this.values = newArray.apply(this.capacity);
+    }
+
+    /**
+     * Makes room for one more value, growing {@link #values} if it is full. Callers must read {@link #values} after
+     * calling this, since growing replaces the array.
+     *
+     * @return index to store the next value at
+     * @throws IllegalStateException if the list can't grow any more
+     */
+    final int nextIndex() {
+        if (size == capacity) {
+            if (capacity == MAX_CAPACITY) {
+                throw new IllegalStateException("Can't hold more than " + MAX_CAPACITY + " values");
+            }
+            capacity = capacity > MAX_CAPACITY / 2 ? MAX_CAPACITY : capacity * 2;
+            values = copy(capacity);
+        }
+        return size++;
+    }
+
+    final int size() {
+        return size;
+    }
+
+    /**
+     * @return a copy of the values added, sized to fit them
+     */
+    final A toArray() {
+        return copy(size);
+    }
+
+    private A copy(final int length) {
+        final A copy = newArray.apply(length);
+        System.arraycopy(values, 0, copy, 0, size);
+        return copy;
+    }
+}
@@ -0,0 +1,286 @@
+package com.evanwht.sql;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Opt-in cache of mapped query results, keyed by the sql, the values of its parameters and the {@link ResultMapper}
+ * (see {@link SelectBuilder#cache(QueryCache)} and {@link PreparedQuery#withCache(QueryCache)}). Meant for hot,
+ * rarely changing lookup tables.
+ * <p>
+ * Entries are dropped once they are older than the time to live, and the least recently used entry is dropped once
+ * the cache is full. Every INSERT, UPDATE and DELETE run through this library invalidates the cached results of its
+ * table, in every cache. Writes made any other way, or committed after the cache was read again within the same
+ * transaction, must be signalled with {@link #invalidate(String)}. Tables are matched by the exact name given to
+ * {@code table(...)}.
+ * <p>
+ * Concurrent misses on the same key are collapsed: one caller runs the query while the others wait for its result.
+ * Cached results are shared between callers, so they must not be modified.
+ *
+ * @author evanwht1@gmail.com
+ */
+public final class QueryCache {
+
+    /**
+     * Version of every table written to since the first cache was created. Results loaded at an older version are
+     * stale.
+     */
+    private static final Map<String, AtomicLong> GENERATIONS = new ConcurrentHashMap<>();
+    private static volatile boolean active;
+
+    private final int maxSize;
+    private final long timeToLiveNanos;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param maxSize maximum number of results to keep
+     */
+    public QueryCache(final int maxSize) {
+        this(maxSize, Duration.ZERO);
+    }
+
+    /**
+     * @param maxSize maximum number of results to keep
+     * @param timeToLive how long a result is kept after it was loaded. Zero keeps results until they are evicted
+     * or invalidated
+     */
+    public QueryCache(final int maxSize, final Duration timeToLive) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        if (timeToLive.isNegative()) {
+            throw new IllegalArgumentException("timeToLive must not be negative");
+        }
+        this.maxSize = maxSize;
+        this.timeToLiveNanos = timeToLive.toNanos();
+        active = true;
+    }
+
+    /**
+     * Invalidates the cached results of a table in every cache. Called by the library whenever it writes to a
+     * table.
+     *
+     * @param table name of the table that changed
+     */
+    public static void invalidate(final String table) {
+        if (active && table != null) {
+            GENERATIONS.computeIfAbsent(table, t -> new AtomicLong()).incrementAndGet();
+        }
+    }
+
+    private static long generation(final String table) {
+        final AtomicLong generation = GENERATIONS.get(table);
+        return generation == null ? 0 : generation.get();
+    }
+
+    /**
+     * Loads something that can be cached.
+     */
+    @FunctionalInterface
+    interface Loader<R> {
+        R load() throws SQLException;
+    }
+
+    /**
+     * Gets a cached result, loading it if there is no fresh one. Concurrent callers of the same key share a
+     * single load.
+     *
+     * @param table the table the result is read from
+     * @param key identifies the result
+     * @param loader loads the result on a miss
+     * @return the result
+     * @throws SQLException if the load failed
+     */
+    @SuppressWarnings("unchecked")
+    <R> R get(final String table, final Key key, final Loader<R> loader) throws SQLException {
+        final long generation = generation(table);
+        final Entry entry;
+        final boolean owner;
+        synchronized (this) {
+            final Entry cached = entries.get(key);
+            if (cached != null && cached.isFresh(generation, System.nanoTime())) {
+                hits.increment();
+                entry = cached;
+                owner = false;
+            } else {
+                misses.increment();
+                entry = new Entry(generation, timeToLiveNanos == 0 ? Long.MAX_VALUE : System.nanoTime() + timeToLiveNanos);
+                entries.put(key, entry);
+                evictIfFull();
+                owner = true;
+            }
+        }
+        if (!owner) {
+            return (R) await(entry.value);
+        }
+        // loaded outside the lock, so other keys aren't blocked by the query
+        try {
+            final R value = loader.load();
+            entry.value.complete(value);
+            return value;
+        } catch (SQLException | RuntimeException | Error e) {
+            synchronized (this) {
+                entries.remove(key, entry);
+            }
+            entry.value.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private void evictIfFull() {
+        final Iterator<Entry> eldest = entries.values().iterator();
+        while (entries.size() > maxSize && eldest.hasNext()) {
+            eldest.next();
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    private static Object await(final CompletableFuture<Object> value) throws SQLException {
+        try {
+            return value.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted waiting for a cached query", e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new SQLException(cause);
+        }
+    }
+
+    /**
+     * @return maximum number of results kept
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * @return number of results currently cached, including stale ones that haven't been dropped yet
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return number of queries that were served from the cache
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return number of queries that had to be run
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return number of results removed to make room for new ones
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return fraction of queries that were served from the cache, 0 if there have been none
+     */
+    public double getHitRate() {
+        final long h = getHits();
+        final long total = h + getMisses();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    /**
+     * Removes all cached results and resets the counters.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        hits.reset();
+        misses.reset();
+        evictions.reset();
+    }
+
+    /**
+     * A result, or the load of one that is still running.
+     */
+    private static final class Entry {
+
+        private final CompletableFuture<Object> value = new CompletableFuture<>();
+        private final long generation;
+        private final long expiresAt;
+
+        private Entry(final long generation, final long expiresAt) {
+            this.generation = generation;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isFresh(final long currentGeneration, final long now) {
+            return generation == currentGeneration && now - expiresAt < 0 && !value.isCompletedExceptionally();
+        }
+    }
+
+    /**
+     * Identifies a result: the sql that produced it, how it was read, the mapper and the values of the parameters.
+     */
+    static final class Key {
+
+        private final String sql;
+        private final String terminal;
+        private final Object mapper;
+        private final Object[] args;
+        private final int hash;
+
+        Key(final String sql, final String terminal, final Object mapper, final Object[] args) {
+            this.sql = sql;
+            this.terminal = terminal;
+            this.mapper = mapper;
+            this.args = args.clone();
+            this.hash = Objects.hash(sql, terminal, mapper) * 31 + Arrays.deepHashCode(this.args);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) o;
+            return hash == other.hash
+                    && sql.equals(other.sql)
+                    && terminal.equals(other.terminal)
+                    && mapper.equals(other.mapper)
+                    && Arrays.deepEquals(args, other.args);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package com.evanwht.sql;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link ExecutionListener} that aggregates every statement by its shape: the sql with a ? for every value, identified
+ * by its {@link ExecutedStatement#fingerprint(String) fingerprint}. Shows which statements are run the most or take
+ * the most time in total.
+ * <pre>{@code
+ * QueryStats stats = new QueryStats();
+ * ExecutionListeners.register(stats);
+ * ...
+ * System.out.println(stats.dump(10));
+ * }</pre>
+ *
+ * @author evanwht1@gmail.com
+ */
+public final class QueryStats implements ExecutionListener {
+
+    /**
+     * Default number of distinct shapes to track.
+     */
+    public static final int DEFAULT_MAX_SHAPES = 1000;
+
+    private static final Comparator<Shape> BY_TOTAL_TIME = Comparator.comparingLong(Shape::getTotalNanos).reversed();
+
+    private final int maxShapes;
+    private final Map<String, Totals> shapes = new ConcurrentHashMap<>();
+    private final LongAdder dropped = new LongAdder();
+
+    /**
+     * Tracks at most {@link #DEFAULT_MAX_SHAPES} shapes.
+     */
+    public QueryStats() {
+        this(DEFAULT_MAX_SHAPES);
+    }
+
+    /**
+     * @param maxShapes maximum number of distinct shapes to track. Statements of any other shape are only counted
+     *                  by {@link #getDropped()}
+     */
+    public QueryStats(final int maxShapes) {
+        if (maxShapes < 1) {
+            throw new IllegalArgumentException("maxShapes must be positive");
+        }
+        this.maxShapes = maxShapes;
+    }
+
+    @Override
+    public void onStatement(final ExecutedStatement statement) {
+        Totals totals = shapes.get(statement.getSql());
+        if (totals == null) {
+            if (shapes.size() >= maxShapes) {
+                dropped.increment();
+                return;
+            }
+            totals = shapes.computeIfAbsent(statement.getSql(), sql -> new Totals(statement));
+        }
+        totals.add(statement);
+    }
+
+    /**
+     * @param sql sql of a statement
+     * @return totals of every run of the statement, if it has run
+     */
+    public Optional<Shape> get(final String sql) {
+        final Totals totals = shapes.get(sql);
+        return totals == null ? Optional.empty() : Optional.of(totals.snapshot());
+    }
+
+    /**
+     * @param n maximum number of shapes to return
+     * @return the shapes that took the most time in total, slowest first
+     */
+    public List<Shape> getTop(final int n) {
+        return getTop(n, BY_TOTAL_TIME);
+    }
+
+    /**
+     * @param n maximum number of shapes to return
+     * @param order order of the shapes, e.g. {@code Comparator.comparingLong(Shape::getCount).reversed()}
+     * @return the first n shapes in the order
+     */
+    public List<Shape> getTop(final int n, final Comparator<Shape> order) {
+        final List<Shape> all = new ArrayList<>(shapes.size());
+        shapes.values().forEach(totals -> all.add(totals.snapshot()));
+        all.sort(order);
+        return all.size() > n ? List.copyOf(all.subList(0, n)) : List.copyOf(all);
+    }
+
+    /**
+     * @param n maximum number of shapes to describe
+     * @return one line for each of the shapes that took the most time in total, slowest first
+     */
+    public String dump(final int n) {
+        final StringBuilder sb = new StringBuilder();
+        for (Shape shape : getTop(n)) {
+            sb.append(shape).append(System.lineSeparator());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return number of statements not tracked because {@code maxShapes} other shapes already were
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * @return number of shapes tracked
+     */
+    public int size() {
+        return shapes.size();
+    }
+
+    /**
+     * Forgets every shape.
+     */
+    public void reset() {
+        shapes.clear();
+        dropped.reset();
+    }
+
+    private static final class Totals {
+
+        private final String fingerprint;
+        private final String table;
+        private final String kind;
+        private final String sql;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        private Totals(final ExecutedStatement statement) {
+            this.fingerprint = statement.getFingerprint();
+            this.table = statement.getTable();
+            this.kind = statement.getKind();
+            this.sql = statement.getSql();
+        }
+
+        private void add(final ExecutedStatement statement) {
+            count.increment();
+            totalNanos.add(statement.getElapsedNanos());
+            rows.add(statement.getRows());
+            if (statement.isFailed()) {
+                failures.increment();
+            }
+            maxNanos.accumulate(statement.getElapsedNanos());
+        }
+
+        private Shape snapshot() {
+            return new Shape(fingerprint, table, kind, sql, count.sum(), totalNanos.sum(), maxNanos.get(), rows.sum(),
+                             failures.sum());
+        }
+    }
+
+    /**
+     * Totals of every run of statements of one shape, as of when it was read.
+     */
+    public static final class Shape {
+
+        private final String fingerprint;
+        private final String table;
+        private final String kind;
+        private final String sql;
+        private final long count;
+        private final long totalNanos;
+        private final long maxNanos;
+        private final long rows;
+        private final long failures;
+
+        private Shape(final String fingerprint, final String table, final String kind, final String sql,
+                      final long count, final long totalNanos, final long maxNanos, final long rows,
+                      final long failures) {
+            this.fingerprint = fingerprint;
+            this.table = table;
+            this.kind = kind;
+            this.sql = sql;
+            this.count = count;
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+            this.rows = rows;
+            this.failures = failures;
+        }
+
+        /**
+         * @return see {@link ExecutedStatement#fingerprint(String)}
+         */
+        public String getFingerprint() {
+            return fingerprint;
+        }
+
+        /**
+         * @return the table the statements ran against
+         */
+        public String getTable() {
+            return table;
+        }
+
+        /**
+         * @return the kind of statement: SELECT, INSERT, UPDATE, DELETE or MERGE
+         */
+        public String getKind() {
+            return kind;
+        }
+
+        /**
+         * @return the sql of the statements
+         */
+        public String getSql() {
+            return sql;
+        }
+
+        /**
+         * @return number of times the statement ran, including the runs that failed
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * @return time spent running the statement, in total
+         */
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        /**
+         * @return the longest a single run took
+         */
+        public long getMaxNanos() {
+            return maxNanos;
+        }
+
+        /**
+         * @return the average time a run took
+         */
+        public long getMeanNanos() {
+            return count == 0 ? 0 : totalNanos / count;
+        }
+
+        /**
+         * @return number of rows read or changed, in total
+         */
+        public long getRows() {
+            return rows;
+        }
+
+        /**
+         * @return number of runs that failed
+         */
+        public long getFailures() {
+            return failures;
+        }
+
+        @Override
+        public String toString() {
+            return fingerprint + " count=" + count + " total=" + totalNanos / 1_000_000 + "ms"
+                    + " mean=" + getMeanNanos() / 1_000 + "us max=" + maxNanos / 1_000 + "us rows=" + rows
+                    + " failures=" + failures + " " + sql;
+        }
+    }
+}
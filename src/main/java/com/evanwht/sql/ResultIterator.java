@@ -0,0 +1,122 @@
+package com.evanwht.sql;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Lazily maps the rows of a query as they are pulled. Only the current row is held in memory, so results of any
+ * size can be read. The ResultSet and statement are closed once the last row has been read, or when the
+ * iterator is closed. The time spent mapping rows is reported as one {@link Phase#MAP} when it is closed.
+ *
+ * @author evanwht1@gmail.com
+ */
+public final class ResultIterator<T> implements Iterator<T>, AutoCloseable {
+
+    private final String table;
+    private final String kind;
+    private final StatementCache.Lease lease;
+    private final ResultSet resultSet;
+    private final ResultMapper<T> resultMapper;
+    private ResultMapper<T> bound;
+    private boolean advanced;
+    private boolean hasNext;
+    private boolean closed;
+    private boolean timed;
+    private long mapNanos;
+    private int rows;
+
+    ResultIterator(final String table, final String kind, final StatementCache.Lease lease, final ResultSet resultSet,
+                   final ResultMapper<T> resultMapper) {
+        this.table = table;
+        this.kind = kind;
+        this.lease = lease;
+        this.resultSet = resultSet;
+        this.resultMapper = resultMapper;
+    }
+
+    /**
+     * @return true if there is another row
+     * @throws UncheckedSQLException if an error occurred reading from the db
+     */
+    @Override
+    public boolean hasNext() {
+        if (closed) {
+            return false;
+        }
+        if (!advanced) {
+            try {
+                hasNext = resultSet.next();
+                advanced = true;
+                if (!hasNext) {
+                    close();
+                }
+            } catch (SQLException e) {
+                closeQuietly(e);
+                throw new UncheckedSQLException(e);
+            }
+        }
+        return hasNext;
+    }
+
+    /**
+     * @return the next mapped row
+     * @throws UncheckedSQLException if an error occurred reading from the db or mapping the row
+     */
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        advanced = false;
+        final long start = ExecutionListeners.start();
+        try {
+            if (bound == null) {
+                bound = resultMapper.bind(resultSet);
+            }
+            final T row = bound.map(resultSet);
+            if (start != ExecutionListeners.DISABLED) {
+                mapNanos += System.nanoTime() - start;
+                timed = true;
+            }
+            rows++;
+            return row;
+        } catch (SQLException e) {
+            closeQuietly(e);
+            throw new UncheckedSQLException(e);
+        }
+    }
+
+    /**
+     * Closes the ResultSet and returns the statement to its cache, or closes it if it isn't cached.
+     *
+     * @throws SQLException if the ResultSet or statement could not be closed
+     */
+    @Override
+    public void close() throws SQLException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (timed) {
+                ExecutionListeners.phase(table, kind, Phase.MAP, mapNanos, rows);
+            }
+        } finally {
+            try {
+                resultSet.close();
+            } finally {
+                lease.close();
+            }
+        }
+    }
+
+    private void closeQuietly(final SQLException cause) {
+        try {
+            close();
+        } catch (SQLException e) {
+            cause.addSuppressed(e);
+        }
+    }
+}
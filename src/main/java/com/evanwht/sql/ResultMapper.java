@@ -14,5 +14,19 @@ import java.sql.SQLException;
 @FunctionalInterface
 public interface ResultMapper<T> {
     T map(final ResultSet rs) throws SQLException;
+
+    /**
+     * Prepares to map the rows of one ResultSet, e.g. by resolving the index of every column read from the
+     * ResultSet's metadata. Every query of this library calls this once, before mapping its first row, and maps
+     * every row of that ResultSet with the returned mapper. Mappers may be shared by queries running at once, so
+     * anything resolved belongs in the returned mapper, never in this one.
+     *
+     * @param rs the ResultSet whose rows are about to be mapped
+     * @return a mapper for the rows of this ResultSet only. This mapper if nothing needs resolving
+     * @throws SQLException if an error occurred reading the ResultSet's metadata
+     */
+    default ResultMapper<T> bind(final ResultSet rs) throws SQLException {
+        return this;
+    }
 }
 
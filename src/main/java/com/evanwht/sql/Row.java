@@ -0,0 +1,132 @@
+package com.evanwht.sql;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+
+/**
+ * The current row of a query visited by a {@link RowVisitor}. One Row is created per query and moved over every
+ * row, so it must not be kept once {@link RowVisitor#visit(Row)} returns.
+ * <p>
+ * Values are read by {@link Column}, through the index {@link BoundColumns} resolved for it once per query.
+ * Reading a primitive never boxes it.
+ *
+ * @author evanwht1@gmail.com
+ */
+public final class Row {
+
+    private final ResultSet resultSet;
+    private final BoundColumns columns;
+
+    /**
+     * @param resultSet the result the row moves over
+     * @param selected the columns the query selects, in order. Empty if the query selects every column
+     */
+    Row(final ResultSet resultSet, final Column[] selected) {
+        this.resultSet = resultSet;
+        this.columns = new BoundColumns(resultSet, selected);
+    }
+
+    /**
+     * @param column a column of the result
+     * @return the value of the column, 0 if it is SQL NULL
+     * @throws SQLException if the result has no such column or an error occurred reading it
+     */
+    public long getLong(final Column column) throws SQLException {
+        return resultSet.getLong(columns.indexOf(column));
+    }
+
+    /**
+     * @param column a column of the result
+     * @return the value of the column, 0 if it is SQL NULL
+     * @throws SQLException if the result has no such column or an error occurred reading it
+     */
+    public int getInt(final Column column) throws SQLException {
+        return resultSet.getInt(columns.indexOf(column));
+    }
+
+    /**
+     * @param column a column of the result
+     * @return the value of the column, 0 if it is SQL NULL
+     * @throws SQLException if the result has no such column or an error occurred reading it
+     */
+    public double getDouble(final Column column) throws SQLException {
+        return resultSet.getDouble(columns.indexOf(column));
+    }
+
+    /**
+     * @param column a column of the result
+     * @return the value of the column, false if it is SQL NULL
+     * @throws SQLException if the result has no such column or an error occurred reading it
+     */
+    public boolean getBoolean(final Column column) throws SQLException {
+        return resultSet.getBoolean(columns.indexOf(column));
+    }
+
+    /**
+     * @param column a column of the result
+     * @return the value of the column, or null
+     * @throws SQLException if the result has no such column or an error occurred reading it
+     */
+    public String getString(final Column column) throws SQLException {
+        return resultSet.getString(columns.indexOf(column));
+    }
+
+    /**
+     * @param column a column of the result
+     * @return the value of the column, or null
+     * @throws SQLException if the result has no such column or an error occurred reading it
+     */
+    public BigDecimal getBigDecimal(final Column column) throws SQLException {
+        return resultSet.getBigDecimal(columns.indexOf(column));
+    }
+
+    /**
+     * @param column a column of the result
+     * @return the value of the column, or null
+     * @throws SQLException if the result has no such column or an error occurred reading it
+     */
+    public Timestamp getTimestamp(final Column column) throws SQLException {
+        return resultSet.getTimestamp(columns.indexOf(column));
+    }
+
+    /**
+     * @param column a column of the result
+     * @return the value of the column as the driver returns it, or null
+     * @throws SQLException if the result has no such column or an error occurred reading it
+     */
+    public Object getObject(final Column column) throws SQLException {
+        return resultSet.getObject(columns.indexOf(column));
+    }
+
+    /**
+     * @param column a column of the result
+     * @return true if the value of the column is SQL NULL. Checked with the getter for the column's type, so only
+     * columns of other types are read as objects
+     * @throws SQLException if the result has no such column or an error occurred reading it
+     */
+    public boolean isNull(final Column column) throws SQLException {
+        final int index = columns.indexOf(column);
+        switch (column.getType()) {
+            case Types.BIGINT -> resultSet.getLong(index);
+            case Types.INTEGER, Types.SMALLINT, Types.TINYINT -> resultSet.getInt(index);
+            case Types.DOUBLE, Types.FLOAT, Types.REAL -> resultSet.getDouble(index);
+            case Types.BIT, Types.BOOLEAN -> resultSet.getBoolean(index);
+            case Types.CHAR, Types.VARCHAR, Types.LONGVARCHAR, Types.NCHAR, Types.NVARCHAR, Types.LONGNVARCHAR ->
+                    resultSet.getString(index);
+            default -> resultSet.getObject(index);
+        }
+        return resultSet.wasNull();
+    }
+
+    /**
+     * @return true if the last value read was SQL NULL. Cheaper than {@link #isNull(Column)} after reading a
+     * primitive
+     * @throws SQLException if an error occurred reading from the db
+     */
+    public boolean wasNull() throws SQLException {
+        return resultSet.wasNull();
+    }
+}
@@ -0,0 +1,106 @@
+package com.evanwht.sql;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rows of values collected for a batch by the builders that set values by column, e.g.
+ * {@link InsertBuilder#addRow()}. Every row sets the same columns in the same order. Once a batch has run its rows
+ * are cleared, so the builder can collect the next one.
+ *
+ * @author evanwht1@gmail.com
+ */
+final class RowBatch {
+
+    private final List<Object[]> rows = new ArrayList<>();
+    private Column[] columns;
+    private int batchSize = Statements.DEFAULT_BATCH_SIZE;
+
+    /**
+     * Adds the values as a row and clears them so the next row can be set.
+     *
+     * @param values the values of the row, by column
+     * @throws IllegalStateException if no values were set or they are for different columns than the first row
+     */
+    void add(final Map<Column, Object> values) {
+        if (values.isEmpty()) {
+            throw new IllegalStateException("No values set for row");
+        }
+        final Column[] rowColumns = values.keySet().toArray(new Column[0]);
+        if (columns == null) {
+            columns = rowColumns;
+        } else if (!Arrays.equals(columns, rowColumns)) {
+            throw new IllegalStateException("Every row must set the same columns, in the same order");
+        }
+        rows.add(values.values().toArray());
+        values.clear();
+    }
+
+    /**
+     * @param batchSize maximum number of rows sent to the db at once
+     * @throws IllegalArgumentException if batchSize isn't positive
+     */
+    void batchSize(final int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * @param maxParameters the driver's limit on parameters in a single statement
+     * @return the most rows a single statement inserting several rows at once can take
+     * @throws SQLException if a single row has more columns than maxParameters
+     */
+    int rowsPerStatement(final int maxParameters) throws SQLException {
+        if (columns.length > maxParameters) {
+            throw new SQLException("A row of " + columns.length + " columns exceeds the limit of " + maxParameters
+                                   + " parameters per statement");
+        }
+        return Math.min(batchSize, maxParameters / columns.length);
+    }
+
+    /**
+     * Adds any values set since the last row as a final row, then runs every row and clears them. If running fails
+     * the rows are kept.
+     *
+     * @param pending values set since the last row, by column
+     * @param empty result if there are no rows to run
+     * @param runner runs the rows
+     * @return result of running the rows
+     * @throws SQLException if the pending values are for different columns than the other rows, or running failed
+     */
+    <R> R run(final Map<Column, Object> pending, final R empty, final Runner<R> runner) throws SQLException {
+        if (!pending.isEmpty()) {
+            try {
+                add(pending);
+            } catch (IllegalStateException e) {
+                throw new SQLException(e.getMessage(), e);
+            }
+        }
+        if (rows.isEmpty()) {
+            return empty;
+        }
+        final R result = runner.run(columns, rows, batchSize);
+        rows.clear();
+        columns = null;
+        return result;
+    }
+
+    /**
+     * Runs the rows of a batch.
+     */
+    @FunctionalInterface
+    interface Runner<R> {
+
+        /**
+         * @param columns the columns every row sets, in order
+         * @param rows the values of every row
+         * @param batchSize maximum number of rows sent to the db at once
+         */
+        R run(Column[] columns, List<Object[]> rows, int batchSize) throws SQLException;
+    }
+}
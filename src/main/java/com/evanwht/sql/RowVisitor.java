@@ -0,0 +1,14 @@
+package com.evanwht.sql;
+
+import java.sql.SQLException;
+
+/**
+ * Visits every row of a query through a single reused {@link Row}, so no object is created per row.
+ * {@link SelectBuilder#forEachRow(java.sql.Connection, RowVisitor)}
+ *
+ * @author evanwht1@gmail.com
+ */
+@FunctionalInterface
+public interface RowVisitor {
+    void visit(final Row row) throws SQLException;
+}
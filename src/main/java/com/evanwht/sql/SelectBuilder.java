@@ -1,20 +1,27 @@
 package com.evanwht.sql;
 
+import javax.sql.DataSource;
+import java.lang.reflect.Array;
 import java.sql.Connection;
-import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.StringJoiner;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
 
 import static com.evanwht.sql.Keywords.FROM;
 import static com.evanwht.sql.Keywords.GROUP_BY;
+import static com.evanwht.sql.Keywords.LIMIT;
+import static com.evanwht.sql.Keywords.OFFSET;
 import static com.evanwht.sql.Keywords.ORDER_BY;
 import static com.evanwht.sql.Keywords.SELECT;
 import static com.evanwht.sql.Keywords.WHERE;
@@ -26,12 +33,23 @@ import static com.evanwht.sql.Keywords.WHERE;
  */
 public class SelectBuilder<T> {
 
+    private static final ResultMapper<ResultSet> RESULT_SET = rs -> rs;
+
     private String table;
-    private final List<String> columns = new ArrayList<>();
+    private final List<Column> columns = new ArrayList<>();
     private final Map<Column, Object> clauses = new LinkedHashMap<>();
-    private final Map<String, OrderType> orders = new HashMap<>();
+    private final Map<String, OrderType> orders = new LinkedHashMap<>();
     private final List<String> groupings = new ArrayList<>();
     private final ResultMapper<T> resultMapper;
+    private final BoundResultMapper<T> boundMapper;
+    private final List<Column> mappedColumns;
+    private boolean selectAll;
+    private int fetchSize;
+    private Integer limit;
+    private Integer offset;
+    private QueryCache queryCache;
+    private InListMode inListMode = InListMode.BUCKETED;
+    private int maxParameters = Statements.DEFAULT_MAX_PARAMETERS;
 
     /**
      * Create a SelectBuilder with a custom {@link ResultMapper}
@@ -40,17 +58,39 @@ public class SelectBuilder<T> {
      */
     public SelectBuilder(final ResultMapper<T> resultMapper) {
         this.resultMapper = resultMapper;
+        this.boundMapper = null;
+        this.mappedColumns = List.of();
+    }
+
+    /**
+     * Create a SelectBuilder with a mapper that reads values by the index of their column. The index of every
+     * selected column is resolved once per ResultSet, before its first row is mapped, instead of the driver looking
+     * up a label for every value.
+     *
+     * @param boundMapper maps the expected output to a desired return type
+     */
+    public SelectBuilder(final BoundResultMapper<T> boundMapper) {
+        this.resultMapper = new BoundMapper<>(boundMapper, new Column[0]);
+        this.boundMapper = boundMapper;
+        this.mappedColumns = List.of();
     }
 
     /**
      * Create a SelectBuilder that will try to map the expected result to the fields in a class.
      * This uses reflection to find class fields that match column names. Columns that have no
-     * matching field are skipped.
+     * matching field are skipped. If the class is annotated with {@link Mapped} and the mapper generated for it
+     * is on the classpath, that mapper is used instead and no reflection is needed.
+     * <p>
+     * Unless columns are selected with {@link #select(Column)}, only the columns the class can be mapped from are
+     * selected: those of its generated {@code Column} enum, or one named after every mappable field or record
+     * component. Use {@link #selectAll()} to select every column of the table instead.
      *
      * @param tClass the class of the desired output objects
      */
     public SelectBuilder(final Class<T> tClass) {
-        this.resultMapper = new ClassResultMapper<>(tClass);
+        this.resultMapper = ClassResultMapper.forClass(tClass);
+        this.boundMapper = null;
+        this.mappedColumns = ClassResultMapper.columnsOf(tClass);
     }
 
     /**
@@ -58,7 +98,7 @@ public class SelectBuilder<T> {
      * @return a new instance of a SelectBuilder that returns a ResultSet
      */
     public static SelectBuilder<ResultSet> resultSetSelector() {
-        return new SelectBuilder<>(rs -> rs);
+        return new SelectBuilder<>(RESULT_SET);
     }
 
     /**
@@ -71,13 +111,25 @@ public class SelectBuilder<T> {
     }
 
     /**
-     * Adds a column to be selected from the db. Never calling this results in all columns being selected.
+     * Adds a column to be selected from the db. Never calling this results in all columns being selected, or
+     * only those of the class rows are mapped to (see {@link #SelectBuilder(Class)}).
      *
      * @param column a {@link Column} representing a column of the table in the db
      * @return the builder this was invoked on
      */
     public SelectBuilder<T> select(final Column column) {
-        this.columns.add(column.getName());
+        this.columns.add(column);
+        return this;
+    }
+
+    /**
+     * Selects every column of the table ({@code SELECT *}) instead of only those of the class rows are mapped to.
+     * Has no effect if columns are selected with {@link #select(Column)}.
+     *
+     * @return the builder this was invoked on
+     */
+    public SelectBuilder<T> selectAll() {
+        this.selectAll = true;
         return this;
     }
 
@@ -93,6 +145,43 @@ public class SelectBuilder<T> {
         return this;
     }
 
+    /**
+     * Adds a clause to the select statement to filter results to rows whose column has any of the values. An empty
+     * collection matches no rows. See {@link #inListMode(InListMode)} for how the values are sent to the db.
+     *
+     * @param column a {@link Column} representing a column of the table in the db
+     * @param values the desired values of the column
+     * @return the builder this was invoked on
+     */
+    public SelectBuilder<T> whereIn(final Column column, final Collection<?> values) {
+        clauses.put(column, InList.of(values));
+        return this;
+    }
+
+    /**
+     * @param inListMode how the values of {@link #whereIn(Column, Collection)} clauses are sent to the db. Defaults
+     *                   to {@link InListMode#BUCKETED}
+     * @return the builder this was invoked on
+     */
+    public SelectBuilder<T> inListMode(final InListMode inListMode) {
+        this.inListMode = inListMode;
+        return this;
+    }
+
+    /**
+     * @param maxParameters the driver's limit on parameters in a single statement. {@link #getOne(Connection)},
+     *                      {@link #getMany(Connection)} and {@link #forEach(Connection, Consumer)} split an IN list
+     *                      that needs more into several queries. Defaults to 32767
+     * @return the builder this was invoked on
+     */
+    public SelectBuilder<T> maxParameters(final int maxParameters) {
+        if (maxParameters < 1) {
+            throw new IllegalArgumentException("maxParameters must be positive");
+        }
+        this.maxParameters = maxParameters;
+        return this;
+    }
+
     /**
      * Adds a column to group the query results by.
      *
@@ -116,6 +205,66 @@ public class SelectBuilder<T> {
         return this;
     }
 
+    /**
+     * Limits the number of rows the query returns. Rendered as {@code LIMIT ?}, which is understood by Postgres,
+     * MySQL, MariaDB, SQLite and H2.
+     *
+     * @param limit maximum number of rows to return
+     * @return the builder this was invoked on
+     */
+    public SelectBuilder<T> limit(final int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("limit must not be negative");
+        }
+        this.limit = limit;
+        return this;
+    }
+
+    /**
+     * Skips rows before returning any. Rendered as {@code OFFSET ?}. The db still has to find every skipped row,
+     * so deep pages get slower; prefer {@link #paginate(Connection, Column, int)} to read a large table page by page.
+     *
+     * @param offset number of rows to skip
+     * @return the builder this was invoked on
+     */
+    public SelectBuilder<T> offset(final int offset) {
+        if (offset < 0) {
+            throw new IllegalArgumentException("offset must not be negative");
+        }
+        this.offset = offset;
+        return this;
+    }
+
+    /**
+     * Caches the results of {@link #getOne(Connection)} and {@link #getMany(Connection)}, keyed by the sql, the
+     * values of the where clauses and the mapper of this builder. Results are reused until they expire or a write
+     * to the table through this library invalidates them. Mappers that are lambdas only share results with
+     * themselves, so reuse a single mapper instance to share results across builders.
+     *
+     * @param queryCache the cache to keep results in. Null disables caching
+     * @return the builder this was invoked on
+     */
+    public SelectBuilder<T> cache(final QueryCache queryCache) {
+        this.queryCache = queryCache;
+        return this;
+    }
+
+    /**
+     * Hints to the driver how many rows to fetch from the db at a time. Setting this lets drivers that support it
+     * stream results with a server side cursor, e.g. with {@link #stream(Connection)}. Some drivers, like Postgres',
+     * only use a cursor when auto commit is off.
+     *
+     * @param fetchSize number of rows to fetch at a time. 0 leaves the driver's default
+     * @return the builder this was invoked on
+     */
+    public SelectBuilder<T> fetchSize(final int fetchSize) {
+        if (fetchSize < 0) {
+            throw new IllegalArgumentException("fetchSize must not be negative");
+        }
+        this.fetchSize = fetchSize;
+        return this;
+    }
+
     /**
      * Builds a SELECT statement for the table, selected columns, and where clauses supplied to this builder.
      * Only be visible for testing.
@@ -123,66 +272,271 @@ public class SelectBuilder<T> {
      * @return SELECT statement
      */
     String createStatement() {
-        final StringJoiner sj = new StringJoiner(" ", SELECT, ";");
-        if (columns.isEmpty()) {
-            sj.add("*");
-        } else {
-            sj.add(String.join(", ", columns));
-        }
-        sj.add(FROM).add(table);
-        if (!clauses.isEmpty()) {
-            sj.add(WHERE)
-              .add(clauses.entrySet().stream()
-                          .map(e -> e.getKey().getName() + (e.getValue() == null ? " IS NULL" : " = ?"))
-                          .collect(Collectors.joining(" AND ")));
-        }
-        if (!groupings.isEmpty()) {
-            sj.add(GROUP_BY)
-                    .add(String.join(", ", groupings));
+        return createStatement(null, false);
+    }
+
+    /**
+     * @param pageKey column to paginate by, or null if the query isn't paginated
+     * @param after whether rows are only returned after a key
+     */
+    private String createStatement(final Column pageKey, final boolean after) {
+        return SqlCache.getInstance().get(statementKey(pageKey, after), () -> renderStatement(pageKey, after));
+    }
+
+    private StatementKey statementKey(final Column pageKey, final boolean after) {
+        final StatementKey.Builder key = StatementKey.builder(SELECT, table);
+        projection().forEach(column -> key.add(column.getName()));
+        key.section();
+        clauses.forEach((column, value) -> key.add(column.getName()).add(InList.shape(value, inListMode)));
+        key.section();
+        groupings.forEach(key::add);
+        key.section();
+        orders.forEach((column, orderType) -> key.add(column).add(orderType));
+        key.section();
+        if (pageKey != null) {
+            key.add(pageKey.getName()).add(after);
         }
-        if (!orders.isEmpty()) {
-            sj.add(ORDER_BY)
-                    .add(orders.entrySet().stream()
-                    .map(e -> e.getKey() + (e.getValue() == null ? "" : " " + e.getValue().name()))
-                    .collect(Collectors.joining(", ")));
+        key.add(limit != null).add(offset != null);
+        return key.build();
+    }
+
+    private String renderStatement(final Column pageKey, final boolean after) {
+        final List<Column> columns = projection();
+        try (final SqlRenderer sql = SqlRenderer.open().append(SELECT)) {
+            if (columns.isEmpty()) {
+                sql.append('*');
+            } else {
+                boolean keySelected = pageKey == null;
+                for (int i = 0; i < columns.size(); i++) {
+                    final String name = columns.get(i).getName();
+                    sql.separate(i, ", ").append(name);
+                    keySelected = keySelected || name.equals(pageKey.getName());
+                }
+                if (!keySelected) {
+                    // the key of the last row is needed for the next page
+                    sql.append(", ").append(pageKey.getName());
+                }
+            }
+            sql.word(FROM).word(table);
+            if (after || !clauses.isEmpty()) {
+                sql.word(WHERE);
+                int i = 0;
+                for (Map.Entry<Column, Object> clause : clauses.entrySet()) {
+                    sql.separate(i++, " AND");
+                    InList.appendCondition(sql, clause.getKey(), clause.getValue(), inListMode);
+                }
+                if (after) {
+                    sql.separate(i, " AND").word(ColumnFragments.of(pageKey).greaterThanParameter());
+                }
+            }
+            if (!groupings.isEmpty()) {
+                sql.word(GROUP_BY).append(' ');
+                for (int i = 0; i < groupings.size(); i++) {
+                    sql.separate(i, ", ").append(groupings.get(i));
+                }
+            }
+            if (pageKey != null) {
+                sql.word(ORDER_BY).word(pageKey.getName());
+            } else if (!orders.isEmpty()) {
+                sql.word(ORDER_BY).append(' ');
+                int i = 0;
+                for (Map.Entry<String, OrderType> order : orders.entrySet()) {
+                    sql.separate(i++, ", ").append(order.getKey());
+                    if (order.getValue() != null) {
+                        sql.append(' ').append(order.getValue().name());
+                    }
+                }
+            }
+            if (pageKey != null || limit != null) {
+                sql.word(LIMIT).word("?");
+            }
+            if (offset != null) {
+                sql.word(OFFSET).word("?");
+            }
+            return sql.finish();
         }
-        return sj.toString();
     }
 
     /**
-     * Builds the PreparedStatement and sets the necessary values for any where clauses
+     * Freezes this builder into an immutable, thread safe query. The parameters of the compiled query are the
+     * non-null where clauses of this builder, in the order they were added. Clauses with a null value are compiled
+     * as IS NULL checks and take no parameter. IN lists take one parameter per value of the list, rounded up to a
+     * power of two, or a single array parameter in {@link InListMode#ARRAY}. If a limit or offset was set, their
+     * values are the last parameters.
      *
-     * @param connection connection to the db to perform this query on
-     * @return a prepared statement that can be executed
-     * @throws SQLException if the table name was empty or an error occurred performing the query
+     * @return a compiled query that can be run with just the values of its parameters
+     * @throws IllegalStateException if the table name was empty or the query has more than maxParameters parameters
      */
-    PreparedStatement prepareStatement(final Connection connection) throws SQLException {
+    public PreparedQuery<T> compile() {
+        try {
+            return compiled();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+
+    private PreparedQuery<T> compiled() throws SQLException {
+        return compiled(null, false);
+    }
+
+    private PreparedQuery<T> compiled(final Column pageKey, final boolean after) throws SQLException {
         if (table == null || table.isEmpty()) {
             throw new SQLException("No table defined");
         }
-        final PreparedStatement statement = connection.prepareStatement(createStatement());
-        int index = 1;
-        for (Map.Entry<Column, Object> p : clauses.entrySet()) {
-            if (p!= null) {
-                statement.setObject(index++, p.getValue(), p.getKey().getType());
+        final List<Column> parameters = new ArrayList<>(clauses.size() + 3);
+        clauses.forEach((column, value) -> InList.addParameters(parameters, column, value, inListMode));
+        if (after) {
+            parameters.add(pageKey);
+        }
+        if (pageKey != null || limit != null) {
+            parameters.add(Paging.LIMIT);
+        }
+        if (offset != null) {
+            parameters.add(Paging.OFFSET);
+        }
+        InList.checkParameters(parameters.size(), maxParameters);
+        return new PreparedQuery<>(table, createStatement(pageKey, after), projection().toArray(new Column[0]),
+                                   parameters.toArray(new Column[0]),
+                                   mapper(), resultMapper == RESULT_SET, fetchSize).withCache(queryCache);
+    }
+
+    /**
+     * @return the selected columns, else the columns of the mapped class unless every column was asked for. Empty
+     * to select every column
+     */
+    private List<Column> projection() {
+        return columns.isEmpty() && !selectAll ? mappedColumns : columns;
+    }
+
+    /**
+     * @return the mapper of the rows, bound to the selected columns if it reads by index
+     */
+    private ResultMapper<T> mapper() {
+        return boundMapper == null ? resultMapper : new BoundMapper<>(boundMapper, projection().toArray(new Column[0]));
+    }
+
+    /**
+     * @return the values of the non-null where clauses, then the limit and offset, in bind order
+     */
+    private Object[] parameterValues() {
+        final List<Object> values = clauseValueList();
+        if (limit != null) {
+            values.add(limit);
+        }
+        if (offset != null) {
+            values.add(offset);
+        }
+        return values.toArray();
+    }
+
+    /**
+     * @return the values of the non-null where clauses, in bind order
+     */
+    private Object[] clauseValues() {
+        return clauseValueList().toArray();
+    }
+
+    private List<Object> clauseValueList() {
+        final List<Object> values = new ArrayList<>(clauses.size() + 2);
+        for (Object value : clauses.values()) {
+            InList.addValues(values, value, inListMode);
+        }
+        return values;
+    }
+
+    /**
+     * @return the queries to run and their values: just one, unless an IN list needs more parameters than
+     * maxParameters
+     */
+    private List<InList.Chunk<PreparedQuery<T>>> chunks() throws SQLException {
+        final int paging = (limit == null ? 0 : 1) + (offset == null ? 0 : 1);
+        final List<InList.Chunk<PreparedQuery<T>>> chunks = InList.chunks(clauses.values(), inListMode, paging, maxParameters,
+                                                                          () -> new InList.Chunk<>(compiled(), parameterValues()));
+        if (chunks.size() > 1 && (paging > 0 || !orders.isEmpty() || !groupings.isEmpty())) {
+            throw new SQLException("An IN list too large for one query can't be split when the query is ordered, "
+                                           + "grouped, limited or offset. Use InListMode.ARRAY");
+        }
+        return chunks;
+    }
+
+    /**
+     * @param terminal name of the method that reads the query, for the error
+     * @return the query to run, if a single one can
+     * @throws SQLException if an IN list needs more parameters than maxParameters, which takes more than one query
+     */
+    private PreparedQuery<T> single(final String terminal) throws SQLException {
+        final List<InList.Chunk<PreparedQuery<T>>> chunks = chunks();
+        if (chunks.size() > 1) {
+            throw new SQLException("An IN list too large for one query can't be read with " + terminal
+                                   + ". Use getMany, forEach or InListMode.ARRAY");
+        }
+        return chunks.get(0).statement;
+    }
+
+    /**
+     * Reads every query needed to run this builder into a primitive array, and joins the arrays in order.
+     */
+    private <A> A readChunks(final ChunkReader<T, A> reader, final IntFunction<A> newArray) throws SQLException {
+        final List<InList.Chunk<PreparedQuery<T>>> chunks = chunks();
+        if (chunks.size() == 1) {
+            return reader.read(chunks.get(0).statement, chunks.get(0).args);
+        }
+        final List<A> parts = new ArrayList<>(chunks.size());
+        int length = 0;
+        for (InList.Chunk<PreparedQuery<T>> chunk : chunks) {
+            final A part = reader.read(chunk.statement, chunk.args);
+            parts.add(part);
+            length += Array.getLength(part);
+        }
+        final A all = newArray.apply(length);
+        int offset = 0;
+        for (A part : parts) {
+            final int partLength = Array.getLength(part);
+            System.arraycopy(part, 0, all, offset, partLength);
+            offset += partLength;
+        }
+        return all;
+    }
+
+    /**
+     * Reads a query into a primitive array.
+     */
+    @FunctionalInterface
+    private interface ChunkReader<T, A> {
+        A read(PreparedQuery<T> query, Object[] args) throws SQLException;
+    }
+
+    private static <T> Optional<T> getOne(final Connection connection, final List<InList.Chunk<PreparedQuery<T>>> chunks) throws SQLException {
+        for (InList.Chunk<PreparedQuery<T>> chunk : chunks) {
+            final Optional<T> row = chunk.statement.getOne(connection, chunk.args);
+            if (row.isPresent()) {
+                return row;
             }
         }
-        return statement;
+        return Optional.empty();
+    }
+
+    private static <T> List<T> getMany(final Connection connection, final List<InList.Chunk<PreparedQuery<T>>> chunks) throws SQLException {
+        if (chunks.size() == 1) {
+            return chunks.get(0).statement.getMany(connection, chunks.get(0).args);
+        }
+        final List<T> rows = new ArrayList<>();
+        for (InList.Chunk<PreparedQuery<T>> chunk : chunks) {
+            rows.addAll(chunk.statement.getMany(connection, chunk.args));
+        }
+        return rows;
     }
 
     /**
-     * Gets the first row returned from the db and maps it to the desired object. Ignores any other rows returned.
+     * Gets the first row returned from the db and maps it to the desired object. The driver is told to return at
+     * most one row, so any other rows are never sent.
      *
      * @param connection connection to the db to perform this query on
      * @return Optional wrapped mapped object
      * @throws SQLException if the table name was empty or an error occurred performing the query
      */
     public Optional<T> getOne(final Connection connection) throws SQLException {
-        final ResultSet resultSet = prepareStatement(connection).executeQuery();
-        if (resultSet.next()) {
-            return Optional.of(resultMapper.map(resultSet));
-        }
-        return Optional.empty();
+        return getOne(connection, chunks());
     }
 
     /**
@@ -193,12 +547,235 @@ public class SelectBuilder<T> {
      * @throws SQLException if the table name was empty or an error occurred performing the query
      */
     public List<T> getMany(final Connection connection) throws SQLException {
-        final ResultSet resultSet = prepareStatement(connection).executeQuery();
-        final List<T> list = new ArrayList<>();
-        while (resultSet.next()) {
-            list.add(resultMapper.map(resultSet));
+        return getMany(connection, chunks());
+    }
+
+    /**
+     * Runs {@link #getOne(Connection)} on the default executor (see {@link Async#defaultExecutor()}) with a
+     * connection from the DataSource. The statement is built from the state of this builder when this is called.
+     *
+     * @param dataSource where to get a connection from. The connection is closed once the statement is done
+     * @return future of the result, completed exceptionally with the SQLException if the statement fails
+     */
+    public CompletableFuture<Optional<T>> getOneAsync(final DataSource dataSource) {
+        return getOneAsync(dataSource, Async.defaultExecutor());
+    }
+
+    /**
+     * Runs {@link #getOne(Connection)} on the executor with a connection from the DataSource. The statement is
+     * built from the state of this builder when this is called.
+     *
+     * @param dataSource where to get a connection from. The connection is closed once the statement is done
+     * @param executor runs the statement
+     * @return future of the result, completed exceptionally with the SQLException if the statement fails
+     */
+    public CompletableFuture<Optional<T>> getOneAsync(final DataSource dataSource, final Executor executor) {
+        try {
+            final List<InList.Chunk<PreparedQuery<T>>> chunks = chunks();
+            return Async.run(dataSource, executor, connection -> getOne(connection, chunks));
+        } catch (SQLException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Runs {@link #getMany(Connection)} on the default executor (see {@link Async#defaultExecutor()}) with a
+     * connection from the DataSource. The statement is built from the state of this builder when this is called.
+     *
+     * @param dataSource where to get a connection from. The connection is closed once the statement is done
+     * @return future of the result, completed exceptionally with the SQLException if the statement fails
+     */
+    public CompletableFuture<List<T>> getManyAsync(final DataSource dataSource) {
+        return getManyAsync(dataSource, Async.defaultExecutor());
+    }
+
+    /**
+     * Runs {@link #getMany(Connection)} on the executor with a connection from the DataSource. The statement is
+     * built from the state of this builder when this is called.
+     *
+     * @param dataSource where to get a connection from. The connection is closed once the statement is done
+     * @param executor runs the statement
+     * @return future of the result, completed exceptionally with the SQLException if the statement fails
+     */
+    public CompletableFuture<List<T>> getManyAsync(final DataSource dataSource, final Executor executor) {
+        try {
+            final List<InList.Chunk<PreparedQuery<T>>> chunks = chunks();
+            return Async.run(dataSource, executor, connection -> getMany(connection, chunks));
+        } catch (SQLException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Reads the first column of every row as a long, without boxing. Meant for queries that select a single
+     * numeric column. SQL NULLs are read as 0.
+     *
+     * @param connection connection to the db to perform this query on
+     * @return the value of every row, in order. Never null
+     * @throws SQLException if the table name was empty or an error occurred performing the query
+     */
+    public long[] getLongs(final Connection connection) throws SQLException {
+        return readChunks((query, args) -> query.getLongs(connection, args), long[]::new);
+    }
+
+    /**
+     * Maps every row to a long, without boxing.
+     *
+     * @param connection connection to the db to perform this query on
+     * @param mapper maps a row to a long
+     * @return the mapped value of every row, in order. Never null
+     * @throws SQLException if the table name was empty or an error occurred performing the query
+     */
+    public long[] getLongs(final Connection connection, final LongResultMapper mapper) throws SQLException {
+        return readChunks((query, args) -> query.getLongs(connection, mapper, args), long[]::new);
+    }
+
+    /**
+     * Reads the first column of every row as a int, without boxing. Meant for queries that select a single
+     * numeric column. SQL NULLs are read as 0.
+     *
+     * @param connection connection to the db to perform this query on
+     * @return the value of every row, in order. Never null
+     * @throws SQLException if the table name was empty or an error occurred performing the query
+     */
+    public int[] getInts(final Connection connection) throws SQLException {
+        return readChunks((query, args) -> query.getInts(connection, args), int[]::new);
+    }
+
+    /**
+     * Maps every row to a int, without boxing.
+     *
+     * @param connection connection to the db to perform this query on
+     * @param mapper maps a row to a int
+     * @return the mapped value of every row, in order. Never null
+     * @throws SQLException if the table name was empty or an error occurred performing the query
+     */
+    public int[] getInts(final Connection connection, final IntResultMapper mapper) throws SQLException {
+        return readChunks((query, args) -> query.getInts(connection, mapper, args), int[]::new);
+    }
+
+    /**
+     * Reads the first column of every row as a double, without boxing. Meant for queries that select a single
+     * numeric column. SQL NULLs are read as 0.
+     *
+     * @param connection connection to the db to perform this query on
+     * @return the value of every row, in order. Never null
+     * @throws SQLException if the table name was empty or an error occurred performing the query
+     */
+    public double[] getDoubles(final Connection connection) throws SQLException {
+        return readChunks((query, args) -> query.getDoubles(connection, args), double[]::new);
+    }
+
+    /**
+     * Maps every row to a double, without boxing.
+     *
+     * @param connection connection to the db to perform this query on
+     * @param mapper maps a row to a double
+     * @return the mapped value of every row, in order. Never null
+     * @throws SQLException if the table name was empty or an error occurred performing the query
+     */
+    public double[] getDoubles(final Connection connection, final DoubleResultMapper mapper) throws SQLException {
+        return readChunks((query, args) -> query.getDoubles(connection, mapper, args), double[]::new);
+    }
+
+    /**
+     * Reads every row into a columnar batch: one array per column, typed by the {@link Column#getType()} of each
+     * selected column, instead of one object per row. Numbers are stored as primitives and strings are dictionary
+     * encoded, which takes far less memory than mapped objects for large results. If no columns were selected, the
+     * types reported by the driver are used.
+     *
+     * @param connection connection to the db to perform this query on
+     * @return the rows of the query, by column. Never null
+     * @throws SQLException if the table name was empty, an IN list needs more than one query (see
+     * {@link #maxParameters(int)}) or an error occurred performing the query
+     */
+    public ColumnarBatch getColumnar(final Connection connection) throws SQLException {
+        return single("getColumnar").getColumnar(connection, parameterValues());
+    }
+
+    /**
+     * Retrieves rows from the db and maps them lazily as they are pulled from the returned iterator. Only the
+     * current row is held in memory. The iterator must be closed if it isn't read to the end.
+     *
+     * @param connection connection to the db to perform this query on
+     * @return iterator over the mapped rows
+     * @throws SQLException if the table name was empty, an IN list needs more than one query (see
+     * {@link #maxParameters(int)}) or an error occurred performing the query
+     */
+    public ResultIterator<T> iterator(final Connection connection) throws SQLException {
+        return single("iterator").iterator(connection, parameterValues());
+    }
+
+    /**
+     * Retrieves rows from the db and maps them lazily as the returned stream is consumed. Only the current row is
+     * held in memory. The stream must be closed, e.g. with try-with-resources, if it isn't consumed to the end.
+     *
+     * @param connection connection to the db to perform this query on
+     * @return stream of the mapped rows
+     * @throws SQLException if the table name was empty, an IN list needs more than one query (see
+     * {@link #maxParameters(int)}) or an error occurred performing the query
+     */
+    public Stream<T> stream(final Connection connection) throws SQLException {
+        return single("stream").stream(connection, parameterValues());
+    }
+
+    /**
+     * Retrieves rows from the db and hands each one to the action as soon as it is mapped.
+     *
+     * @param connection connection to the db to perform this query on
+     * @param action called with every mapped row
+     * @throws SQLException if the table name was empty or an error occurred performing the query
+     */
+    public void forEach(final Connection connection, final Consumer<? super T> action) throws SQLException {
+        for (InList.Chunk<PreparedQuery<T>> chunk : chunks()) {
+            chunk.statement.forEach(connection, action, chunk.args);
         }
-        return list;
     }
-}
 
+    /**
+     * Retrieves rows from the db and visits each one through a single reused {@link Row}, read by {@link Column}.
+     * Nothing is allocated per row besides what the driver allocates, which suits aggregating large results.
+     *
+     * @param connection connection to the db to perform this query on
+     * @param visitor called with every row
+     * @return number of rows visited
+     * @throws SQLException if the table name was empty or an error occurred performing the query
+     */
+    public int forEachRow(final Connection connection, final RowVisitor visitor) throws SQLException {
+        int rows = 0;
+        for (InList.Chunk<PreparedQuery<T>> chunk : chunks()) {
+            rows += chunk.statement.forEachRow(connection, visitor, chunk.args);
+        }
+        return rows;
+    }
+
+    /**
+     * Reads the rows of the query page by page, ordered by a key column, using keyset pagination: after the first
+     * page, each page is queried with {@code key > ?} set to the key of the last row of the previous page. Every page
+     * is as cheap for the db to find as the first, as long as the key is indexed. The key must be unique, or rows
+     * that share a key across a page boundary are skipped.
+     * <p>
+     * Pages are only queried as the iterator is advanced. The key column is selected if other columns were
+     * selected without it.
+     *
+     * @param connection connection to the db to perform the queries on
+     * @param key unique column to order and paginate by
+     * @param pageSize maximum number of rows in a page
+     * @return iterator over the pages of mapped rows. Pages are never empty
+     * @throws SQLException if the table name was empty, an order, limit or offset was set, or the builder returns
+     * ResultSets
+     */
+    public Iterator<List<T>> paginate(final Connection connection, final Column key, final int pageSize) throws SQLException {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("pageSize must be positive");
+        }
+        if (!orders.isEmpty() || limit != null || offset != null) {
+            throw new SQLException("Paginated queries are ordered and limited by their key");
+        }
+        if (resultMapper == RESULT_SET) {
+            throw new SQLException("Paginated queries need a ResultMapper");
+        }
+        return new KeysetPages<>(connection, compiled(key, false), compiled(key, true), mapper(), key.getName(),
+                                 pageSize, clauseValues());
+    }
+}
@@ -0,0 +1,366 @@
+package com.evanwht.sql;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static com.evanwht.sql.Keywords.INSERT;
+
+/**
+ * A unit of work: collects the inserts, updates and deletes of one transaction and runs them together on
+ * {@link #flush()} or {@link #commit()}, grouping statements with the same sql into a single JDBC batch instead of
+ * a round trip each.
+ * <p>
+ * A statement joins the group of the statement queued right before it if both have the same sql, so every
+ * statement runs in the order it was queued. Sessions that write to several tables in turns can allow
+ * {@link #reorderTables(boolean) reordering} to batch more of them.
+ * <pre>{@code
+ * try (Session session = new Session(connection)) {
+ *     Pending order = session.insert(new InsertBuilder().table("orders").value(Orders.CUSTOMER, 7));
+ *     for (Item item : items) {
+ *         session.insert(new InsertBuilder().table("order_items")
+ *                                           .value(Items.ORDER_ID, order)
+ *                                           .value(Items.SKU, item.sku));
+ *     }
+ *     session.commit();
+ *     long orderId = order.getKey().orElseThrow();
+ * }
+ * }</pre>
+ * Sessions are not thread safe.
+ *
+ * @author evanwht1@gmail.com
+ */
+public final class Session implements AutoCloseable {
+
+    private final Connection connection;
+    private final boolean autoCommit;
+    private final List<Group> groups = new ArrayList<>();
+    private int batchSize = Statements.DEFAULT_BATCH_SIZE;
+    private boolean reorderTables;
+    private int queued;
+    private long statements;
+    private long roundTrips;
+    private boolean uncommitted;
+    private boolean closed;
+
+    /**
+     * Starts a transaction on the connection by turning off auto-commit. It is turned back on, if it was, when the
+     * session is closed.
+     *
+     * @param connection connection to the db to run the statements on
+     * @throws SQLException if an error occurred starting the transaction
+     */
+    public Session(final Connection connection) throws SQLException {
+        this.connection = connection;
+        this.autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+    }
+
+    /**
+     * @param batchSize maximum number of statements sent to the db at once. Defaults to 1000
+     * @return the session this was invoked on
+     */
+    public Session batchSize(final int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * Lets a statement join the last group of its sql unless a statement on the same table was queued after that
+     * group, instead of only the group queued right before it. The statements of every table still run in the order
+     * they were queued, but statements on different tables may not, except that a statement using the
+     * {@link Pending} key of an insert as a value always runs after that insert. Only allow it if nothing else
+     * depends on the order of writes to different tables, e.g. a foreign key to a key the application assigned.
+     *
+     * @param reorderTables true to let statements on different tables run in a different order than queued.
+     *                      Defaults to false
+     * @return the session this was invoked on
+     */
+    public Session reorderTables(final boolean reorderTables) {
+        this.reorderTables = reorderTables;
+        return this;
+    }
+
+    /**
+     * Queues the insert of the values of the builder. Rows added with {@link InsertBuilder#addRow()} are not
+     * inserted, as with {@link InsertBuilder#execute(java.sql.Connection)}.
+     *
+     * @param insert the insert to run
+     * @return the result of the insert, with its generated key once flushed
+     * @throws SQLException if the table name was empty
+     */
+    public Pending insert(final InsertBuilder insert) throws SQLException {
+        return queue(insert.chunks());
+    }
+
+    /**
+     * Queues the update of the values and where clauses of the builder.
+     *
+     * @param update the update to run
+     * @return the result of the update, with the number of rows changed once flushed
+     * @throws SQLException if the table name was empty or there were no values to update
+     */
+    public Pending update(final UpdateBuilder update) throws SQLException {
+        return queue(update.chunks());
+    }
+
+    /**
+     * Queues the delete of the where clauses of the builder.
+     *
+     * @param delete the delete to run
+     * @return the result of the delete, with the number of rows deleted once flushed
+     * @throws SQLException if the table name was empty
+     */
+    public Pending delete(final DeleteBuilder delete) throws SQLException {
+        return queue(delete.chunks());
+    }
+
+    /**
+     * Queues a run of a compiled command.
+     *
+     * @param command the command to run
+     * @param args values for the parameters of the command, in bind order
+     * @return the result of the command
+     */
+    public Pending add(final PreparedCommand command, final Object... args) {
+        return queue(List.of(new InList.Chunk<>(command, args)));
+    }
+
+    private Pending queue(final List<InList.Chunk<PreparedCommand>> chunks) {
+        if (closed) {
+            throw new IllegalStateException("Session is closed");
+        }
+        final Pending pending = new Pending();
+        for (InList.Chunk<PreparedCommand> chunk : chunks) {
+            group(chunk.statement, chunk.args).add(chunk.args, pending);
+            queued++;
+        }
+        return pending;
+    }
+
+    /**
+     * @return the last group, if it has the command's sql and doesn't generate a key the command uses, else a new
+     * group at the end. If tables may be reordered, the last group of the command's sql unless a statement queued
+     * since has to run after the command
+     */
+    private Group group(final PreparedCommand command, final Object[] args) {
+        for (int i = groups.size() - 1; i >= 0; i--) {
+            final Group group = groups.get(i);
+            if (group.generatesKeyOf(args)) {
+                break;
+            }
+            // the same sql has the same placeholders, of the same types
+            if (group.command.getSql().equals(command.getSql())) {
+                return group;
+            }
+            if (!reorderTables || group.command.getTable().equals(command.getTable())) {
+                break;
+            }
+        }
+        final Group group = new Group(command);
+        groups.add(group);
+        return group;
+    }
+
+    /**
+     * Runs every queued statement, one batch per group. If a statement fails, the statements not yet run are
+     * discarded and the transaction should be rolled back. The {@link Pending} of every statement of the failed
+     * batch and of the discarded ones is completed with the failure.
+     *
+     * @throws SQLException if an error occurred running a statement
+     */
+    public void flush() throws SQLException {
+        if (closed) {
+            throw new IllegalStateException("Session is closed");
+        }
+        int ran = 0;
+        try {
+            for (Group group : groups) {
+                uncommitted = true;
+                group.run();
+                ran++;
+            }
+        } catch (SQLException e) {
+            fail(ran, e);
+            throw e;
+        } catch (RuntimeException e) {
+            fail(ran, new SQLException(e.getMessage(), e));
+            throw e;
+        } finally {
+            groups.clear();
+            queued = 0;
+        }
+    }
+
+    private void fail(final int from, final SQLException failure) {
+        for (int i = from; i < groups.size(); i++) {
+            for (Pending pending : groups.get(i).results) {
+                pending.failed(failure);
+            }
+        }
+    }
+
+    /**
+     * Runs every queued statement and commits the transaction.
+     *
+     * @throws SQLException if an error occurred running a statement or committing
+     */
+    public void commit() throws SQLException {
+        flush();
+        connection.commit();
+        uncommitted = false;
+    }
+
+    /**
+     * Discards every queued statement and rolls back the statements flushed since the last commit.
+     *
+     * @throws SQLException if an error occurred rolling back
+     */
+    public void rollback() throws SQLException {
+        groups.clear();
+        queued = 0;
+        connection.rollback();
+        uncommitted = false;
+    }
+
+    /**
+     * Rolls back anything not committed, then restores the auto-commit mode of the connection. The connection is
+     * left open.
+     *
+     * @throws SQLException if an error occurred rolling back
+     */
+    @Override
+    public void close() throws SQLException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (uncommitted || !groups.isEmpty()) {
+                rollback();
+            }
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * @return number of statements waiting to be flushed
+     */
+    public int getQueued() {
+        return queued;
+    }
+
+    /**
+     * @return number of statements run so far
+     */
+    public long getStatements() {
+        return statements;
+    }
+
+    /**
+     * @return number of batches sent to the db so far
+     */
+    public long getRoundTrips() {
+        return roundTrips;
+    }
+
+    /**
+     * @return number of round trips saved by batching, compared to running every statement on its own
+     */
+    public long getStatementsSaved() {
+        return statements - roundTrips;
+    }
+
+    /**
+     * Statements with the same sql, run as one batch.
+     */
+    private final class Group {
+
+        private final PreparedCommand command;
+        private final boolean insert;
+        private final List<Object[]> rows = new ArrayList<>();
+        private final List<Pending> results = new ArrayList<>();
+        private final Set<Pending> keys = new HashSet<>();
+
+        private Group(final PreparedCommand command) {
+            this.command = command;
+            this.insert = command.getSql().startsWith(INSERT);
+        }
+
+        private void add(final Object[] args, final Pending pending) {
+            rows.add(args);
+            results.add(pending);
+            if (insert) {
+                keys.add(pending);
+            }
+        }
+
+        /**
+         * @return true if any of the values is the key of a statement of this group
+         */
+        private boolean generatesKeyOf(final Object[] args) {
+            if (keys.isEmpty()) {
+                return false;
+            }
+            for (Object arg : args) {
+                if (arg instanceof Pending && keys.contains(arg)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void run() throws SQLException {
+            final List<Object[]> values = new ArrayList<>(rows.size());
+            for (Object[] args : rows) {
+                values.add(resolve(args));
+            }
+            if (insert) {
+                final int[] counts = new int[rows.size()];
+                final long[] generated = command.executeBatchForKeys(connection, values, batchSize, counts);
+                for (int i = 0; i < results.size(); i++) {
+                    // drivers that don't return a key for every row leave them all unknown
+                    if (generated.length == results.size()) {
+                        results.get(i).generated(generated[i]);
+                    }
+                    results.get(i).completed(Math.max(counts[i], 0));
+                }
+            } else {
+                final int[] counts = command.executeBatch(connection, values, batchSize);
+                for (int i = 0; i < results.size(); i++) {
+                    results.get(i).completed(Math.max(counts[i], 0));
+                }
+            }
+            statements += rows.size();
+            roundTrips += (rows.size() + batchSize - 1) / batchSize;
+        }
+
+        /**
+         * @return the values, with the generated key in place of every {@link Pending}
+         */
+        private Object[] resolve(final Object[] args) throws SQLException {
+            Object[] resolved = args;
+            for (int i = 0; i < args.length; i++) {
+                if (args[i] instanceof Pending) {
+                    final Pending pending = (Pending) args[i];
+                    if (!pending.isDone() || pending.isFailed() || pending.getKey().isEmpty()) {
+                        throw new SQLException("Value of parameter " + (i + 1) + " of " + command.getSql()
+                                                       + " is not the generated key of an insert that has run");
+                    }
+                    if (resolved == args) {
+                        resolved = args.clone();
+                    }
+                    resolved[i] = pending.getKey().getAsLong();
+                }
+            }
+            return resolved;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.evanwht.sql;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * {@link ExecutionListener} that logs every statement taking longer than a threshold, along with the values bound to
+ * it. Statements that fail after the threshold, e.g. by timing out, are logged with the failure. Values of sensitive
+ * columns can be hidden with a {@link Redactor}. By default statements are logged as warnings to the
+ * {@link System.Logger} named after this class.
+ * <pre>{@code
+ * ExecutionListeners.register(new SlowQueryLog(Duration.ofMillis(200), Redactor.columns(Users.PASSWORD)));
+ * }</pre>
+ *
+ * @author evanwht1@gmail.com
+ */
+public final class SlowQueryLog implements ExecutionListener {
+
+    private static final System.Logger LOGGER = System.getLogger(SlowQueryLog.class.getName());
+
+    private final long thresholdNanos;
+    private final Redactor redactor;
+    private final Consumer<String> sink;
+    private final LongAdder logged = new LongAdder();
+
+    /**
+     * @param threshold statements that take longer than this are logged
+     */
+    public SlowQueryLog(final Duration threshold) {
+        this(threshold, Redactor.none());
+    }
+
+    /**
+     * @param threshold statements that take longer than this are logged
+     * @param redactor replaces the bound values that are logged
+     */
+    public SlowQueryLog(final Duration threshold, final Redactor redactor) {
+        this(threshold, redactor, message -> LOGGER.log(System.Logger.Level.WARNING, message));
+    }
+
+    /**
+     * @param threshold statements that take longer than this are logged
+     * @param redactor replaces the bound values that are logged
+     * @param sink where each line of the log is written
+     */
+    public SlowQueryLog(final Duration threshold, final Redactor redactor, final Consumer<String> sink) {
+        if (threshold.isNegative()) {
+            throw new IllegalArgumentException("threshold must not be negative");
+        }
+        this.thresholdNanos = threshold.toNanos();
+        this.redactor = Objects.requireNonNull(redactor, "redactor");
+        this.sink = Objects.requireNonNull(sink, "sink");
+    }
+
+    @Override
+    public void onStatement(final ExecutedStatement statement) {
+        if (statement.getElapsedNanos() <= thresholdNanos) {
+            return;
+        }
+        logged.increment();
+        sink.accept(format(statement));
+    }
+
+    private String format(final ExecutedStatement statement) {
+        final StringBuilder sb = new StringBuilder("slow ")
+                .append(statement.getKind())
+                .append(' ')
+                .append(statement.getFingerprint())
+                .append(" took ")
+                .append(statement.getElapsedNanos() / 1_000_000)
+                .append("ms rows=")
+                .append(statement.getRows());
+        statement.getFailure().ifPresent(failure -> sb.append(" failed=").append(failure.getMessage()));
+        sb.append(": ").append(statement.getSql());
+        if (statement.isBatch()) {
+            return sb.append(" [batch]").toString();
+        }
+        final List<Column> parameters = statement.getParameters();
+        final List<Object> args = statement.getArgs();
+        sb.append(" [");
+        for (int i = 0; i < args.size(); i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            final Column column = i < parameters.size() ? parameters.get(i) : null;
+            // the values of an array in list are redacted as values of the column they are compared to
+            final Object value = redactor.redact(column instanceof ArrayParameter
+                                                         ? ((ArrayParameter) column).element() : column, args.get(i));
+            sb.append(value instanceof CharSequence ? "'" + value + "'"
+                              : value instanceof Object[] ? Arrays.toString((Object[]) value) : String.valueOf(value));
+        }
+        return sb.append(']').toString();
+    }
+
+    /**
+     * @return number of statements logged
+     */
+    public long getLogged() {
+        return logged.sum();
+    }
+
+    /**
+     * @return statements that take longer than this are logged
+     */
+    public Duration getThreshold() {
+        return Duration.ofNanos(thresholdNanos);
+    }
+
+    /**
+     * Replaces bound values before they are logged.
+     */
+    @FunctionalInterface
+    public interface Redactor {
+
+        /**
+         * Replaces redacted values with this.
+         */
+        String MASK = "***";
+
+        /**
+         * @param column the column the value is bound to, or compared to for an {@link InListMode#ARRAY} in list.
+         *               Null if unknown
+         * @param value the bound value. Can be null
+         * @return what to log in place of the value
+         */
+        Object redact(Column column, Object value);
+
+        /**
+         * @return a redactor that logs every value as is
+         */
+        static Redactor none() {
+            return (column, value) -> value;
+        }
+
+        /**
+         * @return a redactor that hides every value
+         */
+        static Redactor all() {
+            return (column, value) -> MASK;
+        }
+
+        /**
+         * @param columns columns whose values are hidden
+         * @return a redactor that hides only the values of the columns
+         */
+        static Redactor columns(final Column... columns) {
+            final Set<Column> hidden = Set.copyOf(Arrays.asList(columns));
+            return (column, value) -> column != null && hidden.contains(column) ? MASK : value;
+        }
+    }
+}
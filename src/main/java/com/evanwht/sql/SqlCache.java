@@ -0,0 +1,146 @@
+package com.evanwht.sql;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Bounded, thread safe cache of rendered sql shared by all the builders. Entries are keyed by the shape of the
+ * statement (see {@link StatementKey}) so building a statement that has been seen before costs a single lookup
+ * instead of a full render. Once full, an arbitrary entry is evicted to make room for a new one.
+ *
+ * @author evanwht1@gmail.com
+ */
+public final class SqlCache {
+
+    /**
+     * Default number of statement shapes to keep.
+     */
+    public static final int DEFAULT_MAX_SIZE = 1024;
+
+    private static final SqlCache INSTANCE = new SqlCache(DEFAULT_MAX_SIZE);
+
+    private final Map<StatementKey, String> statements = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private volatile int maxSize;
+
+    SqlCache(final int maxSize) {
+        setMaxSize(maxSize);
+    }
+
+    /**
+     * @return the cache used by all the builders
+     */
+    public static SqlCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Looks up the sql for a statement shape, rendering and storing it if it hasn't been seen before.
+     *
+     * @param key shape of the statement
+     * @param renderer renders the sql for the statement on a miss
+     * @return the sql for the statement
+     */
+    String get(final StatementKey key, final Supplier<String> renderer) {
+        final long start = ExecutionListeners.start();
+        final String sql = lookup(key, renderer);
+        if (start != ExecutionListeners.DISABLED) {
+            ExecutionListeners.end(key.table(), key.kind(), Phase.RENDER, start, 0);
+        }
+        return sql;
+    }
+
+    private String lookup(final StatementKey key, final Supplier<String> renderer) {
+        final String sql = statements.get(key);
+        if (sql != null) {
+            hits.increment();
+            return sql;
+        }
+        misses.increment();
+        final String rendered = renderer.get();
+        if (maxSize > 0) {
+            evictIfFull();
+            statements.put(key, rendered);
+        }
+        return rendered;
+    }
+
+    private void evictIfFull() {
+        final Iterator<StatementKey> keys = statements.keySet().iterator();
+        while (statements.size() >= maxSize && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+            evictions.increment();
+        }
+    }
+
+    /**
+     * @param maxSize maximum number of statement shapes to keep. 0 disables caching
+     */
+    public void setMaxSize(final int maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("maxSize must not be negative");
+        }
+        this.maxSize = maxSize;
+        evictIfFull();
+    }
+
+    /**
+     * @return maximum number of statement shapes kept
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * @return number of statement shapes currently cached
+     */
+    public int size() {
+        return statements.size();
+    }
+
+    /**
+     * @return number of statements that were served from the cache
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return number of statements that had to be rendered
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return number of statement shapes removed to make room for new ones
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return fraction of lookups that were served from the cache, 0 if there have been none
+     */
+    public double getHitRate() {
+        final long h = getHits();
+        final long total = h + getMisses();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    /**
+     * Removes all cached statements and resets the counters.
+     */
+    public void clear() {
+        statements.clear();
+        hits.reset();
+        misses.reset();
+        evictions.reset();
+    }
+}
@@ -0,0 +1,115 @@
+package com.evanwht.sql;
+
+/**
+ * Writes sql into a buffer reused by every statement rendered on the same thread, so the only allocation of a
+ * render is the final String. Get one with {@link #open()} in a try-with-resources block and finish it with
+ * {@link #finish()}; closing it hands the buffer back even if rendering failed.
+ *
+ * @author evanwht1@gmail.com
+ */
+final class SqlRenderer implements AutoCloseable {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    /**
+     * Buffers that grew past this are dropped instead of being kept around for the thread.
+     */
+    private static final int MAX_RETAINED_CAPACITY = 16 * 1024;
+
+    private static final ThreadLocal<SqlRenderer> RENDERERS = ThreadLocal.withInitial(SqlRenderer::new);
+
+    private StringBuilder sb = new StringBuilder(INITIAL_CAPACITY);
+    private boolean inUse;
+
+    private SqlRenderer() {
+    }
+
+    /**
+     * @return an empty renderer for the current thread
+     */
+    static SqlRenderer open() {
+        SqlRenderer renderer = RENDERERS.get();
+        if (renderer.inUse) {
+            // only if a render starts another one, e.g. from Column.getName()
+            renderer = new SqlRenderer();
+        }
+        renderer.inUse = true;
+        return renderer;
+    }
+
+    /**
+     * Appends a word, separated from what came before it by a space.
+     *
+     * @param word a keyword, name or fragment
+     * @return the renderer this was invoked on
+     */
+    SqlRenderer word(final String word) {
+        final int length = sb.length();
+        if (length > 0 && sb.charAt(length - 1) != ' ') {
+            sb.append(' ');
+        }
+        sb.append(word);
+        return this;
+    }
+
+    /**
+     * Appends text right after what came before it.
+     *
+     * @param text a keyword, name or fragment
+     * @return the renderer this was invoked on
+     */
+    SqlRenderer append(final String text) {
+        sb.append(text);
+        return this;
+    }
+
+    /**
+     * @param c a single character, e.g. a ?
+     * @return the renderer this was invoked on
+     */
+    SqlRenderer append(final char c) {
+        sb.append(c);
+        return this;
+    }
+
+    /**
+     * Appends the separator unless this is the first item of a list.
+     *
+     * @param index index of the next item of the list
+     * @param separator goes between items, e.g. {@code ", "}
+     * @return the renderer this was invoked on
+     */
+    SqlRenderer separate(final int index, final String separator) {
+        if (index > 0) {
+            sb.append(separator);
+        }
+        return this;
+    }
+
+    /**
+     * Ends the statement with a ; and hands the buffer back for the next render on this thread.
+     *
+     * @return the rendered sql
+     */
+    String finish() {
+        final String sql = sb.append(';').toString();
+        close();
+        return sql;
+    }
+
+    /**
+     * Hands the buffer back for the next render on this thread, discarding anything not finished.
+     */
+    @Override
+    public void close() {
+        if (!inUse) {
+            return;
+        }
+        if (sb.capacity() > MAX_RETAINED_CAPACITY) {
+            sb = new StringBuilder(INITIAL_CAPACITY);
+        } else {
+            sb.setLength(0);
+        }
+        inUse = false;
+    }
+}
@@ -0,0 +1,356 @@
+package com.evanwht.sql;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Opt-in cache of PreparedStatements for a single {@link Connection}, keyed by their sql. Every builder and
+ * compiled statement executed on a connection returned by {@link #wrap(Connection)} reuses already parsed statements
+ * instead of preparing new ones. The least recently used statement is closed once the cache is full.
+ * <p>
+ * The cache lives exactly as long as the wrapping connection: closing it closes every cached statement, then the
+ * wrapped connection. When using a connection pool, wrap the connection taken from the pool and close the wrapper
+ * to hand it back. Statements closed out from under the cache (e.g. by the pool) are detected and prepared again.
+ *
+ * @author evanwht1@gmail.com
+ */
+public final class StatementCache implements AutoCloseable {
+
+    /**
+     * Default number of statements to keep per connection.
+     */
+    public static final int DEFAULT_MAX_SIZE = 64;
+
+    private final Connection connection;
+    private final int maxSize;
+    private final LinkedHashMap<Key, Entry> statements = new LinkedHashMap<>(16, 0.75f, true);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private boolean closed;
+
+    private StatementCache(final Connection connection, final int maxSize) {
+        this.connection = connection;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Wraps a connection so that statements executed on it are cached. Wrapping a connection that is already
+     * wrapped returns it unchanged.
+     *
+     * @param connection the connection to cache statements for
+     * @return a connection that behaves like the wrapped one, and closes its cache when it is closed
+     */
+    public static Connection wrap(final Connection connection) {
+        return wrap(connection, DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Wraps a connection so that statements executed on it are cached. Wrapping a connection that is already
+     * wrapped returns it unchanged.
+     *
+     * @param connection the connection to cache statements for
+     * @param maxSize maximum number of statements to keep open
+     * @return a connection that behaves like the wrapped one, and closes its cache when it is closed
+     */
+    public static Connection wrap(final Connection connection, final int maxSize) {
+        Objects.requireNonNull(connection, "connection");
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        if (connection instanceof Cached) {
+            return connection;
+        }
+        final StatementCache cache = new StatementCache(connection, maxSize);
+        return (Connection) Proxy.newProxyInstance(StatementCache.class.getClassLoader(),
+                                                   new Class<?>[]{Connection.class, Cached.class},
+                                                   new CachingHandler(cache));
+    }
+
+    /**
+     * @param connection a connection
+     * @return the cache of the connection, if it was returned by {@link #wrap(Connection)}
+     */
+    public static Optional<StatementCache> forConnection(final Connection connection) {
+        return Optional.ofNullable(find(connection));
+    }
+
+    static StatementCache find(final Connection connection) {
+        return connection instanceof Cached ? ((Cached) connection).statementCache() : null;
+    }
+
+    /**
+     * Gets a statement for the sql, preparing one only if there is no open, unused statement for it in the cache.
+     */
+    synchronized Lease lease(final String sql, final boolean generatedKeys) throws SQLException {
+        if (closed) {
+            return Lease.uncached(prepare(connection, sql, generatedKeys));
+        }
+        final Key key = new Key(sql, generatedKeys);
+        final Entry cached = statements.get(key);
+        if (cached != null && !cached.inUse) {
+            if (!cached.statement.isClosed()) {
+                hits.increment();
+                cached.inUse = true;
+                return new Lease(cached.statement, this, cached);
+            }
+            statements.remove(key);
+        }
+        misses.increment();
+        if (cached != null && cached.inUse) {
+            // the cached statement is still being read from, so this one is only used once
+            return Lease.uncached(prepare(connection, sql, generatedKeys));
+        }
+        // make room first, so a statement failing to close can't leave the new entry in use forever
+        makeRoom();
+        final PreparedStatement statement = prepare(connection, sql, generatedKeys);
+        final Entry entry = new Entry(statement);
+        entry.inUse = true;
+        statements.put(key, entry);
+        return new Lease(statement, this, entry);
+    }
+
+    /**
+     * Evicts the least recently used statements until there is room for one more.
+     */
+    private void makeRoom() throws SQLException {
+        final Iterator<Entry> eldest = statements.values().iterator();
+        while (statements.size() >= maxSize && eldest.hasNext()) {
+            final Entry entry = eldest.next();
+            eldest.remove();
+            evictions.increment();
+            entry.evicted = true;
+            if (!entry.inUse) {
+                entry.statement.close();
+            }
+        }
+    }
+
+    private synchronized void release(final Entry entry) throws SQLException {
+        entry.inUse = false;
+        if (entry.evicted) {
+            entry.statement.close();
+        } else if (!entry.statement.isClosed()) {
+            entry.statement.clearParameters();
+            entry.statement.clearBatch();
+        }
+    }
+
+    static PreparedStatement prepare(final Connection connection, final String sql, final boolean generatedKeys) throws SQLException {
+        return generatedKeys
+                ? connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)
+                : connection.prepareStatement(sql);
+    }
+
+    /**
+     * @return number of statements that were reused
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return number of statements that had to be prepared
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return number of statements closed to make room for new ones
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return number of statements currently cached
+     */
+    public synchronized int size() {
+        return statements.size();
+    }
+
+    /**
+     * @return maximum number of statements kept open
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Closes every cached statement. Statements executed on the wrapping connection afterwards are no longer
+     * cached. Called when the wrapping connection is closed.
+     *
+     * @throws SQLException if any statement could not be closed
+     */
+    @Override
+    public synchronized void close() throws SQLException {
+        closed = true;
+        SQLException failure = null;
+        for (Entry entry : statements.values()) {
+            entry.evicted = true;
+            if (!entry.inUse) {
+                try {
+                    entry.statement.close();
+                } catch (SQLException e) {
+                    if (failure == null) {
+                        failure = e;
+                    } else {
+                        failure.addSuppressed(e);
+                    }
+                }
+            }
+        }
+        statements.clear();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * A statement borrowed for a single execution. Closing the lease returns a cached statement to its cache, or
+     * closes the statement if it isn't cached.
+     */
+    static final class Lease implements AutoCloseable {
+
+        private final PreparedStatement statement;
+        private final StatementCache cache;
+        private final Entry entry;
+
+        private Lease(final PreparedStatement statement, final StatementCache cache, final Entry entry) {
+            this.statement = statement;
+            this.cache = cache;
+            this.entry = entry;
+        }
+
+        /**
+         * @param statement a statement that is not cached
+         * @return a lease that closes the statement when it is closed
+         */
+        static Lease uncached(final PreparedStatement statement) {
+            return new Lease(statement, null, null);
+        }
+
+        PreparedStatement statement() {
+            return statement;
+        }
+
+        /**
+         * @return true if the statement is returned to a cache, and so may be executed again later
+         */
+        boolean isCached() {
+            return cache != null;
+        }
+
+        @Override
+        public void close() throws SQLException {
+            if (cache == null) {
+                statement.close();
+            } else {
+                cache.release(entry);
+            }
+        }
+    }
+
+    /**
+     * Implemented by the connections returned by {@link #wrap(Connection)}.
+     */
+    interface Cached {
+        StatementCache statementCache();
+    }
+
+    /**
+     * Forwards every call to the wrapped connection, except closing it, which closes the cache first.
+     */
+    private static final class CachingHandler implements InvocationHandler {
+
+        private final StatementCache cache;
+
+        private CachingHandler(final StatementCache cache) {
+            this.cache = cache;
+        }
+
+        @Override
+        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+            if (method.getDeclaringClass() == Cached.class) {
+                return cache;
+            }
+            switch (method.getName()) {
+                case "close" -> {
+                    try {
+                        cache.close();
+                    } finally {
+                        cache.connection.close();
+                    }
+                    return null;
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "StatementCache(" + cache.connection + ")";
+                }
+                default -> {
+                    try {
+                        return method.invoke(cache.connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                }
+            }
+        }
+    }
+
+    private static final class Entry {
+
+        private final PreparedStatement statement;
+        private boolean inUse;
+        private boolean evicted;
+
+        private Entry(final PreparedStatement statement) {
+            this.statement = statement;
+        }
+    }
+
+    private static final class Key {
+
+        private final String sql;
+        private final boolean generatedKeys;
+
+        private Key(final String sql, final boolean generatedKeys) {
+            this.sql = sql;
+            this.generatedKeys = generatedKeys;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) o;
+            return generatedKeys == other.generatedKeys && sql.equals(other.sql);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * sql.hashCode() + Boolean.hashCode(generatedKeys);
+        }
+    }
+}
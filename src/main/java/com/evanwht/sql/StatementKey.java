@@ -0,0 +1,96 @@
+package com.evanwht.sql;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Describes the shape of a statement built by one of the builders: everything that affects the rendered sql
+ * (table, column names, which where clauses are null, grouping and ordering) but none of the bound values.
+ * Two builders that would render the same sql produce equal keys.
+ *
+ * @author evanwht1@gmail.com
+ */
+final class StatementKey {
+
+    /**
+     * Separates the sections of a key so that e.g. a selected column can't be confused with a where column.
+     */
+    private static final Object SECTION = new Object();
+
+    private final Object[] parts;
+    private final int hash;
+
+    private StatementKey(final Object[] parts) {
+        this.parts = parts;
+        this.hash = Arrays.hashCode(parts);
+    }
+
+    /**
+     * @param kind the type of statement, e.g. {@link Keywords#SELECT}
+     * @param table name of the table the statement is run against
+     * @return a builder for a new key
+     */
+    static Builder builder(final String kind, final String table) {
+        return new Builder().add(kind).add(table);
+    }
+
+    /**
+     * @return the type of statement, e.g. SELECT
+     */
+    String kind() {
+        return ((String) parts[0]).trim();
+    }
+
+    /**
+     * @return name of the table the statement is run against
+     */
+    String table() {
+        return (String) parts[1];
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof StatementKey)) {
+            return false;
+        }
+        final StatementKey other = (StatementKey) o;
+        return hash == other.hash && Arrays.equals(parts, other.parts);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    static final class Builder {
+
+        private final List<Object> parts = new ArrayList<>();
+
+        /**
+         * @param part an immutable part of the statement shape, e.g. a column name
+         * @return the builder this was invoked on
+         */
+        Builder add(final Object part) {
+            parts.add(part);
+            return this;
+        }
+
+        /**
+         * Starts the next section of the key.
+         *
+         * @return the builder this was invoked on
+         */
+        Builder section() {
+            parts.add(SECTION);
+            return this;
+        }
+
+        StatementKey build() {
+            return new StatementKey(parts.toArray());
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.evanwht.sql;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Helpers shared by the builders and compiled statements for working with PreparedStatements.
+ *
+ * @author evanwht1@gmail.com
+ */
+final class Statements {
+
+    /**
+     * Default maximum number of rows sent to the db in one batch.
+     */
+    static final int DEFAULT_BATCH_SIZE = 1000;
+
+    /**
+     * Default maximum number of parameters in a single statement. Postgres' limit, lower than MySQL's.
+     */
+    static final int DEFAULT_MAX_PARAMETERS = 32767;
+
+    private Statements() {
+    }
+
+    /**
+     * Gets a statement for the sql, reusing one from the connection's {@link StatementCache} if it was wrapped
+     * with {@link StatementCache#wrap(Connection)}. The returned lease must be closed once the statement and any
+     * of its results are no longer needed.
+     *
+     * @param connection connection to the db to prepare the statement on
+     * @param sql the sql of the statement
+     * @param generatedKeys whether the statement should return generated keys
+     * @return a lease on a prepared statement
+     * @throws SQLException if the statement could not be prepared
+     */
+    static StatementCache.Lease prepare(final Connection connection, final String sql, final boolean generatedKeys) throws SQLException {
+        final StatementCache cache = StatementCache.find(connection);
+        if (cache != null) {
+            return cache.lease(sql, generatedKeys);
+        }
+        return StatementCache.Lease.uncached(StatementCache.prepare(connection, sql, generatedKeys));
+    }
+
+    /**
+     * Sets the values for every parameter of a statement, in order.
+     *
+     * @param statement the statement to set values on
+     * @param parameters the columns each parameter is compared to or sets, in bind order
+     * @param values the values to bind, one per parameter. Values can be null
+     * @throws SQLException if the wrong number of values was supplied or a value could not be set
+     */
+    static void bind(final PreparedStatement statement, final Column[] parameters, final Object[] values) throws SQLException {
+        bind(statement, 0, parameters, values);
+    }
+
+    /**
+     * Sets the values for a run of parameters of a statement, in order.
+     *
+     * @param statement the statement to set values on
+     * @param offset number of parameters before the first one to set
+     * @param parameters the columns each parameter is compared to or sets, in bind order
+     * @param values the values to bind, one per parameter. Values can be null
+     * @throws SQLException if the wrong number of values was supplied or a value could not be set
+     */
+    static void bind(final PreparedStatement statement, final int offset, final Column[] parameters, final Object[] values) throws SQLException {
+        if (values.length != parameters.length) {
+            throw new SQLException("Expected " + parameters.length + " parameters but got " + values.length);
+        }
+        for (int i = 0; i < parameters.length; i++) {
+            if (values[i] == null) {
+                statement.setNull(offset + i + 1, parameters[i].getType());
+            } else if (parameters[i] instanceof ArrayParameter) {
+                statement.setArray(offset + i + 1, ((ArrayParameter) parameters[i]).toArray(statement.getConnection(), values[i]));
+            } else {
+                statement.setObject(offset + i + 1, values[i], parameters[i].getType());
+            }
+        }
+    }
+
+    /**
+     * Reads every key generated by the last execution of a statement.
+     *
+     * @param statement an executed statement that was prepared to return generated keys
+     * @param keys where to add the keys
+     * @throws SQLException if the keys could not be read
+     */
+    static void readGeneratedKeys(final PreparedStatement statement, final LongList keys) throws SQLException {
+        try (final ResultSet generatedKeys = statement.getGeneratedKeys()) {
+            while (generatedKeys.next()) {
+                keys.add(generatedKeys.getLong(1));
+            }
+        }
+    }
+}
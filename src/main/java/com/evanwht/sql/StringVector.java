@@ -0,0 +1,82 @@
+package com.evanwht.sql;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A dictionary encoded {@link ColumnVector} of strings. Every distinct value is stored once and each row only
+ * holds the int code of its value, so columns with few distinct values (statuses, countries, ...) take little more
+ * memory than an int column.
+ *
+ * @author evanwht1@gmail.com
+ */
+public final class StringVector extends ColumnVector {
+
+    private int[] codes;
+    private final List<String> dictionary = new ArrayList<>();
+    private Map<String, Integer> lookup = new HashMap<>();
+
+    StringVector(final String name, final int type, final int capacity) {
+        super(name, type);
+        this.codes = new int[Math.max(capacity, 1)];
+    }
+
+    @Override
+    void read(final ResultSet resultSet, final int columnIndex) throws SQLException {
+        if (size == codes.length) {
+            codes = Arrays.copyOf(codes, size * 2);
+        }
+        final String value = resultSet.getString(columnIndex);
+        if (value == null) {
+            codes[size] = -1;
+            setNull(size);
+        } else {
+            Integer code = lookup.get(value);
+            if (code == null) {
+                code = dictionary.size();
+                dictionary.add(value);
+                lookup.put(value, code);
+            }
+            codes[size] = code;
+        }
+        size++;
+    }
+
+    @Override
+    void complete() {
+        codes = Arrays.copyOf(codes, size);
+        lookup = null;
+    }
+
+    /**
+     * @param row index of the row
+     * @return the dictionary code of the value of the row, -1 if it is null
+     */
+    public int getCode(final int row) {
+        checkRow(row);
+        return codes[row];
+    }
+
+    /**
+     * @return every distinct value of the column, indexed by code
+     */
+    public List<String> getDictionary() {
+        return List.copyOf(dictionary);
+    }
+
+    @Override
+    public String getString(final int row) {
+        final int code = getCode(row);
+        return code < 0 ? null : dictionary.get(code);
+    }
+
+    @Override
+    public Object getObject(final int row) {
+        return getString(row);
+    }
+}
@@ -0,0 +1,23 @@
+package com.evanwht.sql;
+
+import java.sql.SQLException;
+
+/**
+ * Wraps a {@link SQLException} thrown where checked exceptions can't be, e.g. while iterating a
+ * {@link java.util.stream.Stream} of results.
+ *
+ * @author evanwht1@gmail.com
+ */
+public class UncheckedSQLException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public UncheckedSQLException(final SQLException cause) {
+        super(cause.getMessage(), cause);
+    }
+
+    @Override
+    public synchronized SQLException getCause() {
+        return (SQLException) super.getCause();
+    }
+}
@@ -0,0 +1,309 @@
+package com.evanwht.sql;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import static com.evanwht.sql.Keywords.INSERT;
+import static com.evanwht.sql.Keywords.INTO;
+import static com.evanwht.sql.Keywords.MERGE;
+import static com.evanwht.sql.Keywords.VALUES;
+
+/**
+ * Builds prepared statements that insert a row, or update it if it conflicts with an existing row, in a single
+ * statement. Replaces checking for a row before inserting or updating it, which takes more round trips and races
+ * with other writers. Values are set like an {@link InsertBuilder}; the rendered statement depends on the
+ * {@link UpsertDialect}.
+ *
+ * @author evanwht1@gmail.com
+ */
+public class UpsertBuilder {
+
+    private String table;
+    private UpsertDialect dialect = UpsertDialect.ON_CONFLICT;
+    private final Map<Column, Object> values = new LinkedHashMap<>();
+    private final Set<Column> conflictColumns = new LinkedHashSet<>();
+    private Set<Column> updateColumns;
+    private final RowBatch batch = new RowBatch();
+
+    /**
+     * @param table name of the table to upsert data into
+     * @return the builder this was invoked on
+     */
+    public UpsertBuilder table(final String table) {
+        this.table = table;
+        return this;
+    }
+
+    /**
+     * @param dialect which form of upsert to render. Defaults to {@link UpsertDialect#ON_CONFLICT}
+     * @return the builder this was invoked on
+     */
+    public UpsertBuilder dialect(final UpsertDialect dialect) {
+        this.dialect = dialect;
+        return this;
+    }
+
+    /**
+     * Adds a column to be inserted, or updated if the row already exists.
+     *
+     * @param column a {@link Column} representing a column of the table in the db
+     * @param value the desired value of the column. Can be null
+     * @return the builder this was invoked on
+     */
+    public UpsertBuilder value(final Column column, final Object value) {
+        this.values.put(column, value);
+        return this;
+    }
+
+    /**
+     * Sets the columns that identify an existing row, e.g. the primary key. They must have a unique index and be
+     * set with {@link #value(Column, Object)}. Not needed for {@link UpsertDialect#ON_DUPLICATE_KEY}, where the db
+     * checks every unique key.
+     *
+     * @param columns the columns a row conflicts on
+     * @return the builder this was invoked on
+     */
+    public UpsertBuilder conflictOn(final Column... columns) {
+        conflictColumns.addAll(Arrays.asList(columns));
+        return this;
+    }
+
+    /**
+     * Limits which columns are updated when the row already exists. By default every set column other than the
+     * conflict columns is. With no columns an existing row is left as it is.
+     *
+     * @param columns the columns to update, each also set with {@link #value(Column, Object)}
+     * @return the builder this was invoked on
+     */
+    public UpsertBuilder update(final Column... columns) {
+        updateColumns = new LinkedHashSet<>(Arrays.asList(columns));
+        return this;
+    }
+
+    /**
+     * Adds the values set so far as a row of a batch upsert (see {@link #executeBatch(Connection)}) and clears them
+     * so the next row can be set. Every row must set the same columns in the same order.
+     *
+     * @return the builder this was invoked on
+     * @throws IllegalStateException if no values were set or they are for different columns than the first row
+     */
+    public UpsertBuilder addRow() {
+        batch.add(values);
+        return this;
+    }
+
+    /**
+     * @param batchSize maximum number of rows sent to the db at once. Defaults to 1000
+     * @return the builder this was invoked on
+     */
+    public UpsertBuilder batchSize(final int batchSize) {
+        batch.batchSize(batchSize);
+        return this;
+    }
+
+    /**
+     * Builds the upsert statement for the values set on this builder.
+     * Only visible for testing.
+     *
+     * @return upsert statement
+     */
+    String createStatement() {
+        return createStatement(values.keySet().toArray(new Column[0]));
+    }
+
+    private String createStatement(final Column[] columns) {
+        final StatementKey.Builder key = StatementKey.builder(dialect == UpsertDialect.MERGE ? MERGE : INSERT, table)
+                                                     .add(dialect);
+        for (Column column : columns) {
+            key.add(column.getName());
+        }
+        key.section();
+        conflictColumns.forEach(column -> key.add(column.getName()));
+        key.section();
+        final List<Column> updates = updates(columns);
+        updates.forEach(column -> key.add(column.getName()));
+        return SqlCache.getInstance().get(key.build(), () -> renderStatement(columns, updates));
+    }
+
+    /**
+     * @param columns the inserted columns
+     * @return the columns to update when the row exists
+     */
+    private List<Column> updates(final Column[] columns) {
+        final List<Column> updates = new ArrayList<>(columns.length);
+        for (Column column : columns) {
+            if (updateColumns == null ? !conflictColumns.contains(column) : updateColumns.contains(column)) {
+                updates.add(column);
+            }
+        }
+        return updates;
+    }
+
+    private String renderStatement(final Column[] columns, final List<Column> updates) {
+        if (dialect == UpsertDialect.MERGE) {
+            return renderMerge(columns, updates);
+        }
+        try (final SqlRenderer sql = SqlRenderer.open().append(INSERT).append(INTO).word(table)) {
+            appendNames(sql.word("("), columns, "").append(')').word(VALUES).word("(");
+            for (int i = 0; i < columns.length; i++) {
+                sql.separate(i, ", ").append('?');
+            }
+            sql.append(')');
+            if (dialect == UpsertDialect.ON_CONFLICT) {
+                appendNames(sql.word("ON CONFLICT ("), conflictColumns, "").append(')');
+                if (updates.isEmpty()) {
+                    return sql.word("DO NOTHING").finish();
+                }
+                sql.word("DO UPDATE SET");
+                for (int i = 0; i < updates.size(); i++) {
+                    final String name = ColumnFragments.of(updates.get(i)).name();
+                    sql.separate(i, ",").word(name).append(" = EXCLUDED.").append(name);
+                }
+            } else {
+                sql.word("ON DUPLICATE KEY UPDATE");
+                if (updates.isEmpty()) {
+                    // setting a column to itself leaves the row as it is
+                    final String name = ColumnFragments.of(columns[0]).name();
+                    return sql.word(name).append(" = ").append(name).finish();
+                }
+                for (int i = 0; i < updates.size(); i++) {
+                    final String name = ColumnFragments.of(updates.get(i)).name();
+                    sql.separate(i, ",").word(name).append(" = VALUES(").append(name).append(')');
+                }
+            }
+            return sql.finish();
+        }
+    }
+
+    private String renderMerge(final Column[] columns, final List<Column> updates) {
+        try (final SqlRenderer sql = SqlRenderer.open().append(MERGE).append(INTO).word(table).word("t USING (VALUES (")) {
+            for (int i = 0; i < columns.length; i++) {
+                sql.separate(i, ", ").append('?');
+            }
+            appendNames(sql.append(")) AS s ("), columns, "").append(") ON");
+            int i = 0;
+            for (Column column : conflictColumns) {
+                final String name = ColumnFragments.of(column).name();
+                sql.separate(i++, " AND").word("t.").append(name).append(" = s.").append(name);
+            }
+            if (!updates.isEmpty()) {
+                sql.word("WHEN MATCHED THEN UPDATE SET");
+                for (i = 0; i < updates.size(); i++) {
+                    final String name = ColumnFragments.of(updates.get(i)).name();
+                    sql.separate(i, ",").word(name).append(" = s.").append(name);
+                }
+            }
+            appendNames(sql.word("WHEN NOT MATCHED THEN INSERT ("), columns, "").append(')');
+            return appendNames(sql.word(VALUES).word("("), columns, "s.").append(')').finish();
+        }
+    }
+
+    private static SqlRenderer appendNames(final SqlRenderer sql, final Column[] columns, final String prefix) {
+        return appendNames(sql, Arrays.asList(columns), prefix);
+    }
+
+    private static SqlRenderer appendNames(final SqlRenderer sql, final Iterable<Column> columns, final String prefix) {
+        int i = 0;
+        for (Column column : columns) {
+            sql.separate(i++, ", ").append(prefix).append(ColumnFragments.of(column).name());
+        }
+        return sql;
+    }
+
+    /**
+     * Freezes this builder into an immutable, thread safe command. The parameters of the compiled command are the
+     * set columns of this builder, in the order they were added.
+     *
+     * @return a compiled command that can be run with just the values of its parameters
+     * @throws IllegalStateException if the table name or values were empty, or the conflict columns are missing or
+     * weren't all set
+     */
+    public PreparedCommand compile() {
+        try {
+            return compiled(values.keySet().toArray(new Column[0]));
+        } catch (SQLException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+
+    private PreparedCommand compiled(final Column[] columns) throws SQLException {
+        if (table == null || columns.length == 0) {
+            throw new SQLException("Need both table and at least one value");
+        }
+        final List<Column> set = Arrays.asList(columns);
+        if (dialect != UpsertDialect.ON_DUPLICATE_KEY && conflictColumns.isEmpty()) {
+            throw new SQLException("No conflict columns defined");
+        }
+        if (!set.containsAll(conflictColumns)) {
+            throw new SQLException("Every conflict column must be set");
+        }
+        if (updateColumns != null && !set.containsAll(updateColumns)) {
+            throw new SQLException("Every updated column must be set");
+        }
+        return new PreparedCommand(table, createStatement(columns), columns);
+    }
+
+    /**
+     * Inserts the row, or updates the existing row it conflicts with.
+     *
+     * @param connection connection to the db to perform this statement on
+     * @return the number of rows changed as reported by the driver, empty if none were. MySQL reports 2 for an
+     * updated row
+     * @throws SQLException if the statement is invalid or an error occurred performing it
+     */
+    public OptionalInt execute(final Connection connection) throws SQLException {
+        return compiled(values.keySet().toArray(new Column[0])).execute(connection, values.values().toArray());
+    }
+
+    /**
+     * Runs {@link #execute(Connection)} on the default executor (see {@link Async#defaultExecutor()}) with a
+     * connection from the DataSource. The statement is built from the state of this builder when this is called.
+     *
+     * @param dataSource where to get a connection from. The connection is closed once the statement is done
+     * @return future of the result, completed exceptionally with the SQLException if the statement fails
+     */
+    public CompletableFuture<OptionalInt> executeAsync(final DataSource dataSource) {
+        return executeAsync(dataSource, Async.defaultExecutor());
+    }
+
+    /**
+     * Runs {@link #execute(Connection)} on the executor with a connection from the DataSource. The statement is
+     * built from the state of this builder when this is called.
+     *
+     * @param dataSource where to get a connection from. The connection is closed once the statement is done
+     * @param executor runs the statement
+     * @return future of the result, completed exceptionally with the SQLException if the statement fails
+     */
+    public CompletableFuture<OptionalInt> executeAsync(final DataSource dataSource, final Executor executor) {
+        try {
+            return compiled(values.keySet().toArray(new Column[0])).executeAsync(dataSource, executor, values.values().toArray());
+        } catch (SQLException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Upserts every row added with {@link #addRow()}, plus a final row of any values set since, sending at most
+     * batchSize rows to the db per round trip. Once run the rows are cleared, so the builder can collect the next
+     * batch.
+     *
+     * @param connection connection to the db to perform this statement on
+     * @return the number of rows changed by each row of the batch, as reported by the driver
+     * @throws SQLException if the statement is invalid or an error occurred performing it
+     */
+    public int[] executeBatch(final Connection connection) throws SQLException {
+        return batch.run(values, new int[0],
+                         (columns, rows, batchSize) -> compiled(columns).executeBatch(connection, rows, batchSize));
+    }
+}
@@ -0,0 +1,23 @@
+package com.evanwht.sql;
+
+/**
+ * Which single statement form an {@link UpsertBuilder} renders.
+ *
+ * @author evanwht1@gmail.com
+ */
+public enum UpsertDialect {
+    /**
+     * {@code INSERT ... ON CONFLICT (...) DO UPDATE SET col = EXCLUDED.col}. Postgres 9.5+ and SQLite 3.24+.
+     */
+    ON_CONFLICT,
+    /**
+     * {@code INSERT ... ON DUPLICATE KEY UPDATE col = VALUES(col)}. MySQL and MariaDB, which find the conflicting row
+     * by any unique key of the table rather than by the conflict columns.
+     */
+    ON_DUPLICATE_KEY,
+    /**
+     * {@code MERGE INTO ... USING (VALUES (...)) ... WHEN MATCHED THEN UPDATE ... WHEN NOT MATCHED THEN INSERT ...}.
+     * SQL Server, H2, DB2 and Postgres 15+.
+     */
+    MERGE
+}
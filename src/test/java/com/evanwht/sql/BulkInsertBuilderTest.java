@@ -0,0 +1,119 @@
+package com.evanwht.sql;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author evanwht1@gmail.com
+ */
+@ExtendWith(MockitoExtension.class)
+class BulkInsertBuilderTest {
+
+    private final MockDB mockDB = new MockDB();
+
+    private BulkInsertBuilder<Integer> builder() {
+        return new BulkInsertBuilder<Integer>()
+                .table("test_table")
+                .columns(TestColumns.INT, TestColumns.VAR_CHAR)
+                .values(i -> new Object[]{i, "val" + i})
+                .batchSize(2)
+                .writers(1);
+    }
+
+    @Test
+    void load() throws SQLException {
+        final DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenReturn(mockDB.connection);
+        when(mockDB.connection.getAutoCommit()).thenReturn(true);
+        when(mockDB.statement.executeBatch()).thenReturn(new int[]{1, 1});
+        final AtomicInteger progress = new AtomicInteger();
+
+        final BulkLoadStats stats = builder()
+                .commitEvery(2)
+                .progress(s -> progress.incrementAndGet())
+                .load(dataSource, IntStream.range(0, 9).boxed());
+
+        assertTrue(stats.isFinished());
+        assertFalse(stats.isFailed());
+        assertEquals(9, stats.getRows());
+        assertEquals(5, stats.getBatches());
+        assertEquals(3, stats.getCommits());
+        assertEquals(5, stats.getBatchLatency().getCount());
+        assertEquals(5, progress.get());
+        verify(mockDB.connection, times(5)).prepareStatement("INSERT INTO test_table (intCol, varCharCol) VALUES (?, ?);");
+        verify(mockDB.connection).setAutoCommit(false);
+        verify(mockDB.connection, times(3)).commit();
+        verify(mockDB.connection).setAutoCommit(true);
+        verify(mockDB.statement).setObject(1, 8, Types.INTEGER);
+        verify(mockDB.statement, times(9)).addBatch();
+    }
+
+    @Test
+    void failedBatch() throws SQLException {
+        final DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenReturn(mockDB.connection);
+        final SQLException failure = new SQLException("constraint violation");
+        when(mockDB.statement.executeBatch()).thenThrow(failure);
+
+        final SQLException thrown = assertThrows(SQLException.class,
+                                                 () -> builder().load(dataSource, List.of(1, 2, 3).iterator()));
+        assertSame(failure, thrown);
+        verify(mockDB.connection).rollback();
+        verify(mockDB.connection, never()).commit();
+        verify(mockDB.statement, never()).setObject(eq(1), eq(3), anyInt());
+    }
+
+    @Test
+    void failedRestoreKeepsBatchFailure() throws SQLException {
+        final DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenReturn(mockDB.connection);
+        when(mockDB.connection.getAutoCommit()).thenReturn(true);
+        final SQLException failure = new SQLException("constraint violation");
+        when(mockDB.statement.executeBatch()).thenThrow(failure);
+        final SQLException restore = new SQLException("connection lost");
+        doThrow(restore).when(mockDB.connection).setAutoCommit(true);
+
+        final SQLException thrown = assertThrows(SQLException.class,
+                                                 () -> builder().load(dataSource, List.of(1, 2).iterator()));
+        assertSame(failure, thrown);
+        assertArrayEquals(new Throwable[]{restore}, thrown.getSuppressed());
+    }
+
+    @Test
+    void failedStats() throws SQLException {
+        final DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenReturn(mockDB.connection);
+        when(mockDB.statement.executeBatch()).thenReturn(new int[]{1, 1}).thenThrow(new SQLException("lost"));
+        final AtomicReference<BulkLoadStats> progress = new AtomicReference<>();
+
+        assertThrows(SQLException.class,
+                     () -> builder().progress(progress::set).load(dataSource, List.of(1, 2, 3).iterator()));
+        assertTrue(progress.get().isFinished());
+        assertTrue(progress.get().isFailed());
+        assertEquals(2, progress.get().getRows());
+    }
+}
@@ -0,0 +1,190 @@
+package com.evanwht.sql;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author evanwht1@gmail.com
+ */
+class ClassResultMapperTest {
+
+    // compiled at runtime, since the library is built for a JDK without records
+    private static final String RECORD = "package test;\n"
+            + "public record Person(long id, String name, int age) {}\n";
+
+    // stand-ins for what the annotation processor generates for a nested type
+    private static final String OWNER = "package test;\n"
+            + "public class Owner {\n"
+            + "    public static class Pet { public int id; }\n"
+            + "}\n";
+    private static final String COLUMNS = "package test;\n"
+            + "public enum Owner_PetColumns implements com.evanwht.sql.Column {\n"
+            + "    ID;\n"
+            + "    public String getName() { return \"id\"; }\n"
+            + "    public int getType() { return java.sql.Types.INTEGER; }\n"
+            + "}\n";
+    private static final String MAPPER = "package test;\n"
+            + "public class Owner_PetResultMapper implements com.evanwht.sql.ResultMapper<Owner.Pet> {\n"
+            + "    public Owner.Pet map(java.sql.ResultSet rs) throws java.sql.SQLException {\n"
+            + "        Owner.Pet pet = new Owner.Pet();\n"
+            + "        pet.id = rs.getInt(1);\n"
+            + "        return pet;\n"
+            + "    }\n"
+            + "}\n";
+
+    @TempDir
+    Path dir;
+
+    public static class Pojo {
+        public int intCol;
+        public String varCharCol;
+        public Long longCol;
+        public Timestamp timestampCol;
+    }
+
+    @Test
+    void mapsMatchingColumns() throws SQLException {
+        final ResultSet rs = mock(ResultSet.class);
+        final ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(rs.getMetaData()).thenReturn(metaData);
+        when(metaData.getColumnCount()).thenReturn(5);
+        when(metaData.getColumnLabel(1)).thenReturn("intCol");
+        when(metaData.getColumnLabel(2)).thenReturn("unmapped");
+        when(metaData.getColumnLabel(3)).thenReturn("varCharCol");
+        when(metaData.getColumnLabel(4)).thenReturn("longCol");
+        when(metaData.getColumnLabel(5)).thenReturn("timestampCol");
+        when(rs.getInt(1)).thenReturn(1, 2);
+        when(rs.getObject(4, Long.class)).thenReturn(5L, (Long) null);
+        when(rs.getTimestamp(5)).thenReturn(new Timestamp(0), (Timestamp) null);
+        when(rs.getString(3)).thenReturn("val1", "val2");
+
+        final ResultMapper<Pojo> mapper = new ClassResultMapper<>(Pojo.class).bind(rs);
+        final Pojo first = mapper.map(rs);
+        final Pojo second = mapper.map(rs);
+
+        assertEquals(1, first.intCol);
+        assertEquals("val1", first.varCharCol);
+        assertEquals(5L, first.longCol);
+        assertEquals(new Timestamp(0), first.timestampCol);
+        assertEquals(2, second.intCol);
+        assertNull(second.longCol);
+        assertEquals("val2", second.varCharCol);
+        verify(rs, times(1)).getMetaData();
+        verify(rs, times(0)).getString(2);
+    }
+
+    @Test
+    void bindsEveryResultSetSeparately() throws SQLException {
+        final ResultSet first = resultSet("intCol");
+        final ResultSet second = resultSet("varCharCol");
+        when(first.getInt(1)).thenReturn(1, 2);
+        when(second.getString(1)).thenReturn("a", "b");
+
+        // one mapper shared by two queries reading their rows in turns
+        final ClassResultMapper<Pojo> shared = new ClassResultMapper<>(Pojo.class);
+        final ResultMapper<Pojo> firstRows = shared.bind(first);
+        final ResultMapper<Pojo> secondRows = shared.bind(second);
+        assertEquals(1, firstRows.map(first).intCol);
+        assertEquals("a", secondRows.map(second).varCharCol);
+        assertEquals(2, firstRows.map(first).intCol);
+        assertEquals("b", secondRows.map(second).varCharCol);
+        verify(first, times(1)).getMetaData();
+        verify(second, times(1)).getMetaData();
+    }
+
+    private static ResultSet resultSet(final String label) throws SQLException {
+        final ResultSet rs = mock(ResultSet.class);
+        final ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(rs.getMetaData()).thenReturn(metaData);
+        when(metaData.getColumnCount()).thenReturn(1);
+        when(metaData.getColumnLabel(1)).thenReturn(label);
+        return rs;
+    }
+
+    @Test
+    void mapsRecordsThroughCanonicalConstructor() throws Exception {
+        final Path source = dir.resolve("test/Person.java");
+        Files.createDirectories(source.getParent());
+        Files.writeString(source, RECORD);
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        final ByteArrayOutputStream errors = new ByteArrayOutputStream();
+        assertEquals(0, compiler.run(null, null, errors, "-d", dir.toString(), source.toString()), errors.toString());
+
+        final ResultSet rs = mock(ResultSet.class);
+        final ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(rs.getMetaData()).thenReturn(metaData);
+        when(metaData.getColumnCount()).thenReturn(3);
+        when(metaData.getColumnLabel(1)).thenReturn("name");
+        when(metaData.getColumnLabel(2)).thenReturn("unmapped");
+        when(metaData.getColumnLabel(3)).thenReturn("id");
+        when(rs.getString(1)).thenReturn("Arthur");
+        when(rs.getLong(3)).thenReturn(42L);
+
+        try (final URLClassLoader loader = new URLClassLoader(new URL[]{dir.toUri().toURL()}, getClass().getClassLoader())) {
+            final Class<?> type = loader.loadClass("test.Person");
+            final Object person = new ClassResultMapper<>(type).bind(rs).map(rs);
+            assertEquals(42L, type.getMethod("id").invoke(person));
+            assertEquals("Arthur", type.getMethod("name").invoke(person));
+            // components without a column get their default value
+            assertEquals(0, type.getMethod("age").invoke(person));
+        }
+        verify(rs, times(0)).getObject(2);
+    }
+
+    @Test
+    void usesGeneratedMapperAndColumns() throws Exception {
+        compile(Map.of("Owner", OWNER, "Owner_PetColumns", COLUMNS, "Owner_PetResultMapper", MAPPER));
+        final ResultSet rs = mock(ResultSet.class);
+        when(rs.getInt(1)).thenReturn(7);
+
+        try (final URLClassLoader loader = new URLClassLoader(new URL[]{dir.toUri().toURL()}, getClass().getClassLoader())) {
+            final Class<?> type = loader.loadClass("test.Owner$Pet");
+            final ResultMapper<?> mapper = ClassResultMapper.forClass(type);
+            assertEquals("test.Owner_PetResultMapper", mapper.getClass().getName());
+            assertEquals(7, type.getField("id").get(mapper.bind(rs).map(rs)));
+
+            final List<Column> columns = ClassResultMapper.columnsOf(type);
+            assertEquals(1, columns.size());
+            assertEquals("test.Owner_PetColumns", columns.get(0).getClass().getName());
+            assertEquals("id", columns.get(0).getName());
+        }
+        verify(rs, never()).getMetaData();
+    }
+
+    private void compile(final Map<String, String> sources) throws Exception {
+        final List<String> args = new ArrayList<>(List.of("-d", dir.toString(),
+                                                          "-classpath", System.getProperty("java.class.path")));
+        for (Map.Entry<String, String> source : sources.entrySet()) {
+            final Path file = dir.resolve("test/" + source.getKey() + ".java");
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, source.getValue());
+            args.add(file.toString());
+        }
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        final ByteArrayOutputStream errors = new ByteArrayOutputStream();
+        assertEquals(0, compiler.run(null, null, errors, args.toArray(new String[0])), errors.toString());
+    }
+}
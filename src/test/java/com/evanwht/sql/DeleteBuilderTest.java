@@ -6,10 +6,14 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.sql.SQLException;
 import java.sql.Types;
+import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 /**
  * @author evanwht1@gmail.com
@@ -51,4 +55,72 @@ public class DeleteBuilderTest {
         verify(mockDB.statement).setObject(1, "val", Types.VARCHAR);
         verify(mockDB.statement).setObject(2, 2, Types.INTEGER);
     }
+
+    @Test
+    void batch() throws SQLException {
+        when(mockDB.statement.executeBatch()).thenReturn(new int[]{1, 0});
+        final int[] counts = new DeleteBuilder()
+                .table("test_table")
+                .where(TestColumns.INT, 1).addRow()
+                .where(TestColumns.INT, 2)
+                .executeBatch(mockDB.connection);
+        assertArrayEquals(new int[]{1, 0}, counts);
+        verify(mockDB.connection).prepareStatement("DELETE FROM test_table WHERE intCol = ?;");
+        verify(mockDB.statement).setObject(1, 1, Types.INTEGER);
+        verify(mockDB.statement).setObject(1, 2, Types.INTEGER);
+        verify(mockDB.statement, times(2)).addBatch();
+    }
+
+    @Test
+    void batchesAreClearedOnceRun() throws SQLException {
+        when(mockDB.statement.executeBatch()).thenReturn(new int[]{1});
+        final DeleteBuilder builder = new DeleteBuilder()
+                .table("test_table")
+                .where(TestColumns.INT, 1);
+        assertArrayEquals(new int[]{1}, builder.executeBatch(mockDB.connection));
+        // the next batch may produce a different statement
+        builder.where(TestColumns.VAR_CHAR, "val");
+        assertArrayEquals(new int[]{1}, builder.executeBatch(mockDB.connection));
+        verify(mockDB.statement, times(2)).addBatch();
+        verify(mockDB.statement).setObject(1, 1, Types.INTEGER);
+        verify(mockDB.connection).prepareStatement("DELETE FROM test_table WHERE varCharCol = ?;");
+    }
+
+    @Test
+    void whereIn() throws SQLException {
+        final DeleteBuilder builder = new DeleteBuilder()
+                .table("test_table")
+                .whereIn(TestColumns.INT, List.of(1, 2, 3, 3));
+        assertEquals("DELETE FROM test_table WHERE intCol IN (?, ?, ?, ?);", builder.createStatement());
+        assertEquals(1, builder.execute(mockDB.connection).orElse(0));
+        verify(mockDB.statement).setObject(1, 1, Types.INTEGER);
+        verify(mockDB.statement).setObject(2, 2, Types.INTEGER);
+        verify(mockDB.statement).setObject(3, 3, Types.INTEGER);
+        verify(mockDB.statement).setObject(4, 3, Types.INTEGER);
+
+        assertEquals("DELETE FROM test_table WHERE 1 = 0;",
+                     new DeleteBuilder().table("test_table").whereIn(TestColumns.INT, List.of()).createStatement());
+    }
+
+    @Test
+    void whereInChunks() throws SQLException {
+        final int rows = new DeleteBuilder()
+                .table("test_table")
+                .where(TestColumns.VAR_CHAR, "val")
+                .whereIn(TestColumns.INT, List.of(1, 2, 3, 4, 5, 6, 7, 8, 9, 10))
+                .maxParameters(5)
+                .execute(mockDB.connection)
+                .orElse(0);
+        assertEquals(3, rows);
+        verify(mockDB.connection, times(2)).prepareStatement("DELETE FROM test_table WHERE varCharCol = ? AND intCol IN (?, ?, ?, ?);");
+        verify(mockDB.connection).prepareStatement("DELETE FROM test_table WHERE varCharCol = ? AND intCol IN (?, ?);");
+        verify(mockDB.statement, times(3)).setObject(1, "val", Types.VARCHAR);
+        verify(mockDB.statement).setObject(3, 10, Types.INTEGER);
+
+        final DeleteBuilder tooLarge = new DeleteBuilder()
+                .table("test_table")
+                .whereIn(TestColumns.INT, List.of(1, 2, 3))
+                .maxParameters(2);
+        assertThrows(IllegalStateException.class, tooLarge::compile);
+    }
 }
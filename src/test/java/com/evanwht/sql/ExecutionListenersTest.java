@@ -0,0 +1,225 @@
+package com.evanwht.sql;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.sql.Array;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author evanwht1@gmail.com
+ */
+@ExtendWith(MockitoExtension.class)
+class ExecutionListenersTest {
+
+    private final MockDB mockDB = new MockDB();
+
+    @AfterEach
+    void clear() {
+        ExecutionListeners.clear();
+    }
+
+    @Test
+    void reportsEveryPhase() throws SQLException {
+        final List<String> phases = new ArrayList<>();
+        final ExecutionListener listener = recordPhases(phases);
+        ExecutionListeners.register(listener);
+
+        new SelectBuilder<>(rs -> rs.getString(TestColumns.VAR_CHAR.getName()))
+                .table("listened_table")
+                .where(TestColumns.INT, 1)
+                .getMany(mockDB.connection);
+        new UpdateBuilder()
+                .table("listened_table")
+                .value(TestColumns.INT, 2)
+                .execute(mockDB.connection);
+
+        assertEquals(List.of("listened_table SELECT RENDER 0",
+                             "listened_table SELECT PREPARE 0",
+                             "listened_table SELECT BIND 0",
+                             "listened_table SELECT EXECUTE 0",
+                             "listened_table SELECT MAP 2",
+                             "listened_table UPDATE RENDER 0",
+                             "listened_table UPDATE PREPARE 0",
+                             "listened_table UPDATE BIND 0",
+                             "listened_table UPDATE EXECUTE 1"), phases);
+
+        assertTrue(ExecutionListeners.unregister(listener));
+        assertFalse(ExecutionListeners.unregister(listener));
+        assertEquals(ExecutionListeners.DISABLED, ExecutionListeners.start());
+    }
+
+    @Test
+    void reportsMapOfLazyReads() throws SQLException {
+        final List<String> phases = new ArrayList<>();
+        ExecutionListeners.register(recordPhases(phases));
+
+        try (final ResultIterator<String> iterator = new SelectBuilder<>(rs -> rs.getString(TestColumns.VAR_CHAR.getName()))
+                .table("lazy_table")
+                .iterator(mockDB.connection)) {
+            assertEquals("val1", iterator.next());
+        }
+
+        assertEquals(List.of("lazy_table SELECT RENDER 0",
+                             "lazy_table SELECT PREPARE 0",
+                             "lazy_table SELECT BIND 0",
+                             "lazy_table SELECT EXECUTE 0",
+                             "lazy_table SELECT MAP 1"), phases);
+    }
+
+    @Test
+    void throwingListenerReleasesStatement() throws SQLException {
+        ExecutionListeners.register(new ExecutionListener() {
+            @Override
+            public void onPhase(final String table, final String kind, final Phase phase, final long elapsedNanos, final int rows) {
+                if (phase == Phase.PREPARE) {
+                    throw new IllegalStateException("listener failed");
+                }
+            }
+        });
+
+        assertThrows(IllegalStateException.class, () -> new SelectBuilder<>(rs -> rs.getString(TestColumns.VAR_CHAR.getName()))
+                .table("throwing_table")
+                .getMany(mockDB.connection));
+        verify(mockDB.statement).close();
+        verify(mockDB.statement, never()).executeQuery();
+    }
+
+    @Test
+    void registry() throws SQLException {
+        final LatencyRegistry registry = new LatencyRegistry();
+        ExecutionListeners.register(registry);
+
+        new DeleteBuilder()
+                .table("registry_table")
+                .where(TestColumns.INT, 1)
+                .execute(mockDB.connection);
+
+        assertEquals(1, registry.histogram("registry_table", "DELETE", Phase.EXECUTE).getCount());
+        assertEquals(0, registry.histogram("registry_table", "SELECT", Phase.EXECUTE).getCount());
+        assertEquals(List.of("registry_table DELETE BIND", "registry_table DELETE EXECUTE",
+                             "registry_table DELETE PREPARE", "registry_table DELETE RENDER"),
+                     new ArrayList<>(registry.getHistograms().keySet()));
+    }
+
+    @Test
+    void queryStats() throws SQLException {
+        final QueryStats stats = new QueryStats();
+        ExecutionListeners.register(stats);
+
+        final PreparedCommand update = new UpdateBuilder()
+                .table("stats_table")
+                .value(TestColumns.INT, 1)
+                .compile();
+        update.execute(mockDB.connection, 1);
+        update.execute(mockDB.connection, 2);
+        new DeleteBuilder()
+                .table("stats_table")
+                .where(TestColumns.INT, 1)
+                .execute(mockDB.connection);
+
+        assertEquals(2, stats.size());
+        final QueryStats.Shape top = stats.getTop(1, Comparator.comparingLong(QueryStats.Shape::getCount).reversed()).get(0);
+        assertEquals(update.getSql(), top.getSql());
+        assertEquals(ExecutedStatement.fingerprint(update.getSql()), top.getFingerprint());
+        assertEquals(16, top.getFingerprint().length());
+        assertNotEquals(top.getFingerprint(), ExecutedStatement.fingerprint("DELETE FROM stats_table WHERE intCol = ?;"));
+        assertEquals("UPDATE", top.getKind());
+        assertEquals(2, top.getCount());
+        assertEquals(2, top.getRows());
+        assertTrue(top.getMaxNanos() <= top.getTotalNanos());
+        assertEquals(2, stats.getTop(5).size());
+        assertEquals(2, stats.dump(5).lines().count());
+
+        stats.reset();
+        assertEquals(0, stats.size());
+        assertTrue(stats.get(update.getSql()).isEmpty());
+    }
+
+    @Test
+    void reportsFailures() throws SQLException {
+        final QueryStats stats = new QueryStats();
+        ExecutionListeners.register(stats);
+        final List<String> lines = new ArrayList<>();
+        ExecutionListeners.register(new SlowQueryLog(Duration.ZERO, SlowQueryLog.Redactor.none(), lines::add));
+        final SQLTimeoutException timeout = new SQLTimeoutException("timed out");
+        when(mockDB.statement.executeUpdate()).thenThrow(timeout);
+
+        final PreparedCommand update = new UpdateBuilder()
+                .table("failing_table")
+                .value(TestColumns.INT, 1)
+                .compile();
+        assertSame(timeout, assertThrows(SQLTimeoutException.class, () -> update.execute(mockDB.connection, 1)));
+
+        final QueryStats.Shape shape = stats.get(update.getSql()).orElseThrow();
+        assertEquals(1, shape.getCount());
+        assertEquals(1, shape.getFailures());
+        assertEquals(0, shape.getRows());
+        assertEquals(1, lines.size());
+        assertTrue(lines.get(0).contains(" failed=timed out: "), lines.get(0));
+    }
+
+    @Test
+    void slowQueryLog() throws SQLException {
+        final List<String> lines = new ArrayList<>();
+        ExecutionListeners.register(new SlowQueryLog(Duration.ZERO, SlowQueryLog.Redactor.columns(TestColumns.VAR_CHAR), lines::add));
+        final SlowQueryLog never = new SlowQueryLog(Duration.ofHours(1), SlowQueryLog.Redactor.none(), lines::add);
+        ExecutionListeners.register(never);
+
+        new UpdateBuilder()
+                .table("slow_table")
+                .value(TestColumns.VAR_CHAR, "secret")
+                .where(TestColumns.INT, 7)
+                .execute(mockDB.connection);
+
+        assertEquals(1, lines.size());
+        assertTrue(lines.get(0).startsWith("slow UPDATE "), lines.get(0));
+        assertTrue(lines.get(0).endsWith("UPDATE slow_table SET varCharCol = ? WHERE intCol = ?; ['***', 7]"), lines.get(0));
+        assertEquals(0, never.getLogged());
+    }
+
+    @Test
+    void slowQueryLogRedactsArrayInLists() throws SQLException {
+        final List<String> lines = new ArrayList<>();
+        ExecutionListeners.register(new SlowQueryLog(Duration.ZERO, SlowQueryLog.Redactor.columns(TestColumns.VAR_CHAR), lines::add));
+        when(mockDB.statement.getConnection()).thenReturn(mockDB.connection);
+        when(mockDB.connection.createArrayOf("varchar", new Object[]{"secret", "hidden"})).thenReturn(mock(Array.class));
+
+        new DeleteBuilder()
+                .table("slow_table")
+                .inListMode(InListMode.ARRAY)
+                .whereIn(TestColumns.VAR_CHAR, List.of("secret", "hidden"))
+                .execute(mockDB.connection);
+
+        assertEquals(1, lines.size());
+        assertTrue(lines.get(0).endsWith(" ['***']"), lines.get(0));
+        assertFalse(lines.get(0).contains("secret"), lines.get(0));
+    }
+
+    private static ExecutionListener recordPhases(final List<String> phases) {
+        return new ExecutionListener() {
+            @Override
+            public void onPhase(final String table, final String kind, final Phase phase, final long elapsedNanos, final int rows) {
+                phases.add(table + " " + kind + " " + phase + " " + rows);
+            }
+        };
+    }
+}
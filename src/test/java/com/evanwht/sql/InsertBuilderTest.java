@@ -5,10 +5,17 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.sql.Types;
 import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 @ExtendWith(MockitoExtension.class)
@@ -41,4 +48,73 @@ class InsertBuilderTest {
         verify(mockDB.statement).setObject(2, 2, Types.INTEGER);
         verify(mockDB.statement).setObject(3, List.of("val1", "val2"), Types.ARRAY);
     }
-}
\ No newline at end of file
+
+    @Test
+    void jdbcBatch() throws SQLException {
+        final InsertBuilder builder = new InsertBuilder()
+                .table("test_table")
+                .batchSize(2)
+                .value(TestColumns.VAR_CHAR, "val1").addRow()
+                .value(TestColumns.VAR_CHAR, "val2").addRow()
+                .value(TestColumns.VAR_CHAR, "val3");
+        assertArrayEquals(new long[]{2L, 3L}, builder.executeBatch(mockDB.connection));
+        verify(mockDB.connection).prepareStatement("INSERT INTO test_table (varCharCol) VALUES (?);", Statement.RETURN_GENERATED_KEYS);
+        verify(mockDB.statement, times(3)).addBatch();
+        verify(mockDB.statement, times(2)).executeBatch();
+        verify(mockDB.statement).setObject(1, "val3", Types.VARCHAR);
+    }
+
+    @Test
+    void multiRowBatch() throws SQLException {
+        final InsertBuilder builder = new InsertBuilder()
+                .table("test_table")
+                .batchMode(BatchMode.MULTI_ROW)
+                .maxParameters(5);
+        for (int i = 0; i < 3; i++) {
+            builder.value(TestColumns.VAR_CHAR, "val" + i)
+                   .value(TestColumns.INT, i)
+                   .addRow();
+        }
+        assertArrayEquals(new long[]{2L, 3L}, builder.executeBatch(mockDB.connection));
+        verify(mockDB.connection).prepareStatement("INSERT INTO test_table (varCharCol, intCol) VALUES (?, ?), (?, ?);", Statement.RETURN_GENERATED_KEYS);
+        verify(mockDB.connection).prepareStatement("INSERT INTO test_table (varCharCol, intCol) VALUES (?, ?);", Statement.RETURN_GENERATED_KEYS);
+        verify(mockDB.statement).setObject(3, "val1", Types.VARCHAR);
+        verify(mockDB.statement).setObject(4, 1, Types.INTEGER);
+        verify(mockDB.statement, times(2)).executeUpdate();
+    }
+
+    @Test
+    void batchesAreClearedOnceInserted() throws SQLException {
+        final InsertBuilder builder = new InsertBuilder()
+                .table("test_table")
+                .value(TestColumns.VAR_CHAR, "val1").addRow()
+                .value(TestColumns.VAR_CHAR, "val2");
+        builder.executeBatch(mockDB.connection);
+        // the next batch may set different columns
+        builder.value(TestColumns.INT, 3).executeBatch(mockDB.connection);
+        verify(mockDB.statement, times(3)).addBatch();
+        verify(mockDB.statement).setObject(1, "val1", Types.VARCHAR);
+        verify(mockDB.connection).prepareStatement("INSERT INTO test_table (intCol) VALUES (?);", Statement.RETURN_GENERATED_KEYS);
+    }
+
+    @Test
+    void rowLargerThanMaxParameters() throws SQLException {
+        final InsertBuilder builder = new InsertBuilder()
+                .table("test_table")
+                .batchMode(BatchMode.MULTI_ROW)
+                .maxParameters(1)
+                .value(TestColumns.VAR_CHAR, "val")
+                .value(TestColumns.INT, 1);
+        assertThrows(SQLException.class, () -> builder.executeBatch(mockDB.connection));
+        verify(mockDB.connection, never()).prepareStatement(anyString(), anyInt());
+    }
+
+    @Test
+    void rowsMustMatch() {
+        final InsertBuilder builder = new InsertBuilder()
+                .table("test_table")
+                .value(TestColumns.VAR_CHAR, "val").addRow()
+                .value(TestColumns.INT, 1);
+        assertThrows(IllegalStateException.class, builder::addRow);
+    }
+}
@@ -20,7 +20,7 @@ public class MockDB {
 
     final Connection connection = mock(Connection.class);
     final PreparedStatement statement = mock(PreparedStatement.class);
-    private final ResultSet resultSet = mock(ResultSet.class);
+    final ResultSet resultSet = mock(ResultSet.class);
     private final Array array1 = mock(Array.class);
     private final Array array2 = mock(Array.class);
     private final ResultSet arrayResultSet1 = mock(ResultSet.class);
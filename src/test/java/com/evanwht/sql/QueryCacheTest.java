@@ -0,0 +1,141 @@
+package com.evanwht.sql;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * @author evanwht1@gmail.com
+ */
+@ExtendWith(MockitoExtension.class)
+class QueryCacheTest {
+
+    private static final ResultMapper<String> VAR_CHAR = rs -> rs.getString(TestColumns.VAR_CHAR.getName());
+
+    private final MockDB mockDB = new MockDB();
+
+    @Test
+    void cachesByParameters() throws SQLException {
+        final QueryCache cache = new QueryCache(10);
+        final PreparedQuery<String> query = new SelectBuilder<>(VAR_CHAR)
+                .table("cached_table")
+                .where(TestColumns.INT, 0)
+                .cache(cache)
+                .compile();
+
+        assertEquals(List.of("val1", "val2"), query.getMany(mockDB.connection, 1));
+        assertEquals(List.of("val1", "val2"), query.getMany(mockDB.connection, 1));
+        verify(mockDB.statement).executeQuery();
+        assertThrows(UnsupportedOperationException.class, () -> query.getMany(mockDB.connection, 1).clear());
+
+        // a different value is a different result. The mocked rows have all been read by now
+        assertEquals(List.of(), query.getMany(mockDB.connection, 2));
+        verify(mockDB.statement, times(2)).executeQuery();
+        assertEquals(2, cache.getMisses());
+        assertEquals(2, cache.getHits());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void writesInvalidate() throws SQLException {
+        final QueryCache cache = new QueryCache(10);
+        final SelectBuilder<String> select = new SelectBuilder<>(VAR_CHAR).table("written_table").cache(cache);
+
+        assertEquals(List.of("val1", "val2"), select.getMany(mockDB.connection));
+        new UpdateBuilder().table("other_table").value(TestColumns.INT, 1).execute(mockDB.connection);
+        assertEquals(List.of("val1", "val2"), select.getMany(mockDB.connection));
+
+        new UpdateBuilder().table("written_table").value(TestColumns.INT, 1).execute(mockDB.connection);
+        assertEquals(List.of(), select.getMany(mockDB.connection));
+        verify(mockDB.statement, times(2)).executeQuery();
+    }
+
+    @Test
+    void expires() throws SQLException {
+        final QueryCache cache = new QueryCache(10, Duration.ofNanos(1));
+        final QueryCache.Key key = new QueryCache.Key("SELECT 1;", "one", VAR_CHAR, new Object[0]);
+        final AtomicInteger loads = new AtomicInteger();
+
+        cache.get("test_table", key, loads::incrementAndGet);
+        cache.get("test_table", key, loads::incrementAndGet);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void bounded() throws SQLException {
+        final QueryCache cache = new QueryCache(2);
+        for (int i = 0; i < 5; i++) {
+            final int value = i;
+            cache.get("test_table", new QueryCache.Key("SELECT 1;", "one", VAR_CHAR, new Object[]{i}), () -> value);
+        }
+        assertEquals(2, cache.size());
+        assertEquals(3, cache.getEvictions());
+    }
+
+    @Test
+    void failuresAreNotCached() throws SQLException {
+        final QueryCache cache = new QueryCache(10);
+        final QueryCache.Key key = new QueryCache.Key("SELECT 1;", "one", VAR_CHAR, new Object[0]);
+
+        assertThrows(SQLException.class, () -> cache.get("test_table", key, () -> {
+            throw new SQLException("failed");
+        }));
+        assertEquals("loaded", cache.get("test_table", key, () -> "loaded"));
+    }
+
+    @Test
+    void singleFlight() throws Exception {
+        final QueryCache cache = new QueryCache(10);
+        final QueryCache.Key key = new QueryCache.Key("SELECT 1;", "one", VAR_CHAR, new Object[0]);
+        final CountDownLatch loading = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger loads = new AtomicInteger();
+
+        final CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> {
+            try {
+                return cache.get("test_table", key, () -> {
+                    loads.incrementAndGet();
+                    loading.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        throw new SQLException(e);
+                    }
+                    return "loaded";
+                });
+            } catch (SQLException e) {
+                throw new UncheckedSQLException(e);
+            }
+        });
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        final CompletableFuture<String> second = CompletableFuture.supplyAsync(() -> {
+            try {
+                return cache.get("test_table", key, () -> {
+                    loads.incrementAndGet();
+                    return "loaded again";
+                });
+            } catch (SQLException e) {
+                throw new UncheckedSQLException(e);
+            }
+        });
+        release.countDown();
+
+        assertEquals("loaded", first.get(5, TimeUnit.SECONDS));
+        assertEquals("loaded", second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, loads.get());
+    }
+}
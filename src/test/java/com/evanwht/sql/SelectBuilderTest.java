@@ -5,18 +5,38 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import javax.sql.DataSource;
 import java.sql.Array;
 import java.sql.DriverManager;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 /**
  * @author evanwht1@gmail.com
@@ -118,6 +138,281 @@ SelectBuilderTest {
         verify(mockDB.statement).setObject(2, 2, Types.INTEGER);
     }
 
+    @Test
+    void testCompile() throws SQLException {
+        final PreparedQuery<ResultSet> query = SelectBuilder.resultSetSelector()
+                .table("test_table")
+                .select(TestColumns.INT)
+                .where(TestColumns.VAR_CHAR, "placeholder")
+                .where(TestColumns.ARRAY, null)
+                .where(TestColumns.INT, 0)
+                .compile();
+
+        assertEquals("SELECT intCol FROM test_table WHERE varCharCol = ? AND arrayCol IS NULL AND intCol = ?;", query.getSql());
+        assertEquals(List.of(TestColumns.VAR_CHAR, TestColumns.INT), query.getParameters());
+        assertEquals(2, query.getMany(mockDB.connection, "val", 2).size());
+
+        verify(mockDB.statement).setObject(1, "val", Types.VARCHAR);
+        verify(mockDB.statement).setObject(2, 2, Types.INTEGER);
+        assertThrows(SQLException.class, () -> query.getMany(mockDB.connection, "val"));
+    }
+
+    @Test
+    void testStream() throws SQLException {
+        final List<String> mapped = new ArrayList<>();
+        final SelectBuilder<String> builder = new SelectBuilder<>(rs -> {
+                    final String value = rs.getString(TestColumns.VAR_CHAR.getName());
+                    mapped.add(value);
+                    return value;
+                })
+                .table("test_table")
+                .where(TestColumns.INT, 2)
+                .fetchSize(500);
+
+        try (final Stream<String> stream = builder.stream(mockDB.connection)) {
+            // nothing is mapped until the stream is consumed
+            assertTrue(mapped.isEmpty());
+            assertEquals(List.of("val1"), stream.limit(1).collect(Collectors.toList()));
+            assertEquals(1, mapped.size());
+        }
+
+        verify(mockDB.statement).setFetchSize(500);
+        verify(mockDB.statement).setObject(1, 2, Types.INTEGER);
+        verify(mockDB.resultSet).close();
+        verify(mockDB.statement).close();
+    }
+
+    @Test
+    void testIterator() throws SQLException {
+        final SelectBuilder<String> builder = new SelectBuilder<>(rs -> rs.getString(TestColumns.VAR_CHAR.getName()))
+                .table("test_table");
+
+        final ResultIterator<String> iterator = builder.iterator(mockDB.connection);
+        assertEquals("val1", iterator.next());
+        assertEquals("val2", iterator.next());
+        assertFalse(iterator.hasNext());
+        assertThrows(NoSuchElementException.class, iterator::next);
+
+        // reading to the end closes everything
+        verify(mockDB.resultSet).close();
+        verify(mockDB.statement).close();
+        verify(mockDB.statement, never()).setFetchSize(anyInt());
+
+        when(mockDB.resultSet.next()).thenReturn(true, false);
+        when(mockDB.resultSet.getString(TestColumns.VAR_CHAR.getName())).thenReturn("val3");
+        final List<String> values = new ArrayList<>();
+        builder.forEach(mockDB.connection, values::add);
+        assertEquals(1, values.size());
+        assertEquals(List.of("val3"), values);
+    }
+
+    @Test
+    void testLimitOffset() throws SQLException {
+        final SelectBuilder<ResultSet> builder = SelectBuilder.resultSetSelector()
+                .table("test_table")
+                .where(TestColumns.VAR_CHAR, "val")
+                .orderBy(TestColumns.INT, OrderType.DESC)
+                .limit(10)
+                .offset(20);
+
+        assertEquals("SELECT * FROM test_table WHERE varCharCol = ? ORDER BY intCol DESC LIMIT ? OFFSET ?;", builder.createStatement());
+        assertEquals(List.of(TestColumns.VAR_CHAR, Paging.LIMIT, Paging.OFFSET), builder.compile().getParameters());
+        assertEquals(2, builder.getMany(mockDB.connection).size());
+
+        verify(mockDB.statement).setObject(1, "val", Types.VARCHAR);
+        verify(mockDB.statement).setObject(2, 10, Types.INTEGER);
+        verify(mockDB.statement).setObject(3, 20, Types.INTEGER);
+        verify(mockDB.statement, never()).setMaxRows(anyInt());
+    }
+
+    @Test
+    void testWhereIn() throws SQLException {
+        final SelectBuilder<String> builder = new SelectBuilder<>(rs -> rs.getString(TestColumns.VAR_CHAR.getName()))
+                .table("test_table")
+                .whereIn(TestColumns.INT, List.of(1, 2, 3, 4, 5));
+        assertEquals("SELECT * FROM test_table WHERE intCol IN (?, ?, ?, ?, ?, ?, ?, ?);", builder.createStatement());
+
+        // split into queries of 4 and 1 values, whose rows are combined
+        when(mockDB.resultSet.next()).thenReturn(true, false, true, false);
+        assertEquals(List.of("val1", "val2"), builder.maxParameters(4).getMany(mockDB.connection));
+        verify(mockDB.connection).prepareStatement("SELECT * FROM test_table WHERE intCol IN (?, ?, ?, ?);");
+        verify(mockDB.connection).prepareStatement("SELECT * FROM test_table WHERE intCol IN (?);");
+        verify(mockDB.statement).setObject(1, 5, Types.INTEGER);
+        assertThrows(SQLException.class, () -> builder.limit(1).getMany(mockDB.connection));
+
+        final Array array = mock(Array.class);
+        when(mockDB.connection.createArrayOf("integer", new Object[]{1, 2, 3, 4, 5})).thenReturn(array);
+        final SelectBuilder<String> arrays = new SelectBuilder<>(rs -> rs.getString(TestColumns.VAR_CHAR.getName()))
+                .table("test_table")
+                .whereIn(TestColumns.INT, List.of(1, 2, 3, 4, 5))
+                .inListMode(InListMode.ARRAY);
+        assertEquals("SELECT * FROM test_table WHERE intCol = ANY(?);", arrays.createStatement());
+        when(mockDB.statement.getConnection()).thenReturn(mockDB.connection);
+        arrays.getMany(mockDB.connection);
+        verify(mockDB.statement).setArray(1, array);
+    }
+
+    @Test
+    void testWhereInSplitsPrimitives() throws SQLException {
+        final SelectBuilder<ResultSet> builder = SelectBuilder.resultSetSelector()
+                .table("test_table")
+                .select(TestColumns.INT)
+                .whereIn(TestColumns.INT, List.of(1, 2, 3, 4, 5))
+                .maxParameters(4);
+
+        // the arrays of the queries of 4 and 1 values are joined in order
+        when(mockDB.resultSet.next()).thenReturn(true, true, false, true, false);
+        when(mockDB.resultSet.getLong(1)).thenReturn(7L, 8L, 9L);
+        assertArrayEquals(new long[]{7, 8, 9}, builder.getLongs(mockDB.connection));
+        verify(mockDB.connection).prepareStatement("SELECT intCol FROM test_table WHERE intCol IN (?, ?, ?, ?);");
+        verify(mockDB.connection).prepareStatement("SELECT intCol FROM test_table WHERE intCol IN (?);");
+
+        // lazily read results can't span queries
+        assertThrows(SQLException.class, () -> builder.iterator(mockDB.connection));
+        assertThrows(SQLException.class, () -> builder.stream(mockDB.connection));
+        assertThrows(SQLException.class, () -> builder.getColumnar(mockDB.connection));
+    }
+
+    @Test
+    void testArrayTypeNames() throws SQLException {
+        assertEquals("timestamptz", ArrayParameter.typeName(column("ts", Types.TIMESTAMP_WITH_TIMEZONE, null)));
+        assertEquals("uuid", ArrayParameter.typeName(column("id", Types.OTHER, "uuid")));
+        assertThrows(SQLException.class, () -> ArrayParameter.typeName(column("id", Types.OTHER, null)));
+    }
+
+    private static Column column(final String name, final int type, final String typeName) {
+        return new Column() {
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public int getType() {
+                return type;
+            }
+
+            @Override
+            public String getTypeName() {
+                return typeName;
+            }
+        };
+    }
+
+    @Test
+    void testGetOneLimitsRows() throws SQLException {
+        final SelectBuilder<String> builder = new SelectBuilder<>(rs -> rs.getString(TestColumns.VAR_CHAR.getName()))
+                .table("test_table");
+
+        assertEquals(Optional.of("val1"), builder.getOne(mockDB.connection));
+        verify(mockDB.statement).setMaxRows(1);
+    }
+
+    @Test
+    void testPaginate() throws SQLException {
+        when(mockDB.resultSet.getObject(TestColumns.INT.getName())).thenReturn(1, 2);
+        final Iterator<List<String>> pages = new SelectBuilder<>(rs -> rs.getString(TestColumns.VAR_CHAR.getName()))
+                .table("test_table")
+                .select(TestColumns.VAR_CHAR)
+                .where(TestColumns.VAR_CHAR, "val")
+                .paginate(mockDB.connection, TestColumns.INT, 2);
+
+        assertTrue(pages.hasNext());
+        assertEquals(List.of("val1", "val2"), pages.next());
+        verify(mockDB.connection).prepareStatement("SELECT varCharCol, intCol FROM test_table WHERE varCharCol = ? ORDER BY intCol LIMIT ?;");
+        verify(mockDB.statement).setObject(2, 2, Types.INTEGER);
+
+        // the next page starts after the last key and is empty, which ends the iteration
+        assertFalse(pages.hasNext());
+        verify(mockDB.connection).prepareStatement("SELECT varCharCol, intCol FROM test_table WHERE varCharCol = ? AND intCol > ? ORDER BY intCol LIMIT ?;");
+        verify(mockDB.statement, times(2)).setObject(1, "val", Types.VARCHAR);
+        verify(mockDB.statement, times(2)).setObject(2, 2, Types.INTEGER);
+        verify(mockDB.statement).setObject(3, 2, Types.INTEGER);
+        assertThrows(NoSuchElementException.class, pages::next);
+
+        assertThrows(SQLException.class, () -> new SelectBuilder<>(rs -> 1)
+                .table("test_table")
+                .orderBy(TestColumns.INT, OrderType.ASC)
+                .paginate(mockDB.connection, TestColumns.INT, 2));
+    }
+
+    @Test
+    void testPrimitives() throws SQLException {
+        final SelectBuilder<ResultSet> builder = SelectBuilder.resultSetSelector()
+                .table("test_table")
+                .select(TestColumns.INT)
+                .where(TestColumns.VAR_CHAR, "val");
+
+        assertArrayEquals(new long[]{2, 3}, builder.getLongs(mockDB.connection));
+        verify(mockDB.statement).setObject(1, "val", Types.VARCHAR);
+        verify(mockDB.statement).close();
+
+        when(mockDB.resultSet.next()).thenReturn(true, true, true, false);
+        when(mockDB.resultSet.getDouble(1)).thenReturn(1.5, 2.5, 3.5);
+        final double[] doubles = builder.getDoubles(mockDB.connection);
+        assertEquals(3, doubles.length);
+        assertArrayEquals(new double[]{1.5, 2.5, 3.5}, doubles);
+
+        when(mockDB.resultSet.next()).thenReturn(true, true, false);
+        assertArrayEquals(new int[]{1, 2}, builder.getInts(mockDB.connection, rs -> rs.getInt(TestColumns.INT.getName())));
+    }
+
+    @Test
+    void testColumnar() throws SQLException {
+        when(mockDB.resultSet.getString(1)).thenReturn("a", (String) null);
+        when(mockDB.resultSet.getInt(2)).thenReturn(5, 0);
+        when(mockDB.resultSet.wasNull()).thenReturn(false, true);
+        final ColumnarBatch batch = SelectBuilder.resultSetSelector()
+                .table("test_table")
+                .select(TestColumns.VAR_CHAR)
+                .select(TestColumns.INT)
+                .select(TestColumns.ARRAY)
+                .getColumnar(mockDB.connection);
+
+        assertEquals(2, batch.size());
+        assertEquals(3, batch.getColumnCount());
+        assertTrue(batch.column(TestColumns.VAR_CHAR) instanceof StringVector);
+        assertTrue(batch.column(TestColumns.INT) instanceof IntVector);
+        assertTrue(batch.column(TestColumns.ARRAY) instanceof ObjectVector);
+        assertEquals(List.of("a"), ((StringVector) batch.column(0)).getDictionary());
+
+        final int intCol = batch.indexOf(TestColumns.INT);
+        final ColumnarBatch.Cursor cursor = batch.cursor();
+        assertTrue(cursor.next());
+        assertEquals("a", cursor.getString(0));
+        assertEquals(5, cursor.getInt(intCol));
+        assertEquals(5L, cursor.getLong(intCol));
+        assertFalse(cursor.isNull(intCol));
+        assertTrue(cursor.next());
+        assertNull(cursor.getString(0));
+        assertTrue(cursor.isNull(intCol));
+        assertTrue(cursor.isNull(2));
+        assertFalse(cursor.next());
+        assertThrows(IllegalStateException.class, () -> batch.column(0).getDouble(0));
+
+        verify(mockDB.statement).close();
+    }
+
+    @Test
+    void testAsync() throws Exception {
+        final DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenReturn(mockDB.connection);
+        final SelectBuilder<String> builder = new SelectBuilder<>(rs -> rs.getString(TestColumns.VAR_CHAR.getName()))
+                .table("test_table")
+                .where(TestColumns.INT, 2);
+
+        final CompletableFuture<List<String>> many = builder.getManyAsync(dataSource);
+        // changing the builder afterwards doesn't change the running query
+        builder.where(TestColumns.VAR_CHAR, "val");
+        assertEquals(List.of("val1", "val2"), many.get(5, TimeUnit.SECONDS));
+        verify(mockDB.statement).setObject(1, 2, Types.INTEGER);
+        verify(mockDB.connection).close();
+
+        final ExecutionException failure = assertThrows(ExecutionException.class,
+                () -> new SelectBuilder<>(rs -> 1).getOneAsync(dataSource, Runnable::run).get());
+        assertTrue(failure.getCause() instanceof SQLException);
+    }
+
     static class Result {
 
         private final String str;
@@ -170,4 +465,91 @@ SelectBuilderTest {
         verify(mockDB.statement).setObject(1, "val", Types.VARCHAR);
         verify(mockDB.statement).setObject(2, 2, Types.INTEGER);
     }
+
+    @Test
+    void projectsMappedColumns() throws SQLException {
+        final SelectBuilder<ClassResultMapperTest.Pojo> builder = new SelectBuilder<>(ClassResultMapperTest.Pojo.class)
+                .table("test_table")
+                .where(TestColumns.INT, 1);
+        assertEquals("SELECT intCol, varCharCol, longCol, timestampCol FROM test_table WHERE intCol = ?;",
+                     builder.createStatement());
+        assertEquals(List.of(Types.INTEGER, Types.VARCHAR, Types.BIGINT, Types.TIMESTAMP),
+                     builder.compile().getColumns().stream().map(Column::getType).collect(Collectors.toList()));
+
+        assertEquals("SELECT * FROM test_table WHERE intCol = ?;", builder.selectAll().createStatement());
+        assertEquals("SELECT varCharCol FROM test_table WHERE intCol = ?;",
+                     builder.select(TestColumns.VAR_CHAR).createStatement());
+    }
+
+    @Test
+    void forEachRow() throws SQLException {
+        when(mockDB.resultSet.getLong(1)).thenReturn(3L, 4L);
+        when(mockDB.resultSet.getString(2)).thenReturn("a", (String) null);
+        final long[] sum = new long[1];
+        final List<String> names = new ArrayList<>();
+        final int rows = new SelectBuilder<>(rs -> rs)
+                .table("test_table")
+                .select(TestColumns.INT)
+                .select(TestColumns.VAR_CHAR)
+                .forEachRow(mockDB.connection, row -> {
+                    sum[0] += row.getLong(TestColumns.INT);
+                    names.add(row.getString(TestColumns.VAR_CHAR));
+                });
+        assertEquals(2, rows);
+        assertEquals(7, sum[0]);
+        assertEquals(Arrays.asList("a", null), names);
+        verify(mockDB.resultSet, never()).getMetaData();
+
+        // every column is selected, so indexes are looked up by label once
+        final ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(mockDB.resultSet.next()).thenReturn(true, true, false);
+        when(mockDB.resultSet.getMetaData()).thenReturn(metaData);
+        when(metaData.getColumnCount()).thenReturn(2);
+        when(metaData.getColumnLabel(1)).thenReturn("VARCHARCOL");
+        when(metaData.getColumnLabel(2)).thenReturn("intCol");
+        when(mockDB.resultSet.getInt(2)).thenReturn(5, 6);
+        when(mockDB.resultSet.getString(1)).thenReturn("b");
+        final List<Integer> ints = new ArrayList<>();
+        new SelectBuilder<>(rs -> rs)
+                .table("test_table")
+                .forEachRow(mockDB.connection, row -> {
+                    ints.add(row.getInt(TestColumns.INT));
+                    assertFalse(row.isNull(TestColumns.VAR_CHAR));
+                    assertThrows(SQLException.class, () -> row.getLong(TestColumns.ARRAY));
+                });
+        assertEquals(List.of(5, 6), ints);
+        verify(mockDB.resultSet, times(1)).getMetaData();
+        // read with the getter of the column's type, not boxed through getObject
+        verify(mockDB.resultSet, never()).getObject(1);
+    }
+
+    @Test
+    void boundResultMapper() throws SQLException {
+        when(mockDB.resultSet.getString(2)).thenReturn("a", "b");
+        final SelectBuilder<String> selected = new SelectBuilder<>((rs, columns) -> rs.getString(columns.indexOf(TestColumns.VAR_CHAR)))
+                .table("test_table")
+                .select(TestColumns.INT)
+                .select(TestColumns.VAR_CHAR);
+        assertEquals(List.of("a", "b"), selected.getMany(mockDB.connection));
+        verify(mockDB.resultSet, never()).getMetaData();
+        verify(mockDB.resultSet, never()).getString(TestColumns.VAR_CHAR.getName());
+
+        // every column is selected, so the index is looked up by label once per result set
+        final ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(mockDB.resultSet.next()).thenReturn(true, true, false);
+        when(mockDB.resultSet.getMetaData()).thenReturn(metaData);
+        when(metaData.getColumnCount()).thenReturn(1);
+        when(metaData.getColumnLabel(1)).thenReturn("intCol");
+        when(mockDB.resultSet.getInt(1)).thenReturn(5, 6);
+        final SelectBuilder<Integer> all = new SelectBuilder<>((rs, columns) -> rs.getInt(columns.indexOf(TestColumns.INT)))
+                .table("test_table");
+        assertEquals(List.of(5, 6), all.getMany(mockDB.connection));
+        verify(mockDB.resultSet, times(1)).getMetaData();
+
+        // bound again by the next execution, even though the driver hands back the same ResultSet
+        when(mockDB.resultSet.next()).thenReturn(true, false);
+        when(mockDB.resultSet.getInt(1)).thenReturn(7);
+        assertEquals(List.of(7), all.getMany(mockDB.connection));
+        verify(mockDB.resultSet, times(2)).getMetaData();
+    }
 }
@@ -0,0 +1,187 @@
+package com.evanwht.sql;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.OptionalLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author evanwht1@gmail.com
+ */
+@ExtendWith(MockitoExtension.class)
+class SessionTest {
+
+    private static final String INSERT_PARENT = "INSERT INTO parent (varCharCol) VALUES (?);";
+    private static final String INSERT_CHILD = "INSERT INTO child (intCol, varCharCol) VALUES (?, ?);";
+    private static final String UPDATE_PARENT = "UPDATE parent SET varCharCol = ? WHERE intCol = ?;";
+    private static final String DELETE_CHILD = "DELETE FROM child WHERE intCol = ?;";
+    private static final String DELETE_PARENT = "DELETE FROM parent WHERE intCol = ?;";
+
+    private final MockDB mockDB = new MockDB();
+
+    @Test
+    void coalescesWrites() throws SQLException {
+        when(mockDB.connection.getAutoCommit()).thenReturn(true);
+        when(mockDB.statement.executeBatch()).thenReturn(new int[]{1}, new int[]{1, 1}, new int[]{2}, new int[]{1});
+        final ResultSet parentKeys = keys(10L);
+        final ResultSet childKeys = keys(20L, 21L);
+        final ResultSet secondParentKeys = keys(11L);
+        when(mockDB.statement.getGeneratedKeys()).thenReturn(parentKeys, childKeys, secondParentKeys);
+
+        final Pending parent;
+        final Pending firstChild;
+        final Pending update;
+        final Pending secondParent;
+        try (final Session session = new Session(mockDB.connection).reorderTables(true)) {
+            parent = session.insert(new InsertBuilder().table("parent").value(TestColumns.VAR_CHAR, "p"));
+            firstChild = session.insert(child(parent, "a"));
+            update = session.update(new UpdateBuilder().table("parent")
+                                                       .value(TestColumns.VAR_CHAR, "q")
+                                                       .where(TestColumns.INT, 1));
+            // joins the first child's batch, hopping over the update of the other table
+            session.insert(child(parent, "b"));
+            // can't join the first parent's batch without running before the update of its table
+            secondParent = session.insert(new InsertBuilder().table("parent").value(TestColumns.VAR_CHAR, "r"));
+            assertEquals(5, session.getQueued());
+            assertFalse(parent.isDone());
+            assertThrows(IllegalStateException.class, parent::getKey);
+
+            session.commit();
+            assertEquals(0, session.getQueued());
+            assertEquals(5, session.getStatements());
+            assertEquals(4, session.getRoundTrips());
+            assertEquals(1, session.getStatementsSaved());
+        }
+
+        assertEquals(OptionalLong.of(10L), parent.getKey());
+        assertEquals(OptionalLong.of(20L), firstChild.getKey());
+        assertEquals(OptionalInt.of(2), update.getCount());
+        assertEquals(OptionalLong.of(11L), secondParent.getKey());
+        final InOrder order = inOrder(mockDB.connection);
+        order.verify(mockDB.connection).setAutoCommit(false);
+        order.verify(mockDB.connection).prepareStatement(INSERT_PARENT, Statement.RETURN_GENERATED_KEYS);
+        order.verify(mockDB.connection).prepareStatement(INSERT_CHILD, Statement.RETURN_GENERATED_KEYS);
+        order.verify(mockDB.connection).prepareStatement(UPDATE_PARENT);
+        order.verify(mockDB.connection).prepareStatement(INSERT_PARENT, Statement.RETURN_GENERATED_KEYS);
+        order.verify(mockDB.connection).commit();
+        order.verify(mockDB.connection).setAutoCommit(true);
+        verify(mockDB.connection, never()).rollback();
+        // the children are bound to the key generated for their parent
+        verify(mockDB.statement, times(2)).setObject(1, 10L, Types.INTEGER);
+    }
+
+    @Test
+    void keepsOrderAcrossTables() throws SQLException {
+        when(mockDB.statement.executeBatch()).thenReturn(new int[]{1});
+        try (final Session session = new Session(mockDB.connection)) {
+            session.delete(new DeleteBuilder().table("child").where(TestColumns.INT, 1));
+            session.delete(new DeleteBuilder().table("parent").where(TestColumns.INT, 2));
+            // can't join the first delete without running before the delete of the other table
+            session.delete(new DeleteBuilder().table("child").where(TestColumns.INT, 2));
+            session.commit();
+            assertEquals(3, session.getRoundTrips());
+        }
+        final InOrder order = inOrder(mockDB.connection);
+        order.verify(mockDB.connection).prepareStatement(DELETE_CHILD);
+        order.verify(mockDB.connection).prepareStatement(DELETE_PARENT);
+        order.verify(mockDB.connection).prepareStatement(DELETE_CHILD);
+    }
+
+    @Test
+    void batchesArrayInLists() throws SQLException {
+        when(mockDB.statement.getConnection()).thenReturn(mockDB.connection);
+        when(mockDB.statement.executeBatch()).thenReturn(new int[]{2, 1});
+        try (final Session session = new Session(mockDB.connection)) {
+            final Pending first = session.delete(new DeleteBuilder().table("child")
+                                                                    .inListMode(InListMode.ARRAY)
+                                                                    .whereIn(TestColumns.INT, List.of(1, 2)));
+            final Pending second = session.delete(new DeleteBuilder().table("child")
+                                                                     .inListMode(InListMode.ARRAY)
+                                                                     .whereIn(TestColumns.INT, List.of(3)));
+            session.commit();
+            assertEquals(1, session.getRoundTrips());
+            assertEquals(OptionalInt.of(2), first.getCount());
+            assertEquals(OptionalInt.of(1), second.getCount());
+        }
+        verify(mockDB.statement, times(2)).addBatch();
+    }
+
+    @Test
+    void countsInsertsAsReported() throws SQLException {
+        when(mockDB.statement.executeBatch()).thenReturn(new int[]{0});
+        try (final Session session = new Session(mockDB.connection)) {
+            // e.g. an insert that ignores duplicates
+            final Pending ignored = session.insert(new InsertBuilder().table("parent").value(TestColumns.VAR_CHAR, "p"));
+            session.commit();
+            assertEquals(OptionalInt.empty(), ignored.getCount());
+        }
+    }
+
+    @Test
+    void failsStatementsNotRun() throws SQLException {
+        final SQLException failure = new SQLException("constraint violation");
+        when(mockDB.statement.executeBatch()).thenReturn(new int[]{1}).thenThrow(failure);
+        try (final Session session = new Session(mockDB.connection)) {
+            final Pending ran = session.delete(new DeleteBuilder().table("child").where(TestColumns.INT, 1));
+            final Pending failed = session.delete(new DeleteBuilder().table("parent").where(TestColumns.INT, 1));
+            final Pending discarded = session.delete(new DeleteBuilder().table("child").where(TestColumns.INT, 2));
+            assertSame(failure, assertThrows(SQLException.class, session::flush));
+
+            assertFalse(ran.isFailed());
+            assertEquals(OptionalInt.of(1), ran.getCount());
+            for (Pending pending : List.of(failed, discarded)) {
+                assertTrue(pending.isDone());
+                assertEquals(Optional.of(failure), pending.getFailure());
+                assertSame(failure, assertThrows(IllegalStateException.class, pending::getCount).getCause());
+            }
+        }
+        verify(mockDB.connection).rollback();
+    }
+
+    @Test
+    void rollsBackOnClose() throws SQLException {
+        try (final Session session = new Session(mockDB.connection)) {
+            session.delete(new DeleteBuilder().table("test_table").where(TestColumns.INT, 1));
+        }
+        verify(mockDB.connection).rollback();
+        verify(mockDB.connection, never()).prepareStatement(anyString());
+        verify(mockDB.connection, never()).commit();
+    }
+
+    private static InsertBuilder child(final Pending parent, final String name) {
+        return new InsertBuilder().table("child").value(TestColumns.INT, parent).value(TestColumns.VAR_CHAR, name);
+    }
+
+    private static ResultSet keys(final Long first, final Long... rest) throws SQLException {
+        final ResultSet keys = mock(ResultSet.class);
+        final Boolean[] more = new Boolean[rest.length + 1];
+        for (int i = 0; i < more.length; i++) {
+            more[i] = i < rest.length;
+        }
+        when(keys.next()).thenReturn(true, more);
+        when(keys.getLong(1)).thenReturn(first, rest);
+        return keys;
+    }
+}
@@ -0,0 +1,56 @@
+package com.evanwht.sql;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * @author evanwht1@gmail.com
+ */
+class SqlCacheTest {
+
+    @Test
+    void hitsAndMisses() {
+        final SqlCache cache = new SqlCache(10);
+        final StatementKey key = StatementKey.builder(Keywords.SELECT, "test_table").add("intCol").build();
+        final String sql = cache.get(key, () -> "SELECT intCol FROM test_table;");
+        assertSame(sql, cache.get(StatementKey.builder(Keywords.SELECT, "test_table").add("intCol").build(),
+                                  () -> "should not render"));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(0.5, cache.getHitRate());
+    }
+
+    @Test
+    void bounded() {
+        final SqlCache cache = new SqlCache(2);
+        for (int i = 0; i < 5; i++) {
+            final String table = "table" + i;
+            cache.get(StatementKey.builder(Keywords.DELETE, table).build(), () -> table);
+        }
+        assertEquals(2, cache.size());
+        assertEquals(3, cache.getEvictions());
+    }
+
+    @Test
+    void sectionsAreDistinct() {
+        final StatementKey selected = StatementKey.builder(Keywords.SELECT, "test_table").add("intCol").section().build();
+        final StatementKey where = StatementKey.builder(Keywords.SELECT, "test_table").section().add("intCol").build();
+        assertNotEquals(selected, where);
+    }
+
+    @Test
+    void nullPatternIsPartOfShape() {
+        final DeleteBuilder isNull = new DeleteBuilder()
+                .table("test_table")
+                .where(TestColumns.VAR_CHAR, null);
+        final DeleteBuilder notNull = new DeleteBuilder()
+                .table("test_table")
+                .where(TestColumns.VAR_CHAR, "val");
+        assertEquals("DELETE FROM test_table WHERE varCharCol IS NULL;", isNull.createStatement());
+        assertEquals("DELETE FROM test_table WHERE varCharCol = ?;", notNull.createStatement());
+        assertEquals("DELETE FROM test_table WHERE varCharCol IS NULL;", isNull.createStatement());
+    }
+}
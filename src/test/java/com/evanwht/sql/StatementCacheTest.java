@@ -0,0 +1,105 @@
+package com.evanwht.sql;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author evanwht1@gmail.com
+ */
+@ExtendWith(MockitoExtension.class)
+class StatementCacheTest {
+
+    private final MockDB mockDB = new MockDB();
+
+    @Test
+    void uncachedStatementsAreClosed() throws SQLException {
+        new DeleteBuilder().table("test_table").where(TestColumns.INT, 1).execute(mockDB.connection);
+        verify(mockDB.statement).close();
+    }
+
+    @Test
+    void reusesStatements() throws SQLException {
+        final Connection connection = StatementCache.wrap(mockDB.connection);
+        assertSame(connection, StatementCache.wrap(connection));
+        assertFalse(StatementCache.forConnection(mockDB.connection).isPresent());
+        final StatementCache cache = StatementCache.forConnection(connection).orElseThrow();
+        for (int i = 0; i < 3; i++) {
+            new DeleteBuilder().table("test_table").where(TestColumns.INT, i).execute(connection);
+        }
+        verify(mockDB.connection, times(1)).prepareStatement(anyString());
+        verify(mockDB.statement, never()).close();
+        assertEquals(2, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsed() throws SQLException {
+        final Connection connection = StatementCache.wrap(mockDB.connection, 1);
+        final StatementCache cache = StatementCache.forConnection(connection).orElseThrow();
+        new DeleteBuilder().table("test_table").where(TestColumns.INT, 1).execute(connection);
+        new DeleteBuilder().table("test_table").where(TestColumns.VAR_CHAR, "val").execute(connection);
+        assertEquals(1, cache.getEvictions());
+        assertEquals(1, cache.size());
+        verify(mockDB.statement, times(1)).close();
+    }
+
+    @Test
+    void failedEvictionLeavesNothingInUse() throws SQLException {
+        final Connection connection = StatementCache.wrap(mockDB.connection, 1);
+        final StatementCache cache = StatementCache.forConnection(connection).orElseThrow();
+        new DeleteBuilder().table("test_table").where(TestColumns.INT, 1).execute(connection);
+        doThrow(new SQLException("close failed")).doNothing().when(mockDB.statement).close();
+        assertThrows(SQLException.class,
+                     () -> new DeleteBuilder().table("test_table").where(TestColumns.VAR_CHAR, "val").execute(connection));
+        assertEquals(0, cache.size());
+
+        // the statement that couldn't be prepared in place of the evicted one is cached by the next execution
+        new DeleteBuilder().table("test_table").where(TestColumns.VAR_CHAR, "val").execute(connection);
+        new DeleteBuilder().table("test_table").where(TestColumns.VAR_CHAR, "val").execute(connection);
+        assertEquals(1, cache.size());
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    void closingTheConnectionClosesTheCache() throws SQLException {
+        final Connection connection = StatementCache.wrap(mockDB.connection);
+        final StatementCache cache = StatementCache.forConnection(connection).orElseThrow();
+        new DeleteBuilder().table("test_table").where(TestColumns.INT, 1).execute(connection);
+        connection.close();
+        verify(mockDB.statement).close();
+        verify(mockDB.connection).close();
+        assertEquals(0, cache.size());
+
+        // statements run after the cache is closed aren't cached
+        new DeleteBuilder().table("test_table").where(TestColumns.INT, 1).execute(connection);
+        assertEquals(0, cache.size());
+        verify(mockDB.statement, times(2)).close();
+    }
+
+    @Test
+    void forwardsToWrappedConnection() throws SQLException {
+        when(mockDB.connection.getAutoCommit()).thenReturn(true);
+        final Connection connection = StatementCache.wrap(mockDB.connection);
+        assertTrue(connection.getAutoCommit());
+        doThrow(new SQLException("rollback failed")).when(mockDB.connection).rollback();
+        assertThrows(SQLException.class, connection::rollback);
+    }
+}
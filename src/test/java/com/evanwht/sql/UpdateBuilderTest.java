@@ -4,12 +4,21 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import javax.sql.DataSource;
 import java.sql.SQLException;
 import java.sql.Types;
 import java.util.List;
+import java.util.OptionalInt;
+import java.util.concurrent.CompletableFuture;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 /**
  * @author evanwht1@gmail.com
@@ -46,4 +55,90 @@ public class UpdateBuilderTest {
         verify(mockDB.statement).setObject(3, List.of("val1", "val2"), Types.ARRAY);
         verify(mockDB.statement).setObject(4, 1, Types.INTEGER);
     }
+
+    @Test
+    void compile() throws SQLException {
+        final PreparedCommand command = new UpdateBuilder()
+                .table("test_table")
+                .value(TestColumns.VAR_CHAR, "placeholder")
+                .where(TestColumns.INT, 0)
+                .compile();
+        assertEquals("UPDATE test_table SET varCharCol = ? WHERE intCol = ?;", command.getSql());
+        assertEquals(1, command.execute(mockDB.connection, null, 3).orElse(0));
+        verify(mockDB.statement).setNull(1, Types.VARCHAR);
+        verify(mockDB.statement).setObject(2, 3, Types.INTEGER);
+    }
+
+    @Test
+    void batch() throws SQLException {
+        when(mockDB.statement.executeBatch()).thenReturn(new int[]{1, 1}, new int[]{0});
+        final UpdateBuilder builder = new UpdateBuilder()
+                .table("test_table")
+                .batchSize(2);
+        for (int i = 0; i < 3; i++) {
+            builder.value(TestColumns.VAR_CHAR, "val" + i)
+                   .where(TestColumns.INT, i)
+                   .addRow();
+        }
+        assertArrayEquals(new int[]{1, 1, 0}, builder.executeBatch(mockDB.connection));
+        verify(mockDB.connection).prepareStatement("UPDATE test_table SET varCharCol = ? WHERE intCol = ?;");
+        verify(mockDB.statement, times(3)).addBatch();
+        verify(mockDB.statement).setObject(1, "val2", Types.VARCHAR);
+        verify(mockDB.statement).setObject(2, 2, Types.INTEGER);
+    }
+
+    @Test
+    void batchesAreClearedOnceRun() throws SQLException {
+        when(mockDB.statement.executeBatch()).thenReturn(new int[]{1});
+        final UpdateBuilder builder = new UpdateBuilder()
+                .table("test_table")
+                .value(TestColumns.VAR_CHAR, "val1")
+                .where(TestColumns.INT, 1);
+        assertArrayEquals(new int[]{1}, builder.executeBatch(mockDB.connection));
+        // the next batch may produce a different statement
+        builder.value(TestColumns.INT, 2)
+               .where(TestColumns.VAR_CHAR, "val2");
+        assertArrayEquals(new int[]{1}, builder.executeBatch(mockDB.connection));
+        verify(mockDB.statement, times(2)).addBatch();
+        verify(mockDB.statement).setObject(1, "val1", Types.VARCHAR);
+        verify(mockDB.connection).prepareStatement("UPDATE test_table SET intCol = ? WHERE varCharCol = ?;");
+    }
+
+    @Test
+    void pendingRowWithoutValuesIsRejected() throws SQLException {
+        final UpdateBuilder builder = new UpdateBuilder()
+                .table("test_table")
+                .value(TestColumns.VAR_CHAR, "val")
+                .where(TestColumns.INT, 1)
+                .addRow()
+                .where(TestColumns.INT, 2);
+        assertThrows(SQLException.class, () -> builder.executeBatch(mockDB.connection));
+        verify(mockDB.statement, never()).executeBatch();
+    }
+
+    @Test
+    void batchRowsMustMatch() {
+        final UpdateBuilder builder = new UpdateBuilder()
+                .table("test_table")
+                .value(TestColumns.VAR_CHAR, "val")
+                .where(TestColumns.INT, 1)
+                .addRow()
+                .value(TestColumns.VAR_CHAR, "val")
+                .where(TestColumns.INT, null);
+        assertThrows(IllegalStateException.class, builder::addRow);
+    }
+
+    @Test
+    void async() throws Exception {
+        final DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenReturn(mockDB.connection);
+        final CompletableFuture<OptionalInt> updated = new UpdateBuilder()
+                .table("test_table")
+                .value(TestColumns.VAR_CHAR, "val")
+                .executeAsync(dataSource, Runnable::run);
+
+        assertEquals(OptionalInt.of(1), updated.get());
+        verify(mockDB.statement).setObject(1, "val", Types.VARCHAR);
+        verify(mockDB.connection).close();
+    }
 }
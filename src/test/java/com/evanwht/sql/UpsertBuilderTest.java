@@ -0,0 +1,98 @@
+package com.evanwht.sql;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.sql.SQLException;
+import java.sql.Types;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author evanwht1@gmail.com
+ */
+@ExtendWith(MockitoExtension.class)
+class UpsertBuilderTest {
+
+    private final MockDB mockDB = new MockDB();
+
+    private static UpsertBuilder builder(final UpsertDialect dialect) {
+        return new UpsertBuilder()
+                .table("test_table")
+                .dialect(dialect)
+                .value(TestColumns.INT, 1)
+                .value(TestColumns.VAR_CHAR, "val")
+                .conflictOn(TestColumns.INT);
+    }
+
+    @Test
+    void onConflict() throws SQLException {
+        final UpsertBuilder builder = builder(UpsertDialect.ON_CONFLICT);
+        assertEquals("INSERT INTO test_table (intCol, varCharCol) VALUES (?, ?) ON CONFLICT (intCol) DO UPDATE SET varCharCol = EXCLUDED.varCharCol;",
+                     builder.createStatement());
+        assertEquals(1, builder.execute(mockDB.connection).orElse(0));
+        verify(mockDB.statement).setObject(1, 1, Types.INTEGER);
+        verify(mockDB.statement).setObject(2, "val", Types.VARCHAR);
+
+        assertEquals("INSERT INTO test_table (intCol, varCharCol) VALUES (?, ?) ON CONFLICT (intCol) DO NOTHING;",
+                     builder(UpsertDialect.ON_CONFLICT).update().createStatement());
+    }
+
+    @Test
+    void onDuplicateKey() {
+        assertEquals("INSERT INTO test_table (intCol, varCharCol) VALUES (?, ?) ON DUPLICATE KEY UPDATE varCharCol = VALUES(varCharCol);",
+                     builder(UpsertDialect.ON_DUPLICATE_KEY).createStatement());
+        assertEquals("INSERT INTO test_table (intCol, varCharCol) VALUES (?, ?) ON DUPLICATE KEY UPDATE intCol = intCol;",
+                     builder(UpsertDialect.ON_DUPLICATE_KEY).update().createStatement());
+    }
+
+    @Test
+    void merge() {
+        final PreparedCommand command = builder(UpsertDialect.MERGE).compile();
+        assertEquals("MERGE INTO test_table t USING (VALUES (?, ?)) AS s (intCol, varCharCol) ON t.intCol = s.intCol "
+                             + "WHEN MATCHED THEN UPDATE SET varCharCol = s.varCharCol "
+                             + "WHEN NOT MATCHED THEN INSERT (intCol, varCharCol) VALUES (s.intCol, s.varCharCol);",
+                     command.getSql());
+        assertEquals(2, command.getParameters().size());
+    }
+
+    @Test
+    void batch() throws SQLException {
+        when(mockDB.statement.executeBatch()).thenReturn(new int[]{1, 2});
+        final int[] counts = builder(UpsertDialect.ON_CONFLICT)
+                .addRow()
+                .value(TestColumns.INT, 2)
+                .value(TestColumns.VAR_CHAR, "val2")
+                .executeBatch(mockDB.connection);
+        assertArrayEquals(new int[]{1, 2}, counts);
+        verify(mockDB.statement).setObject(1, 2, Types.INTEGER);
+        verify(mockDB.statement, times(2)).addBatch();
+    }
+
+    @Test
+    void batchTwice() throws SQLException {
+        when(mockDB.statement.executeBatch()).thenReturn(new int[]{1});
+        final UpsertBuilder builder = builder(UpsertDialect.ON_CONFLICT);
+        assertArrayEquals(new int[]{1}, builder.executeBatch(mockDB.connection));
+        assertArrayEquals(new int[0], builder.executeBatch(mockDB.connection));
+        builder.value(TestColumns.INT, 2).value(TestColumns.VAR_CHAR, "val2");
+        assertArrayEquals(new int[]{1}, builder.executeBatch(mockDB.connection));
+        verify(mockDB.statement, times(2)).addBatch();
+    }
+
+    @Test
+    void errorCase() {
+        final UpsertBuilder noConflict = new UpsertBuilder().table("test_table").value(TestColumns.INT, 1);
+        assertThrows(SQLException.class, () -> noConflict.execute(mockDB.connection));
+        final UpsertBuilder unsetConflict = noConflict.conflictOn(TestColumns.VAR_CHAR);
+        assertThrows(IllegalStateException.class, unsetConflict::compile);
+        final UpsertBuilder unsetUpdate = builder(UpsertDialect.MERGE).update(TestColumns.ARRAY);
+        assertThrows(IllegalStateException.class, unsetUpdate::compile);
+    }
+}